@@ -0,0 +1,225 @@
+package com.docagent.app.common;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * 文件分段发送工具
+ * 支持ETag/Last-Modified条件请求（304）、单区间Range请求（206）以及零拷贝发送
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+@Slf4j
+public final class FileRangeSender {
+
+    private static final String BYTES_UNIT = "bytes=";
+
+    /**
+     * Tomcat sendfile相关请求属性（NIO连接器支持时由容器直接调用sendfile发送文件）
+     */
+    private static final String SENDFILE_SUPPORT_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * 浏览器缓存时间（文件内容由MD5标识，不会原地修改）
+     */
+    private static final String CACHE_CONTROL = "private, max-age=86400";
+
+    private FileRangeSender() {
+    }
+
+    /**
+     * 发送文件
+     *
+     * @param request HTTP请求
+     * @param response HTTP响应
+     * @param file 文件路径
+     * @param fileMd5 文件MD5（用作强ETag）
+     * @param contentType 内容类型
+     * @param contentDisposition Content-Disposition头
+     */
+    public static void send(HttpServletRequest request, HttpServletResponse response, Path file, String fileMd5,
+                            String contentType, String contentDisposition) throws IOException {
+        long fileLength = Files.size(file);
+        // HTTP日期精度为秒
+        long lastModified = Files.getLastModifiedTime(file).toMillis() / 1000 * 1000;
+        String etag = "\"" + fileMd5 + "\"";
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        // 1. 条件请求：内容未变化时返回304
+        if (isNotModified(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        // 2. 解析Range（If-Range不匹配时忽略Range，返回完整文件）
+        long start = 0;
+        long end = fileLength - 1;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (StringUtils.isNotBlank(rangeHeader) && isIfRangeSatisfied(request, etag, lastModified)) {
+            long[] range = parseRange(rangeHeader, fileLength);
+            if (Objects.isNull(range)) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + fileLength);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (range.length == 2) {
+                start = range[0];
+                end = range[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + fileLength);
+            }
+        }
+
+        long length = end - start + 1;
+        response.setContentType(contentType);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, contentDisposition);
+        response.setContentLengthLong(length);
+
+        if (HttpMethod.HEAD.matches(request.getMethod()) || length == 0) {
+            return;
+        }
+
+        // 3. 发送内容：容器支持sendfile时交给容器，否则通过FileChannel.transferTo写出
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTR))) {
+            request.setAttribute(SENDFILE_FILENAME_ATTR, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START_ATTR, start);
+            request.setAttribute(SENDFILE_END_ATTR, end + 1);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long transferred = channel.transferTo(position, remaining, target);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+        }
+    }
+
+    /**
+     * 判断条件请求是否命中（If-None-Match优先于If-Modified-Since）
+     */
+    private static boolean isNotModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (StringUtils.isNotBlank(ifNoneMatch)) {
+            return matchesEtag(ifNoneMatch, etag);
+        }
+        long ifModifiedSince = getDateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+        return ifModifiedSince >= 0 && lastModified <= ifModifiedSince;
+    }
+
+    /**
+     * 判断If-Range是否满足（未携带时视为满足）
+     */
+    private static boolean isIfRangeSatisfied(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (StringUtils.isBlank(ifRange)) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // If-Range要求强比较
+            return etag.equals(ifRange.trim());
+        }
+        return getDateHeader(request, HttpHeaders.IF_RANGE) == lastModified;
+    }
+
+    /**
+     * ETag列表匹配（If-None-Match使用弱比较）
+     */
+    private static boolean matchesEtag(String header, String etag) {
+        for (String candidate : header.split(",")) {
+            String tag = candidate.trim();
+            if ("*".equals(tag)) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (etag.equals(tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 解析单区间Range
+     *
+     * @return {start, end}；多区间或格式无法识别时返回空数组（按完整文件响应）；区间不可满足时返回null
+     */
+    static long[] parseRange(String rangeHeader, long fileLength) {
+        if (!rangeHeader.startsWith(BYTES_UNIT) || rangeHeader.contains(",")) {
+            return new long[0];
+        }
+        String spec = rangeHeader.substring(BYTES_UNIT.length()).trim();
+        int dashIndex = spec.indexOf('-');
+        if (dashIndex < 0) {
+            return new long[0];
+        }
+
+        try {
+            String startPart = spec.substring(0, dashIndex).trim();
+            String endPart = spec.substring(dashIndex + 1).trim();
+            long start;
+            long end;
+            if (startPart.isEmpty()) {
+                // 后缀区间：最后N个字节
+                long suffixLength = Long.parseLong(endPart);
+                if (suffixLength <= 0) {
+                    return null;
+                }
+                start = Math.max(0, fileLength - suffixLength);
+                end = fileLength - 1;
+            } else {
+                start = Long.parseLong(startPart);
+                end = endPart.isEmpty() ? fileLength - 1 : Math.min(Long.parseLong(endPart), fileLength - 1);
+            }
+            if (start >= fileLength || start > end) {
+                return null;
+            }
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            log.debug("[文件][分段]-无法解析Range头，按完整文件响应，Range={}", rangeHeader);
+            return new long[0];
+        }
+    }
+
+    /**
+     * 读取日期请求头，格式不合法时返回-1
+     */
+    private static long getDateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+}
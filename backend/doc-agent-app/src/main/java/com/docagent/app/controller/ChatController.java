@@ -2,13 +2,19 @@ package com.docagent.app.controller;
 
 import com.docagent.app.common.Result;
 import com.docagent.domain.entity.ChatHistory;
+import com.docagent.domain.service.AiService;
 import com.docagent.domain.service.ChatService;
 import jakarta.servlet.http.HttpSession;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 对话控制器
@@ -23,6 +29,11 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ChatController {
 
+    /**
+     * 流式对话超时时间（毫秒）
+     */
+    private static final long STREAM_TIMEOUT_MS = 180000L;
+
     private final ChatService chatService;
 
     /**
@@ -30,20 +41,85 @@ public class ChatController {
      *
      * @param request 对话请求
      * @param session HTTP会话
-     * @return AI回复内容
+     * @return AI回复内容（异步返回，等待AI期间释放Tomcat工作线程）
      */
     @PostMapping("/send")
-    public Result<String> sendMessage(@RequestBody ChatRequest request, HttpSession session) {
+    public CompletableFuture<Result<String>> sendMessage(@RequestBody ChatRequest request, HttpSession session) {
         String sessionId = session.getId();
         log.info("[对话][Controller]-发送消息，文档ID={}，会话ID={}", request.getDocumentId(), sessionId);
 
-        String reply = chatService.sendMessage(
+        return chatService.sendMessageAsync(
                 request.getDocumentId(),
                 request.getMessage(),
                 request.getSelectedText(),
                 sessionId
+        ).thenApply(Result::success);
+    }
+
+    /**
+     * 流式发送对话消息（SSE）
+     * 事件类型: message-内容块, done-生成完成, error-生成失败
+     *
+     * @param request 对话请求
+     * @param session HTTP会话
+     * @return SSE事件流
+     */
+    @PostMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamMessage(@RequestBody ChatRequest request, HttpSession session) {
+        String sessionId = session.getId();
+        log.info("[对话][Controller]-流式发送消息，文档ID={}，会话ID={}", request.getDocumentId(), sessionId);
+
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
+        AiService.StreamCancellation cancellation = chatService.sendMessageStream(
+                request.getDocumentId(),
+                request.getMessage(),
+                request.getSelectedText(),
+                sessionId,
+                new AiService.StreamCallback() {
+                    @Override
+                    public void onChunk(String chunk) {
+                        try {
+                            emitter.send(SseEmitter.event().name("message").data(chunk));
+                        } catch (IOException e) {
+                            // 客户端已断开，抛出异常以中止上游读取
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        try {
+                            emitter.send(SseEmitter.event().name("done").data("[DONE]"));
+                            emitter.complete();
+                        } catch (IOException | IllegalStateException e) {
+                            log.warn("[对话][Controller]-客户端已断开或已超时，会话ID={}", sessionId);
+                        }
+                    }
+
+                    @Override
+                    public void onError(Throwable error) {
+                        try {
+                            emitter.send(SseEmitter.event().name("error").data(error.getMessage()));
+                            emitter.complete();
+                        } catch (IOException | IllegalStateException e) {
+                            log.warn("[对话][Controller]-客户端已断开或已超时，会话ID={}", sessionId);
+                        }
+                    }
+                }
         );
-        return Result.success(reply);
+
+        // 客户端断开、超时或连接异常时取消上游AI请求（正常结束时取消为空操作）
+        emitter.onTimeout(() -> {
+            log.warn("[对话][Controller]-流式对话超时，取消AI请求，会话ID={}", sessionId);
+            cancellation.cancel();
+            emitter.complete();
+        });
+        emitter.onError(error -> {
+            log.warn("[对话][Controller]-流式连接异常，取消AI请求，会话ID={}，原因={}", sessionId, error.getMessage());
+            cancellation.cancel();
+        });
+        emitter.onCompletion(cancellation::cancel);
+        return emitter;
     }
 
     /**
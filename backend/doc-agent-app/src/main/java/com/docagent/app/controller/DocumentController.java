@@ -1,24 +1,27 @@
 package com.docagent.app.controller;
 
+import com.docagent.app.common.FileRangeSender;
 import com.docagent.app.common.Result;
+import com.docagent.domain.dto.DocumentStatusDTO;
 import com.docagent.domain.dto.FileUploadDTO;
 import com.docagent.domain.entity.Document;
 import com.docagent.domain.service.DocumentService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
-import java.io.File;
 import java.io.IOException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
 
 /**
@@ -61,7 +64,7 @@ public class DocumentController {
         // 调用服务层处理
         Long documentId = documentService.uploadDocument(fileUpload, sessionId);
 
-        log.info("[文档][上传]-文档上传成功，文档ID={}", documentId);
+        log.info("[文档][上传]-文档上传成功，等待解析，文档ID={}", documentId);
         return Result.success("文档上传成功", documentId);
     }
 
@@ -95,42 +98,71 @@ public class DocumentController {
     }
 
     /**
-     * 下载PDF文件
+     * 删除文档
      *
      * @param id 文档ID
      * @param session HTTP会话
-     * @return PDF文件
+     * @return 删除结果
+     */
+    @DeleteMapping("/{id}")
+    public Result<Void> deleteDocument(@PathVariable Long id, HttpSession session) {
+        String sessionId = session.getId();
+        log.info("[文档][删除]-删除文档，文档ID={}，会话ID={}", id, sessionId);
+        documentService.deleteDocument(id, sessionId);
+        return Result.success();
+    }
+
+    /**
+     * 查询文档解析状态
+     *
+     * @param id 文档ID
+     * @param session HTTP会话
+     * @return 解析状态
+     */
+    @GetMapping("/{id}/status")
+    public Result<DocumentStatusDTO> getDocumentStatus(@PathVariable Long id, HttpSession session) {
+        String sessionId = session.getId();
+        log.info("[文档][状态]-查询文档解析状态，文档ID={}，会话ID={}", id, sessionId);
+        DocumentStatusDTO status = documentService.getDocumentStatus(id, sessionId);
+        return Result.success(status);
+    }
+
+    /**
+     * 下载PDF文件（支持ETag条件请求和Range分段请求）
+     *
+     * @param id 文档ID
+     * @param session HTTP会话
+     * @param request HTTP请求
+     * @param response HTTP响应
      */
     @GetMapping("/{id}/file")
-    public ResponseEntity<Resource> downloadFile(@PathVariable Long id, HttpSession session) {
+    public void downloadFile(@PathVariable Long id, HttpSession session,
+                             HttpServletRequest request, HttpServletResponse response) throws IOException {
         String sessionId = session.getId();
-        log.info("[文档][下载]-下载文档文件，文档ID={}，会话ID={}", id, sessionId);
+        log.info("[文档][下载]-下载文档文件，文档ID={}，会话ID={}，Range={}", id, sessionId, request.getHeader(HttpHeaders.RANGE));
 
         // 获取文档信息
         Document document = documentService.getByIdAndSessionId(id, sessionId);
 
         if (document == null || document.getFilePath() == null) {
             log.error("[文档][下载]-文档不存在或文件路径为空，文档ID={}", id);
-            return ResponseEntity.notFound().build();
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
         }
 
         // 读取文件
-        File file = new File(document.getFilePath());
-        if (!file.exists()) {
+        Path file = Paths.get(document.getFilePath());
+        if (!Files.exists(file)) {
             log.error("[文档][下载]-文件不存在，路径={}", document.getFilePath());
-            return ResponseEntity.notFound().build();
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
         }
 
-        Resource resource = new FileSystemResource(file);
-
         // 编码文件名（支持中文）
         String encodedFileName = URLEncoder.encode(document.getFileName(), StandardCharsets.UTF_8)
                 .replace("+", "%20");
 
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename*=UTF-8''" + encodedFileName)
-                .contentType(MediaType.APPLICATION_PDF)
-                .contentLength(file.length())
-                .body(resource);
+        FileRangeSender.send(request, response, file, document.getFileMd5(), MediaType.APPLICATION_PDF_VALUE,
+                "inline; filename*=UTF-8''" + encodedFileName);
     }
 }
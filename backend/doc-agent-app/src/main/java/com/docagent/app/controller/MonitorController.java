@@ -0,0 +1,97 @@
+package com.docagent.app.controller;
+
+import com.docagent.app.common.Result;
+import com.docagent.domain.dto.AiClientStatsDTO;
+import com.docagent.domain.dto.DbPoolStatsDTO;
+import com.docagent.domain.dto.DocumentCacheStatsDTO;
+import com.docagent.domain.dto.TranslationMemoryStatsDTO;
+import com.docagent.domain.service.AiService;
+import com.docagent.domain.service.DocumentCacheService;
+import com.docagent.domain.service.TranslationMemoryService;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.Objects;
+
+/**
+ * 运行监控控制器
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+@Slf4j
+@RestController
+@RequestMapping("/monitor")
+@RequiredArgsConstructor
+public class MonitorController {
+
+    private final AiService aiService;
+    private final TranslationMemoryService translationMemoryService;
+    private final DocumentCacheService documentCacheService;
+    private final DataSource dataSource;
+
+    /**
+     * 获取AI HTTP客户端连接池统计
+     *
+     * @return 连接池统计信息
+     */
+    @GetMapping("/ai-client")
+    public Result<AiClientStatsDTO> getAiClientStats() {
+        return Result.success(aiService.getClientStats());
+    }
+
+    /**
+     * 获取翻译记忆命中统计
+     *
+     * @return 命中统计信息
+     */
+    @GetMapping("/translation-memory")
+    public Result<TranslationMemoryStatsDTO> getTranslationMemoryStats() {
+        return Result.success(translationMemoryService.getStats());
+    }
+
+    /**
+     * 获取文档元数据缓存命中统计
+     *
+     * @return 命中统计信息
+     */
+    @GetMapping("/document-cache")
+    public Result<DocumentCacheStatsDTO> getDocumentCacheStats() {
+        return Result.success(documentCacheService.getStats());
+    }
+
+    /**
+     * 获取数据库连接池统计（连接池尚未初始化时各项为0）
+     *
+     * @return 连接池统计信息
+     */
+    @GetMapping("/db-pool")
+    public Result<DbPoolStatsDTO> getDbPoolStats() throws SQLException {
+        HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+        HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+        if (Objects.isNull(pool)) {
+            return Result.success(DbPoolStatsDTO.builder()
+                    .activeConnections(0)
+                    .idleConnections(0)
+                    .totalConnections(0)
+                    .threadsAwaitingConnection(0)
+                    .maximumPoolSize(hikari.getMaximumPoolSize())
+                    .build());
+        }
+        return Result.success(DbPoolStatsDTO.builder()
+                .activeConnections(pool.getActiveConnections())
+                .idleConnections(pool.getIdleConnections())
+                .totalConnections(pool.getTotalConnections())
+                .threadsAwaitingConnection(pool.getThreadsAwaitingConnection())
+                .maximumPoolSize(hikari.getMaximumPoolSize())
+                .build());
+    }
+}
@@ -2,12 +2,15 @@ package com.docagent.app.controller;
 
 import com.docagent.app.common.Result;
 import com.docagent.domain.entity.Translation;
+import com.docagent.domain.entity.TranslationParagraph;
 import com.docagent.domain.service.TranslationService;
 import jakarta.servlet.http.HttpSession;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 /**
  * 翻译控制器
  *
@@ -61,6 +64,33 @@ public class TranslateController {
         return Result.success(translation);
     }
 
+    /**
+     * 分页获取翻译段落（按段落顺序）
+     *
+     * @param translationId 翻译记录ID
+     * @param offset 起始段落下标
+     * @param limit 查询数量
+     * @param session HTTP会话
+     * @return 翻译段落列表
+     */
+    @GetMapping("/{translationId}/paragraphs")
+    public Result<List<TranslationParagraph>> getTranslationParagraphs(
+            @PathVariable Long translationId,
+            @RequestParam(defaultValue = "0") Integer offset,
+            @RequestParam(defaultValue = "50") Integer limit,
+            HttpSession session) {
+        String sessionId = session.getId();
+        log.info("[翻译][Controller]-获取翻译段落，翻译ID={}，起始={}，数量={}", translationId, offset, limit);
+
+        if (offset < 0 || limit <= 0 || limit > 500) {
+            throw new IllegalArgumentException("分页参数不合法，limit取值范围为1-500");
+        }
+
+        List<TranslationParagraph> paragraphs = translationService.getTranslationParagraphs(
+                translationId, offset, limit, sessionId);
+        return Result.success(paragraphs);
+    }
+
     /**
      * 获取文档最新翻译
      *
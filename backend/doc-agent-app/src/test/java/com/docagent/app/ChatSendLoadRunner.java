@@ -0,0 +1,176 @@
+package com.docagent.app;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 对话接口压测工具：并发调用 /chat/send，同时采样 /monitor/db-pool，
+ * 用于验证AI调用期间不占用数据库连接（活跃连接数与并发请求数无关、没有线程等待连接）
+ * <p>
+ * 需要先启动应用并上传一个已解析完成的文档，运行:
+ * mvn -pl doc-agent-app -P load-test test -Dload.documentId=1 -Dload.concurrency=50 -Dload.requests=500
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+public final class ChatSendLoadRunner {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    /**
+     * 连接池采样间隔（毫秒）
+     */
+    private static final long SAMPLE_INTERVAL_MS = 200L;
+
+    private ChatSendLoadRunner() {
+    }
+
+    /**
+     * @param args 服务地址（含context-path） 文档ID 并发数 请求总数
+     */
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080/api";
+        long documentId = args.length > 1 ? Long.parseLong(args[1]) : 1L;
+        int concurrency = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+        int totalRequests = args.length > 3 ? Integer.parseInt(args[3]) : 500;
+
+        System.out.printf("压测开始: 地址=%s，文档ID=%d，并发数=%d，请求数=%d%n", baseUrl, documentId, concurrency, totalRequests);
+
+        PoolSampler sampler = new PoolSampler(baseUrl);
+        Thread samplerThread = Thread.ofVirtual().start(sampler);
+
+        AtomicInteger remaining = new AtomicInteger(totalRequests);
+        AtomicInteger failures = new AtomicInteger();
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>(totalRequests));
+        long startTime = System.nanoTime();
+
+        try (ExecutorService users = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int user = 0; user < concurrency; user++) {
+                int userIndex = user;
+                users.execute(() -> {
+                    // 每个虚拟用户独立的Cookie（独立的HTTP会话）
+                    HttpClient client = HttpClient.newBuilder()
+                            .cookieHandler(new CookieManager())
+                            .connectTimeout(Duration.ofSeconds(5))
+                            .build();
+                    while (remaining.getAndDecrement() > 0) {
+                        long requestStart = System.nanoTime();
+                        if (sendMessage(client, baseUrl, documentId, userIndex)) {
+                            latencies.add(System.nanoTime() - requestStart);
+                        } else {
+                            failures.incrementAndGet();
+                        }
+                    }
+                });
+            }
+        }
+
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        sampler.stop();
+        samplerThread.join();
+
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        System.out.printf("请求: 成功=%d，失败=%d，耗时=%dms，吞吐=%.1f req/s%n",
+                sorted.size(), failures.get(), elapsedMs, sorted.size() * 1000D / Math.max(1, elapsedMs));
+        System.out.printf("延迟: p50=%dms，p95=%dms，p99=%dms，max=%dms%n",
+                percentile(sorted, 50), percentile(sorted, 95), percentile(sorted, 99), percentile(sorted, 100));
+        System.out.printf("连接池: 上限=%d，最大活跃连接=%d，最大等待线程=%d，采样次数=%d%n",
+                sampler.maximumPoolSize, sampler.maxActive, sampler.maxAwaiting, sampler.samples);
+    }
+
+    /**
+     * 发送一条对话消息
+     *
+     * @return 是否成功
+     */
+    private static boolean sendMessage(HttpClient client, String baseUrl, long documentId, int userIndex) {
+        try {
+            String body = OBJECT_MAPPER.writeValueAsString(Map.of(
+                    "documentId", documentId,
+                    "message", "请概括这份文档的主要内容（用户" + userIndex + "）"));
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/chat/send"))
+                    .timeout(Duration.ofSeconds(130))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                return false;
+            }
+            return OBJECT_MAPPER.readTree(response.body()).path("code").asInt() == 200;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static long percentile(List<Long> sorted, int percentile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100D * sorted.size()) - 1;
+        return TimeUnit.NANOSECONDS.toMillis(sorted.get(Math.max(0, index)));
+    }
+
+    /**
+     * 连接池采样器，记录压测期间的最大活跃连接数和最大等待线程数
+     */
+    private static final class PoolSampler implements Runnable {
+
+        private final HttpClient client = HttpClient.newHttpClient();
+        private final String baseUrl;
+        private volatile boolean running = true;
+        private int maximumPoolSize;
+        private int maxActive;
+        private int maxAwaiting;
+        private int samples;
+
+        private PoolSampler(String baseUrl) {
+            this.baseUrl = baseUrl;
+        }
+
+        @Override
+        public void run() {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/monitor/db-pool"))
+                    .timeout(Duration.ofSeconds(2))
+                    .GET()
+                    .build();
+            while (running) {
+                try {
+                    JsonNode data = OBJECT_MAPPER.readTree(
+                            client.send(request, HttpResponse.BodyHandlers.ofString()).body()).path("data");
+                    maximumPoolSize = data.path("maximumPoolSize").asInt();
+                    maxActive = Math.max(maxActive, data.path("activeConnections").asInt());
+                    maxAwaiting = Math.max(maxAwaiting, data.path("threadsAwaitingConnection").asInt());
+                    samples++;
+                    Thread.sleep(SAMPLE_INTERVAL_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception e) {
+                    // 采样失败不影响压测
+                }
+            }
+        }
+
+        private void stop() {
+            running = false;
+        }
+    }
+}
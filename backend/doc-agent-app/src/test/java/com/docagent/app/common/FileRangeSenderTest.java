@@ -0,0 +1,149 @@
+package com.docagent.app.common;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 文件分段发送工具测试
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+class FileRangeSenderTest {
+
+    private static final String CONTENT = "0123456789";
+    private static final String MD5 = "d41d8cd98f00b204e9800998ecf8427e";
+    private static final String ETAG = "\"" + MD5 + "\"";
+
+    @TempDir
+    Path tempDir;
+
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        file = Files.writeString(tempDir.resolve("doc.pdf"), CONTENT, StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    void parseRangeHandlesExplicitAndOpenEndedRanges() {
+        assertThat(FileRangeSender.parseRange("bytes=0-3", 10)).containsExactly(0, 3);
+        assertThat(FileRangeSender.parseRange("bytes=4-", 10)).containsExactly(4, 9);
+        // 结束位置超出文件长度时截断到末尾
+        assertThat(FileRangeSender.parseRange("bytes=8-100", 10)).containsExactly(8, 9);
+        assertThat(FileRangeSender.parseRange("bytes= 2 - 5 ", 10)).containsExactly(2, 5);
+    }
+
+    @Test
+    void parseRangeHandlesSuffixRanges() {
+        assertThat(FileRangeSender.parseRange("bytes=-3", 10)).containsExactly(7, 9);
+        // 后缀长度超过文件长度时返回整个文件
+        assertThat(FileRangeSender.parseRange("bytes=-50", 10)).containsExactly(0, 9);
+        assertThat(FileRangeSender.parseRange("bytes=-0", 10)).isNull();
+    }
+
+    @Test
+    void parseRangeRejectsUnsatisfiableRanges() {
+        assertThat(FileRangeSender.parseRange("bytes=10-", 10)).isNull();
+        assertThat(FileRangeSender.parseRange("bytes=5-2", 10)).isNull();
+        assertThat(FileRangeSender.parseRange("bytes=0-0", 0)).isNull();
+    }
+
+    @Test
+    void parseRangeFallsBackToFullFileForInvalidOrMultiRanges() {
+        assertThat(FileRangeSender.parseRange("bytes=0-1,4-5", 10)).isEmpty();
+        assertThat(FileRangeSender.parseRange("items=0-1", 10)).isEmpty();
+        assertThat(FileRangeSender.parseRange("bytes=abc-def", 10)).isEmpty();
+        assertThat(FileRangeSender.parseRange("bytes=5", 10)).isEmpty();
+        assertThat(FileRangeSender.parseRange("bytes=-", 10)).isEmpty();
+    }
+
+    @Test
+    void sendReturnsPartialContentForRange() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/file");
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-4");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        FileRangeSender.send(request, response, file, MD5, "application/pdf", "inline");
+
+        assertThat(response.getStatus()).isEqualTo(HttpServletResponse.SC_PARTIAL_CONTENT);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 2-4/10");
+        assertThat(response.getContentLengthLong()).isEqualTo(3);
+        assertThat(response.getContentAsString()).isEqualTo("234");
+    }
+
+    @Test
+    void sendReturnsFullFileForMultiRange() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/file");
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-1,4-5");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        FileRangeSender.send(request, response, file, MD5, "application/pdf", "inline");
+
+        assertThat(response.getStatus()).isEqualTo(HttpServletResponse.SC_OK);
+        assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void sendRejectsUnsatisfiableRange() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/file");
+        request.addHeader(HttpHeaders.RANGE, "bytes=20-");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        FileRangeSender.send(request, response, file, MD5, "application/pdf", "inline");
+
+        assertThat(response.getStatus()).isEqualTo(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */10");
+    }
+
+    @Test
+    void sendReturnsNotModifiedForMatchingEtag() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/file");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "W/\"other\", " + ETAG);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        FileRangeSender.send(request, response, file, MD5, "application/pdf", "inline");
+
+        assertThat(response.getStatus()).isEqualTo(HttpServletResponse.SC_NOT_MODIFIED);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void sendIgnoresRangeWhenIfRangeDoesNotMatch() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/file");
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-4");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"stale\"");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        FileRangeSender.send(request, response, file, MD5, "application/pdf", "inline");
+
+        assertThat(response.getStatus()).isEqualTo(HttpServletResponse.SC_OK);
+        assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void sendDelegatesToSendfileWhenSupported() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/file");
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        request.addHeader(HttpHeaders.RANGE, "bytes=-4");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        FileRangeSender.send(request, response, file, MD5, "application/pdf", "inline");
+
+        assertThat(request.getAttribute("org.apache.tomcat.sendfile.start")).isEqualTo(6L);
+        assertThat(request.getAttribute("org.apache.tomcat.sendfile.end")).isEqualTo(10L);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+}
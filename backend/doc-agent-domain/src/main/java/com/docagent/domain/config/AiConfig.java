@@ -35,4 +35,84 @@ public class AiConfig {
      * 超时时间（毫秒）
      */
     private Long timeout = 60000L;
+
+    /**
+     * 连接池最大空闲连接数
+     */
+    private Integer maxIdleConnections = 20;
+
+    /**
+     * 空闲连接保活时间（毫秒）
+     */
+    private Long keepAliveDuration = 300000L;
+
+    /**
+     * 最大并发请求数
+     */
+    private Integer maxRequests = 512;
+
+    /**
+     * 单个主机最大并发请求数
+     */
+    private Integer maxRequestsPerHost = 256;
+
+    /**
+     * 是否启用HTTP/2多路复用
+     */
+    private Boolean http2Enabled = true;
+
+    /**
+     * 需要结构化输出的请求是否携带 response_format=json_object（接口不支持时关闭，仅靠提示词约束）
+     */
+    private Boolean jsonResponseFormat = true;
+
+    /**
+     * 并发上限初始值（按接口响应自适应调整）
+     */
+    private Integer initialConcurrency = 16;
+
+    /**
+     * 并发上限的下限
+     */
+    private Integer minConcurrency = 2;
+
+    /**
+     * 并发上限的上限
+     */
+    private Integer maxConcurrency = 64;
+
+    /**
+     * 每分钟请求数额度（0为不限制）
+     */
+    private Integer requestsPerMinute = 0;
+
+    /**
+     * 每分钟token数额度（0为不限制）
+     */
+    private Integer tokensPerMinute = 0;
+
+    /**
+     * 为交互请求（对话）预留的并发数，批量请求（翻译）最多使用 并发上限 - 该值（至少为1）
+     */
+    private Integer interactiveReservedConcurrency = 2;
+
+    /**
+     * 批量请求（翻译）的并发上限（0为不限制），只统计已放行的请求，排队中的请求不占用
+     */
+    private Integer bulkMaxConcurrency = 32;
+
+    /**
+     * 请求排队等待放行的最长时间（毫秒）
+     */
+    private Long queueTimeoutMs = 30000L;
+
+    /**
+     * 批量请求（翻译）排队等待放行的最长时间（毫秒），让位于交互请求时允许等待更久
+     */
+    private Long bulkQueueTimeoutMs = 300000L;
+
+    /**
+     * 收到429但未携带Retry-After时的暂停时间（毫秒）
+     */
+    private Long defaultRetryAfterMs = 2000L;
 }
@@ -0,0 +1,90 @@
+package com.docagent.domain.config;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AI HTTP客户端配置类（全局共享连接池）
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+@Slf4j
+@Configuration
+@RequiredArgsConstructor
+public class AiHttpClientConfig {
+
+    private final AiConfig aiConfig;
+
+    private OkHttpClient aiHttpClient;
+
+    /**
+     * 连接复用统计监听器
+     */
+    @Bean
+    public AiHttpEventListener aiHttpEventListener() {
+        return new AiHttpEventListener();
+    }
+
+    /**
+     * 调用AI接口的共享HTTP客户端
+     */
+    @Bean
+    public OkHttpClient aiHttpClient(AiHttpEventListener aiHttpEventListener) {
+        ConnectionPool connectionPool = new ConnectionPool(
+                aiConfig.getMaxIdleConnections(),
+                aiConfig.getKeepAliveDuration(),
+                TimeUnit.MILLISECONDS);
+
+        // 异步请求由虚拟线程执行，大量在途的LLM调用不再占用平台线程
+        Dispatcher dispatcher = new Dispatcher(Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("ai-http-", 0).factory()));
+        dispatcher.setMaxRequests(aiConfig.getMaxRequests());
+        dispatcher.setMaxRequestsPerHost(aiConfig.getMaxRequestsPerHost());
+
+        // HTTP/2通过ALPN协商，服务端不支持时自动降级为HTTP/1.1
+        List<Protocol> protocols = Boolean.TRUE.equals(aiConfig.getHttp2Enabled())
+                ? List.of(Protocol.HTTP_2, Protocol.HTTP_1_1)
+                : List.of(Protocol.HTTP_1_1);
+
+        aiHttpClient = new OkHttpClient.Builder()
+                .connectionPool(connectionPool)
+                .dispatcher(dispatcher)
+                .protocols(protocols)
+                .eventListener(aiHttpEventListener)
+                .connectTimeout(aiConfig.getTimeout(), TimeUnit.MILLISECONDS)
+                .readTimeout(aiConfig.getTimeout(), TimeUnit.MILLISECONDS)
+                .writeTimeout(aiConfig.getTimeout(), TimeUnit.MILLISECONDS)
+                .retryOnConnectionFailure(true)
+                .build();
+
+        log.info("[AI][客户端]-初始化共享HTTP客户端，最大空闲连接={}，保活时间={}ms，最大并发={}，单主机并发={}，协议={}",
+                aiConfig.getMaxIdleConnections(), aiConfig.getKeepAliveDuration(),
+                aiConfig.getMaxRequests(), aiConfig.getMaxRequestsPerHost(), protocols);
+        return aiHttpClient;
+    }
+
+    /**
+     * 应用关闭时释放连接池和调度线程
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (aiHttpClient != null) {
+            aiHttpClient.dispatcher().executorService().shutdown();
+            aiHttpClient.connectionPool().evictAll();
+            log.info("[AI][客户端]-共享HTTP客户端已关闭");
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.docagent.domain.config;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AI HTTP客户端事件监听器（统计连接复用情况）
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+public class AiHttpEventListener extends EventListener {
+
+    /**
+     * 发起的请求总数
+     */
+    private final AtomicLong callCount = new AtomicLong();
+
+    /**
+     * 新建的连接数（TCP+TLS握手次数）
+     */
+    private final AtomicLong connectCount = new AtomicLong();
+
+    /**
+     * 获取连接的次数（包含复用）
+     */
+    private final AtomicLong connectionAcquiredCount = new AtomicLong();
+
+    /**
+     * 失败的请求数
+     */
+    private final AtomicLong failedCount = new AtomicLong();
+
+    @Override
+    public void callStart(Call call) {
+        callCount.incrementAndGet();
+    }
+
+    @Override
+    public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+        connectCount.incrementAndGet();
+    }
+
+    @Override
+    public void connectionAcquired(Call call, Connection connection) {
+        connectionAcquiredCount.incrementAndGet();
+    }
+
+    @Override
+    public void callFailed(Call call, IOException ioe) {
+        failedCount.incrementAndGet();
+    }
+
+    public long getCallCount() {
+        return callCount.get();
+    }
+
+    public long getConnectCount() {
+        return connectCount.get();
+    }
+
+    public long getConnectionAcquiredCount() {
+        return connectionAcquiredCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+}
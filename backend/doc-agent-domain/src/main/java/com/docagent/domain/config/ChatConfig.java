@@ -0,0 +1,93 @@
+package com.docagent.domain.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 文档对话配置类
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.chat")
+public class ChatConfig {
+
+    /**
+     * 检索分块长度（字符数，分块不跨页）
+     */
+    private Integer chunkSize = 800;
+
+    /**
+     * 相邻分块重叠长度（字符数）
+     */
+    private Integer chunkOverlap = 100;
+
+    /**
+     * 每轮对话检索的分块数量上限
+     */
+    private Integer retrievalTopK = 6;
+
+    /**
+     * 检索内容在系统提示词中的token预算
+     */
+    private Integer retrievalTokenBudget = 3000;
+
+    /**
+     * 常驻内存的文档索引数量上限
+     */
+    private Long indexCacheSize = 50L;
+
+    /**
+     * 向量索引构建失败后首次重试的间隔（毫秒），之后每次失败间隔翻倍
+     */
+    private Long vectorRetryInitialMs = 60000L;
+
+    /**
+     * 向量索引重试间隔的上限（毫秒）
+     */
+    private Long vectorRetryMaxMs = 3600000L;
+
+    /**
+     * 同一内容向量索引的最多构建次数，达到后只使用关键词检索（重启后重新计数）
+     */
+    private Integer vectorRetryMaxAttempts = 5;
+
+    /**
+     * 每个会话缓存的最近消息条数（不小于构建上下文使用的条数）
+     */
+    private Integer historyWindowSize = 20;
+
+    /**
+     * 缓存的会话数量上限
+     */
+    private Integer historyCacheMaxSessions = 1000;
+
+    /**
+     * 对话窗口缓存的内存上限（MB）
+     */
+    private Integer historyCacheMaxMb = 64;
+
+    /**
+     * 对话窗口从数据库加载后的最长使用时间（秒，失效广播丢失时的兜底，0表示不过期）
+     */
+    private Long historyCacheExpireSeconds = 300L;
+
+    /**
+     * 是否通过Redis广播对话窗口失效（多节点部署时开启，同一会话的请求可能落在不同节点）
+     */
+    private Boolean historyCacheSyncEnabled = true;
+
+    /**
+     * 对话窗口失效广播频道
+     */
+    private String historyInvalidationChannel = "docagent:chat-history:invalidate";
+
+    /**
+     * 失效广播发送失败后的熔断时间（秒），期间不再访问Redis，只依靠窗口过期时间兜底
+     */
+    private Long historySyncOpenSeconds = 30L;
+}
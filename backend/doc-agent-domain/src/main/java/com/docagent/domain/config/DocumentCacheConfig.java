@@ -0,0 +1,68 @@
+package com.docagent.domain.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 文档元数据缓存配置类（本地缓存 + Redis）
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.document-cache")
+public class DocumentCacheConfig {
+
+    /**
+     * 是否启用文档元数据缓存
+     */
+    private Boolean enabled = true;
+
+    /**
+     * 本地缓存条目数上限
+     */
+    private Long localMaxSize = 10000L;
+
+    /**
+     * 本地缓存过期时间（秒，失效广播丢失时的兜底）
+     */
+    private Long localExpireSeconds = 60L;
+
+    /**
+     * 是否启用Redis二级缓存
+     */
+    private Boolean redisEnabled = true;
+
+    /**
+     * Redis缓存过期时间（秒）
+     */
+    private Long redisTtlSeconds = 600L;
+
+    /**
+     * Redis缓存key前缀
+     */
+    private String redisKeyPrefix = "docagent:document:";
+
+    /**
+     * 缓存失效广播频道
+     */
+    private String invalidationChannel = "docagent:document:invalidate";
+
+    /**
+     * 延迟双删的延迟时间（毫秒）：失效后再次删除Redis缓存并广播，清除与失效并发的查询回填的旧值
+     */
+    private Long doubleDeleteDelayMs = 1000L;
+
+    /**
+     * Redis访问失败后的熔断时间（秒），期间直接跳过Redis
+     */
+    private Long redisOpenSeconds = 30L;
+
+    /**
+     * Redis不可用期间记录的待删除key数量上限（恢复后补删）
+     */
+    private Integer pendingDeleteMaxSize = 10000;
+}
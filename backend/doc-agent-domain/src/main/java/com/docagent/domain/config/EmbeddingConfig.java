@@ -0,0 +1,64 @@
+package com.docagent.domain.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 向量化配置类
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.embedding")
+public class EmbeddingConfig {
+
+    /**
+     * 向量化实现: openai-OpenAI兼容的embeddings接口（默认）,
+     * local-本地特征哈希向量（无语义，仅作离线环境和测试的降级方案）
+     */
+    private String provider = "openai";
+
+    /**
+     * 向量维度
+     */
+    private Integer dimension = 256;
+
+    /**
+     * 远程向量化模型（provider为openai时生效，接口地址和密钥复用app.ai.openai）
+     */
+    private String model = "text-embedding-3-small";
+
+    /**
+     * 入库时每次请求向量化的分块数
+     */
+    private Integer batchSize = 64;
+
+    /**
+     * 对话时问题向量化的超时时间（毫秒），超时则只使用关键词检索
+     */
+    private Long queryTimeoutMs = 800L;
+
+    /**
+     * 向量化接口的并发上限（独立于对话和翻译的准入额度，按接口响应自适应调整），其中1个预留给问题向量化
+     */
+    private Integer maxConcurrency = 4;
+
+    /**
+     * 向量化接口每分钟请求数额度（0为不限制）
+     */
+    private Integer requestsPerMinute = 0;
+
+    /**
+     * 向量化接口每分钟token数额度（0为不限制）
+     */
+    private Integer tokensPerMinute = 0;
+
+    /**
+     * 入库向量化请求排队等待放行的最长时间（毫秒）
+     */
+    private Long bulkQueueTimeoutMs = 300000L;
+}
@@ -0,0 +1,91 @@
+package com.docagent.domain.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 后台任务线程池配置类
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+@Configuration
+@RequiredArgsConstructor
+public class ExecutorConfig {
+
+    private final TranslationConfig translationConfig;
+    private final PdfConfig pdfConfig;
+
+    /**
+     * 翻译任务线程池（有界队列，队列满时拒绝新任务）
+     */
+    @Bean
+    public ThreadPoolTaskExecutor translationExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(translationConfig.getWorkerThreads());
+        executor.setMaxPoolSize(translationConfig.getWorkerThreads());
+        executor.setQueueCapacity(translationConfig.getQueueCapacity());
+        executor.setThreadNamePrefix("translation-job-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * 文档解析任务线程池（有界队列，队列满时拒绝新任务，避免大文件挤占本节点资源）
+     */
+    @Bean
+    public ThreadPoolTaskExecutor ingestExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(pdfConfig.getIngestWorkerThreads());
+        executor.setMaxPoolSize(pdfConfig.getIngestWorkerThreads());
+        executor.setQueueCapacity(pdfConfig.getIngestQueueCapacity());
+        executor.setThreadNamePrefix("document-ingest-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * 对话执行器（虚拟线程，每个流式对话一个线程；异步对话在此构建上下文）
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService chatStreamExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("chat-stream-", 0).factory());
+    }
+
+    /**
+     * 缓存延迟失效调度器（延迟双删）
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ScheduledExecutorService cacheEvictScheduler() {
+        return Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("cache-evict-", 0).daemon(true).factory());
+    }
+
+    /**
+     * 翻译任务租约调度器（续约、接管租约到期的任务）
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ScheduledExecutorService translationLeaseScheduler() {
+        return Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("translation-lease-", 0).daemon(true).factory());
+    }
+
+    /**
+     * PDF并行文本提取线程池（CPU密集型，固定线程数）
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService pdfParseExecutor() {
+        return Executors.newFixedThreadPool(pdfConfig.getParallelism(),
+                Thread.ofPlatform().name("pdf-parse-", 0).daemon(true).factory());
+    }
+}
@@ -0,0 +1,76 @@
+package com.docagent.domain.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * PDF解析配置类
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.pdf")
+public class PdfConfig {
+
+    /**
+     * 启用并行文本提取的页数阈值（页数不低于该值时按页段并行提取）
+     */
+    private Integer parallelPageThreshold = 200;
+
+    /**
+     * 并行提取时每个任务处理的页数
+     */
+    private Integer pagesPerTask = 50;
+
+    /**
+     * 并行提取线程数（默认为CPU核数）
+     */
+    private Integer parallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 文档解析（入库）工作线程数
+     */
+    private Integer ingestWorkerThreads = 2;
+
+    /**
+     * 文档解析等待队列容量（队列满时拒绝新上传）
+     */
+    private Integer ingestQueueCapacity = 20;
+
+    /**
+     * 单个PDF最大页数，超出时拒绝解析
+     * 解析得到的页对象、字体和提取出的全文始终在堆内，只能通过限制页数控制单次解析的堆占用
+     */
+    private Integer maxPages = 3000;
+
+    /**
+     * 是否使用内存映射方式读取PDF文件（关闭时使用缓冲文件读取）
+     */
+    private Boolean mmapEnabled = true;
+
+    /**
+     * 单次加载PDF的流数据缓存（PDFBox ScratchFile）在堆内的上限（MB），超出部分写入临时文件
+     * 仅约束读取PDF流时的缓冲区，不是解析过程的堆内存上限
+     */
+    private Integer maxMainMemoryPerLoadMb = 32;
+
+    /**
+     * 单次加载PDF的流数据缓存可使用的临时文件上限（MB），-1表示不限制
+     */
+    private Integer maxScratchFilePerLoadMb = 1024;
+
+    /**
+     * 本节点PDF流数据缓存的堆内总预算（MB），预算不足时新的加载只使用临时文件
+     * 与单次缓存上限一样只约束ScratchFile缓冲区，解析的堆占用由页数上限控制
+     */
+    private Integer globalMainMemoryMb = 256;
+
+    /**
+     * 临时文件目录（为空时使用系统临时目录）
+     */
+    private String scratchDir;
+}
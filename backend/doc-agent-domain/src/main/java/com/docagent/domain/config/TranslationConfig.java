@@ -0,0 +1,93 @@
+package com.docagent.domain.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 翻译任务配置类
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.translation")
+public class TranslationConfig {
+
+    /**
+     * 翻译任务工作线程数（同时执行的翻译任务数）
+     */
+    private Integer workerThreads = 4;
+
+    /**
+     * 翻译任务等待队列容量
+     */
+    private Integer queueCapacity = 100;
+
+    /**
+     * 翻译任务执行租约时长（秒），节点认领任务后按续约间隔续约，节点宕机后租约到期由其他节点接管
+     */
+    private Integer leaseSeconds = 120;
+
+    /**
+     * 续约并扫描可接管任务的间隔（秒），应明显小于租约时长
+     */
+    private Integer leaseRenewSeconds = 30;
+
+    /**
+     * 单个翻译任务同时排队或执行的批次数（节点全局的翻译并发上限见 ai.bulk-max-concurrency）
+     */
+    private Integer paragraphConcurrency = 4;
+
+    /**
+     * 单个段落最大尝试次数（含首次）
+     */
+    private Integer maxRetries = 3;
+
+    /**
+     * 段落重试初始退避时间（毫秒），每次重试翻倍
+     */
+    private Long retryBackoffMs = 1000L;
+
+    /**
+     * 是否启用翻译记忆（跨文档复用相同段落的译文）
+     */
+    private Boolean memoryEnabled = true;
+
+    /**
+     * 翻译记忆本地缓存最大条目数
+     */
+    private Long memoryLocalMaxSize = 10000L;
+
+    /**
+     * 翻译记忆本地缓存过期时间（分钟，按最后访问时间计算）
+     */
+    private Long memoryLocalExpireMinutes = 60L;
+
+    /**
+     * 翻译结果查询的本地缓存时间（毫秒），多个页面轮询同一任务时合并为一次查询
+     */
+    private Long resultCacheMillis = 1000L;
+
+    /**
+     * 每个翻译分段的目标token数（相邻段落合并到该大小）
+     */
+    private Integer chunkTargetTokens = 1000;
+
+    /**
+     * 单个翻译分段的token上限（单句超过该值时才切开句子）
+     */
+    private Integer chunkMaxTokens = 2000;
+
+    /**
+     * 批量翻译每次请求合并的分段数上限（为1时不跨分段合并请求；分段内未命中翻译记忆的源段落总在同一请求）
+     */
+    private Integer batchMaxChunks = 8;
+
+    /**
+     * 批量翻译每次请求的原文token上限
+     */
+    private Integer batchMaxTokens = 3000;
+}
@@ -0,0 +1,135 @@
+package com.docagent.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * AI HTTP客户端统计DTO
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AiClientStatsDTO {
+
+    /**
+     * 连接池中的连接总数
+     */
+    private Integer connectionCount;
+
+    /**
+     * 连接池中的空闲连接数
+     */
+    private Integer idleConnectionCount;
+
+    /**
+     * 正在执行的请求数
+     */
+    private Integer runningCallsCount;
+
+    /**
+     * 排队等待的请求数
+     */
+    private Integer queuedCallsCount;
+
+    /**
+     * 累计请求数
+     */
+    private Long totalCalls;
+
+    /**
+     * 累计新建连接数
+     */
+    private Long totalConnects;
+
+    /**
+     * 累计获取连接次数
+     */
+    private Long totalConnectionsAcquired;
+
+    /**
+     * 累计失败请求数
+     */
+    private Long totalFailedCalls;
+
+    /**
+     * 连接复用率（1 - 新建连接数 / 获取连接次数）
+     */
+    private Double connectionReuseRate;
+
+    /**
+     * 当前自适应并发上限
+     */
+    private Integer concurrencyLimit;
+
+    /**
+     * 已放行正在执行的请求数
+     */
+    private Integer inFlightRequests;
+
+    /**
+     * 等待放行的请求数
+     */
+    private Integer waitingRequests;
+
+    /**
+     * 累计收到429的次数
+     */
+    private Long rateLimitedCount;
+
+    /**
+     * 累计排队超时的请求数
+     */
+    private Long queueTimeoutCount;
+
+    /**
+     * 交互请求（对话）排队统计
+     */
+    private QueueStats interactiveQueue;
+
+    /**
+     * 批量请求（翻译）排队统计
+     */
+    private QueueStats bulkQueue;
+
+    /**
+     * 单个优先级的排队统计
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class QueueStats {
+
+        /**
+         * 等待放行的请求数
+         */
+        private Integer waitingRequests;
+
+        /**
+         * 累计放行的请求数
+         */
+        private Long admittedRequests;
+
+        /**
+         * 平均排队时间（毫秒）
+         */
+        private Long avgWaitMs;
+
+        /**
+         * 最长排队时间（毫秒）
+         */
+        private Long maxWaitMs;
+
+        /**
+         * 累计排队超时的请求数
+         */
+        private Long timeoutCount;
+    }
+}
@@ -0,0 +1,45 @@
+package com.docagent.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 数据库连接池统计DTO
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DbPoolStatsDTO {
+
+    /**
+     * 正在使用的连接数
+     */
+    private Integer activeConnections;
+
+    /**
+     * 空闲连接数
+     */
+    private Integer idleConnections;
+
+    /**
+     * 连接总数
+     */
+    private Integer totalConnections;
+
+    /**
+     * 等待获取连接的线程数
+     */
+    private Integer threadsAwaitingConnection;
+
+    /**
+     * 连接池上限
+     */
+    private Integer maximumPoolSize;
+}
@@ -0,0 +1,80 @@
+package com.docagent.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 文档元数据缓存命中统计DTO
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentCacheStatsDTO {
+
+    /**
+     * 累计查询次数
+     */
+    private Long lookupCount;
+
+    /**
+     * 本地缓存命中次数
+     */
+    private Long localHitCount;
+
+    /**
+     * Redis命中次数
+     */
+    private Long redisHitCount;
+
+    /**
+     * 未命中（查询数据库）次数
+     */
+    private Long missCount;
+
+    /**
+     * 总命中率
+     */
+    private Double hitRate;
+
+    /**
+     * 失效次数
+     */
+    private Long evictCount;
+
+    /**
+     * Redis访问失败次数
+     */
+    private Long redisErrorCount;
+
+    /**
+     * Redis是否处于熔断状态
+     */
+    private Boolean redisCircuitOpen;
+
+    /**
+     * 因熔断跳过Redis访问的次数
+     */
+    private Long redisSkipCount;
+
+    /**
+     * 等待Redis恢复后补删的key数量
+     */
+    private Integer pendingDeleteCount;
+
+    /**
+     * 与失效并发、未回填缓存的查询次数
+     */
+    private Long staleLoadCount;
+
+    /**
+     * 本地缓存当前条目数
+     */
+    private Long localSize;
+}
@@ -0,0 +1,35 @@
+package com.docagent.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 文档解析状态DTO
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentStatusDTO {
+
+    /**
+     * 文档ID
+     */
+    private Long documentId;
+
+    /**
+     * 状态: 0-解析中, 1-已完成, 2-失败
+     */
+    private Integer status;
+
+    /**
+     * PDF页数（解析完成后有值）
+     */
+    private Integer pageCount;
+}
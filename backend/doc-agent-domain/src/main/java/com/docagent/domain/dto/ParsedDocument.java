@@ -0,0 +1,111 @@
+package com.docagent.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * PDF解析结果（一次加载得到全文、分页偏移和元数据）
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ParsedDocument {
+
+    /**
+     * 页数
+     */
+    private Integer pageCount;
+
+    /**
+     * 全文文本
+     */
+    private String text;
+
+    /**
+     * 每页在全文中的字符区间（按页码顺序）
+     */
+    private List<PageText> pages;
+
+    /**
+     * 文档标题（PDF元数据）
+     */
+    private String title;
+
+    /**
+     * 文档作者（PDF元数据）
+     */
+    private String author;
+
+    /**
+     * 文档目录（书签）
+     */
+    private List<OutlineItem> outline;
+
+    /**
+     * 获取指定页的文本
+     *
+     * @param pageNumber 页码（从1开始）
+     * @return 该页文本
+     */
+    public String getPageText(int pageNumber) {
+        PageText page = pages.get(pageNumber - 1);
+        return text.substring(page.getStartOffset(), page.getEndOffset());
+    }
+
+    /**
+     * 分页文本区间
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PageText {
+        /**
+         * 页码（从1开始）
+         */
+        private Integer pageNumber;
+
+        /**
+         * 起始字符偏移（包含）
+         */
+        private Integer startOffset;
+
+        /**
+         * 结束字符偏移（不包含）
+         */
+        private Integer endOffset;
+    }
+
+    /**
+     * 目录项
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class OutlineItem {
+        /**
+         * 目录标题
+         */
+        private String title;
+
+        /**
+         * 目标页码（从1开始，无法解析时为null）
+         */
+        private Integer pageNumber;
+
+        /**
+         * 层级（从0开始）
+         */
+        private Integer level;
+    }
+}
@@ -0,0 +1,40 @@
+package com.docagent.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 检索命中的文档分块
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RetrievedChunk {
+
+    /**
+     * 分块下标（按文档顺序）
+     */
+    private Integer chunkIndex;
+
+    /**
+     * 所在页码（从1开始，未知时为null）
+     */
+    private Integer pageNumber;
+
+    /**
+     * 分块内容
+     */
+    private String content;
+
+    /**
+     * 相关度得分
+     */
+    private Double score;
+}
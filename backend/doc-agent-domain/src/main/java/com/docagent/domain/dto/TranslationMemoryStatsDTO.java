@@ -0,0 +1,50 @@
+package com.docagent.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 翻译记忆命中统计DTO
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TranslationMemoryStatsDTO {
+
+    /**
+     * 累计查询次数
+     */
+    private Long lookupCount;
+
+    /**
+     * 本地缓存命中次数
+     */
+    private Long localHitCount;
+
+    /**
+     * 持久层命中次数
+     */
+    private Long persistentHitCount;
+
+    /**
+     * 未命中次数
+     */
+    private Long missCount;
+
+    /**
+     * 总命中率
+     */
+    private Double hitRate;
+
+    /**
+     * 本地缓存当前条目数
+     */
+    private Long localSize;
+}
@@ -56,16 +56,16 @@ public class Document {
     private String fileMd5;
 
     /**
-     * PDF页数
+     * 共享内容ID（关联t_document_content）
      */
-    @TableField("page_count")
-    private Integer pageCount;
+    @TableField("content_id")
+    private Long contentId;
 
     /**
-     * 提取的文本内容
+     * PDF页数
      */
-    @TableField("text_content")
-    private String textContent;
+    @TableField("page_count")
+    private Integer pageCount;
 
     /**
      * 状态: 0-上传中, 1-已完成, 2-失败
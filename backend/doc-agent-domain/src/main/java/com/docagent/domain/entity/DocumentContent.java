@@ -0,0 +1,75 @@
+package com.docagent.domain.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 文档内容实体类（按内容哈希去重，多个文档记录共享同一份文件和解析结果）
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+@Data
+@TableName("t_document_content")
+public class DocumentContent {
+
+    /**
+     * 主键ID
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 内容哈希（文件SHA-256）
+     */
+    @TableField("content_hash")
+    private String contentHash;
+
+    /**
+     * 文件大小（字节）
+     */
+    @TableField("file_size")
+    private Long fileSize;
+
+    /**
+     * 文件存储路径
+     */
+    @TableField("file_path")
+    private String filePath;
+
+    /**
+     * PDF页数
+     */
+    @TableField("page_count")
+    private Integer pageCount;
+
+    /**
+     * 状态: 0-解析中, 1-已完成, 2-失败
+     */
+    @TableField("status")
+    private Integer status;
+
+    /**
+     * 引用计数（引用该内容的文档记录数）
+     */
+    @TableField("ref_count")
+    private Integer refCount;
+
+    /**
+     * 创建时间
+     */
+    @TableField("create_time")
+    private LocalDateTime createTime;
+
+    /**
+     * 更新时间
+     */
+    @TableField("update_time")
+    private LocalDateTime updateTime;
+}
@@ -0,0 +1,45 @@
+package com.docagent.domain.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 文档文本实体类（与文档内容元数据分表存储，按需加载）
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+@Data
+@TableName("t_document_text")
+public class DocumentText {
+
+    /**
+     * 文档内容ID（主键，关联t_document_content）
+     */
+    @TableId(value = "content_id", type = IdType.INPUT)
+    private Long contentId;
+
+    /**
+     * 提取的文本内容
+     */
+    @TableField("text_content")
+    private String textContent;
+
+    /**
+     * 文本长度（字符数）
+     */
+    @TableField("text_length")
+    private Integer textLength;
+
+    /**
+     * 创建时间
+     */
+    @TableField("create_time")
+    private LocalDateTime createTime;
+}
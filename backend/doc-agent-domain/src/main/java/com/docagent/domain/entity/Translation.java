@@ -61,6 +61,30 @@ public class Translation {
     @TableField("status")
     private Integer status;
 
+    /**
+     * 待翻译段落总数
+     */
+    @TableField("total_paragraphs")
+    private Integer totalParagraphs;
+
+    /**
+     * 已翻译段落数
+     */
+    @TableField("translated_paragraphs")
+    private Integer translatedParagraphs;
+
+    /**
+     * 执行节点标识（认领任务的节点）
+     */
+    @TableField("lease_owner")
+    private String leaseOwner;
+
+    /**
+     * 执行租约到期时间，到期未续约时其他节点可接管
+     */
+    @TableField("lease_until")
+    private LocalDateTime leaseUntil;
+
     /**
      * 创建时间
      */
@@ -0,0 +1,57 @@
+package com.docagent.domain.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 翻译记忆实体类
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+@Data
+@TableName("t_translation_memory")
+public class TranslationMemory {
+
+    /**
+     * 主键ID
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 段落哈希: SHA-256(规范化原文 + 目标语言 + 翻译风格)
+     */
+    @TableField("source_hash")
+    private String sourceHash;
+
+    /**
+     * 目标语言
+     */
+    @TableField("target_lang")
+    private String targetLang;
+
+    /**
+     * 翻译风格
+     */
+    @TableField("translate_style")
+    private String translateStyle;
+
+    /**
+     * 译文内容
+     */
+    @TableField("translated_content")
+    private String translatedContent;
+
+    /**
+     * 创建时间
+     */
+    @TableField("create_time")
+    private LocalDateTime createTime;
+}
@@ -0,0 +1,69 @@
+package com.docagent.domain.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 翻译段落实体类
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+@Data
+@TableName("t_translation_paragraph")
+public class TranslationParagraph {
+
+    /**
+     * 主键ID
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 翻译记录ID
+     */
+    @TableField("translation_id")
+    private Long translationId;
+
+    /**
+     * 段落下标（从0开始）
+     */
+    @TableField("paragraph_index")
+    private Integer paragraphIndex;
+
+    /**
+     * 原文内容
+     */
+    @TableField("original_content")
+    private String originalContent;
+
+    /**
+     * 译文内容
+     */
+    @TableField("translated_content")
+    private String translatedContent;
+
+    /**
+     * 段落在文档文本中的起始偏移（含）
+     */
+    @TableField("source_start")
+    private Integer sourceStart;
+
+    /**
+     * 段落在文档文本中的结束偏移（不含）
+     */
+    @TableField("source_end")
+    private Integer sourceEnd;
+
+    /**
+     * 创建时间
+     */
+    @TableField("create_time")
+    private LocalDateTime createTime;
+}
@@ -1,7 +1,10 @@
 package com.docagent.domain.service;
 
+import com.docagent.domain.dto.AiClientStatsDTO;
+
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * AI服务接口
@@ -24,20 +27,108 @@ public interface AiService {
     String translate(String text, String sourceLang, String targetLang, String style);
 
     /**
-     * 调用AI进行对话
+     * 异步调用AI进行文本翻译（不阻塞调用线程）
+     *
+     * @param text 待翻译文本
+     * @param sourceLang 源语言
+     * @param targetLang 目标语言
+     * @param style 翻译风格
+     * @param sessionId 会话ID（用于会话间公平排队）
+     * @return 翻译结果的Future
+     */
+    CompletableFuture<String> translateAsync(String text, String sourceLang, String targetLang, String style,
+                                             String sessionId);
+
+    /**
+     * 异步批量翻译多个文本片段（一次请求，按编号以JSON返回各片段译文）
+     *
+     * @param texts 待翻译片段
+     * @param sourceLang 源语言
+     * @param targetLang 目标语言
+     * @param style 翻译风格
+     * @param sessionId 会话ID（用于会话间公平排队）
+     * @return 与片段一一对应的译文列表的Future，模型未返回或无法解析的片段为null
+     */
+    CompletableFuture<List<String>> translateBatchAsync(List<String> texts, String sourceLang, String targetLang,
+                                                        String style, String sessionId);
+
+    /**
+     * 调用AI进行对话（交互请求，优先于翻译等批量请求放行）
      *
      * @param messages 对话消息列表，每个消息包含role和content
+     * @param sessionId 会话ID（用于会话间公平排队）
      * @return AI回复内容
      */
-    String chat(List<Map<String, String>> messages);
+    String chat(List<Map<String, String>> messages, String sessionId);
+
+    /**
+     * 异步调用AI进行对话（不阻塞调用线程，交互请求）
+     *
+     * @param messages 对话消息列表，每个消息包含role和content
+     * @param sessionId 会话ID（用于会话间公平排队）
+     * @return AI回复内容的Future
+     */
+    CompletableFuture<String> chatAsync(List<Map<String, String>> messages, String sessionId);
 
     /**
-     * 调用AI进行流式对话（用于实时返回）
+     * 调用AI进行流式对话（用于实时返回，交互请求）
      *
      * @param messages 对话消息列表
+     * @param sessionId 会话ID（用于会话间公平排队）
+     * @param cancellation 取消句柄（客户端断开或超时时取消上游请求）
      * @param callback 回调函数，用于接收流式输出
      */
-    void chatStream(List<Map<String, String>> messages, StreamCallback callback);
+    void chatStream(List<Map<String, String>> messages, String sessionId, StreamCancellation cancellation,
+                    StreamCallback callback);
+
+    /**
+     * 获取AI HTTP客户端连接池统计
+     *
+     * @return 连接池统计信息
+     */
+    AiClientStatsDTO getClientStats();
+
+    /**
+     * 流式调用取消句柄
+     * 调用方在客户端断开或超时时调用cancel，正在进行的上游请求随之取消；先取消后登记的动作会立即执行
+     */
+    final class StreamCancellation {
+
+        private volatile boolean cancelled;
+        private volatile Runnable cancelAction;
+
+        /**
+         * 取消流式调用（可重复调用）
+         */
+        public void cancel() {
+            cancelled = true;
+            Runnable action = cancelAction;
+            if (action != null) {
+                action.run();
+            }
+        }
+
+        /**
+         * 是否已取消
+         *
+         * @return 是否已取消
+         */
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * 登记取消动作（如取消HTTP请求），已取消时立即执行
+         *
+         * @param action 取消动作
+         */
+        public void onCancel(Runnable action) {
+            cancelAction = action;
+            if (cancelled) {
+                action.run();
+            }
+        }
+    }
 
     /**
      * 流式输出回调接口
@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.extension.service.IService;
 import com.docagent.domain.entity.ChatHistory;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 对话服务接口
@@ -25,6 +26,30 @@ public interface ChatService extends IService<ChatHistory> {
      */
     String sendMessage(Long documentId, String message, String selectedText, String sessionId);
 
+    /**
+     * 异步发送对话消息
+     *
+     * @param documentId 文档ID
+     * @param message 用户消息
+     * @param selectedText 选中的文本（可选）
+     * @param sessionId 会话ID
+     * @return AI回复内容的Future
+     */
+    CompletableFuture<String> sendMessageAsync(Long documentId, String message, String selectedText, String sessionId);
+
+    /**
+     * 流式发送对话消息（后台逐块回调，结束或中断时保存已生成的回复）
+     *
+     * @param documentId 文档ID
+     * @param message 用户消息
+     * @param selectedText 选中的文本（可选）
+     * @param sessionId 会话ID
+     * @param callback 流式输出回调
+     * @return 取消句柄（客户端断开或超时时调用，取消上游AI请求）
+     */
+    AiService.StreamCancellation sendMessageStream(Long documentId, String message, String selectedText,
+                                                   String sessionId, AiService.StreamCallback callback);
+
     /**
      * 获取对话历史
      *
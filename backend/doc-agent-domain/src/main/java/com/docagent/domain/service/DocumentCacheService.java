@@ -0,0 +1,42 @@
+package com.docagent.domain.service;
+
+import com.docagent.domain.dto.DocumentCacheStatsDTO;
+import com.docagent.domain.entity.Document;
+
+import java.util.function.Supplier;
+
+/**
+ * 文档元数据缓存服务接口
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+public interface DocumentCacheService {
+
+    /**
+     * 查询文档（先查本地缓存，再查Redis，均未命中时调用loader查询数据库）
+     * 返回的文档可能被多个请求共享，调用方不应修改
+     *
+     * @param documentId 文档ID
+     * @param sessionId 会话ID
+     * @param loader 数据库查询
+     * @return 文档，不存在时返回null
+     */
+    Document get(Long documentId, String sessionId, Supplier<Document> loader);
+
+    /**
+     * 使文档缓存失效（并广播到其他节点）
+     *
+     * @param documentId 文档ID
+     * @param sessionId 会话ID
+     */
+    void evict(Long documentId, String sessionId);
+
+    /**
+     * 获取缓存命中统计
+     *
+     * @return 命中统计信息
+     */
+    DocumentCacheStatsDTO getStats();
+}
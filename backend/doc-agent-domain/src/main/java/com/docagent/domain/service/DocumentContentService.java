@@ -0,0 +1,88 @@
+package com.docagent.domain.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.docagent.domain.dto.ParsedDocument;
+import com.docagent.domain.entity.DocumentContent;
+
+/**
+ * 文档内容服务接口（按内容哈希去重的文件及解析结果）
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+public interface DocumentContentService extends IService<DocumentContent> {
+
+    /**
+     * 根据内容哈希查询
+     *
+     * @param contentHash 内容哈希
+     * @return 文档内容（不含文本），不存在时返回null
+     */
+    DocumentContent getByHash(String contentHash);
+
+    /**
+     * 新建文档内容（解析中，引用计数为1）
+     *
+     * @param contentHash 内容哈希
+     * @param filePath 文件存储路径
+     * @param fileSize 文件大小
+     * @return 文档内容
+     */
+    DocumentContent createContent(String contentHash, String filePath, Long fileSize);
+
+    /**
+     * 增加引用计数（内容正在被释放时失败）
+     *
+     * @param contentId 内容ID
+     * @return 是否成功
+     */
+    boolean retain(Long contentId);
+
+    /**
+     * 减少引用计数，计数归零时删除内容记录和文件
+     *
+     * @param contentId 内容ID
+     */
+    void release(Long contentId);
+
+    /**
+     * 将解析失败的内容重置为解析中（并发时只有一个调用方成功）
+     *
+     * @param contentId 内容ID
+     * @return 是否由本次调用重置
+     */
+    boolean resetFailed(Long contentId);
+
+    /**
+     * 保存解析结果并标记为已完成
+     *
+     * @param contentId 内容ID
+     * @param parsed 解析结果
+     */
+    void markParsed(Long contentId, ParsedDocument parsed);
+
+    /**
+     * 标记解析失败
+     *
+     * @param contentId 内容ID
+     */
+    void markFailed(Long contentId);
+
+    /**
+     * 获取内容文本
+     *
+     * @param contentId 内容ID
+     * @return 文本内容
+     */
+    String getTextContent(Long contentId);
+
+    /**
+     * 获取内容文本前缀
+     *
+     * @param contentId 内容ID
+     * @param maxLength 最大字符数
+     * @return 文本前缀
+     */
+    String getTextPrefix(Long contentId, int maxLength);
+}
@@ -0,0 +1,43 @@
+package com.docagent.domain.service;
+
+import com.docagent.domain.dto.ParsedDocument;
+import com.docagent.domain.dto.RetrievedChunk;
+
+import java.util.List;
+
+/**
+ * 文档检索索引服务接口（按共享内容建立分块BM25索引和向量索引，索引文件与PDF文件存放在一起）
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+public interface DocumentIndexService {
+
+    /**
+     * 为解析结果分块并建立索引
+     *
+     * @param contentId 共享内容ID
+     * @param filePath PDF文件路径
+     * @param parsed 解析结果
+     */
+    void buildIndex(Long contentId, String filePath, ParsedDocument parsed);
+
+    /**
+     * 检索与问题最相关的分块（在token预算内）
+     *
+     * @param contentId 共享内容ID
+     * @param filePath PDF文件路径
+     * @param query 用户问题
+     * @return 命中的分块（按文档顺序）
+     */
+    List<RetrievedChunk> search(Long contentId, String filePath, String query);
+
+    /**
+     * 删除索引
+     *
+     * @param contentId 共享内容ID
+     * @param filePath PDF文件路径
+     */
+    void deleteIndex(Long contentId, String filePath);
+}
@@ -1,6 +1,7 @@
 package com.docagent.domain.service;
 
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.docagent.domain.dto.DocumentStatusDTO;
 import com.docagent.domain.dto.FileUploadDTO;
 import com.docagent.domain.entity.Document;
 
@@ -24,6 +25,31 @@ public interface DocumentService extends IService<Document> {
      */
     Long uploadDocument(FileUploadDTO fileUpload, String sessionId);
 
+    /**
+     * 删除文档（释放对共享内容的引用）
+     *
+     * @param documentId 文档ID
+     * @param sessionId 会话ID
+     */
+    void deleteDocument(Long documentId, String sessionId);
+
+    /**
+     * 获取文档的文本内容
+     *
+     * @param documentId 文档ID
+     * @return 文本内容
+     */
+    String getTextContent(Long documentId);
+
+    /**
+     * 获取文档文本前缀（只读取前maxLength个字符）
+     *
+     * @param documentId 文档ID
+     * @param maxLength 最大字符数
+     * @return 文本前缀
+     */
+    String getTextPrefix(Long documentId, int maxLength);
+
     /**
      * 根据会话ID查询文档列表
      *
@@ -40,4 +66,22 @@ public interface DocumentService extends IService<Document> {
      * @return 文档
      */
     Document getByIdAndSessionId(Long documentId, String sessionId);
+
+    /**
+     * 根据文档ID和会话ID查询已解析完成的文档（解析中或失败时抛出异常）
+     *
+     * @param documentId 文档ID
+     * @param sessionId 会话ID
+     * @return 文档
+     */
+    Document getReadyDocument(Long documentId, String sessionId);
+
+    /**
+     * 查询文档解析状态
+     *
+     * @param documentId 文档ID
+     * @param sessionId 会话ID
+     * @return 解析状态
+     */
+    DocumentStatusDTO getDocumentStatus(Long documentId, String sessionId);
 }
@@ -0,0 +1,39 @@
+package com.docagent.domain.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.docagent.domain.entity.DocumentText;
+
+/**
+ * 文档文本服务接口
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+public interface DocumentTextService extends IService<DocumentText> {
+
+    /**
+     * 保存文档文本（已存在时覆盖）
+     *
+     * @param contentId 文档内容ID
+     * @param textContent 文本内容
+     */
+    void saveText(Long contentId, String textContent);
+
+    /**
+     * 获取完整文本
+     *
+     * @param contentId 文档内容ID
+     * @return 文本内容，不存在时返回null
+     */
+    String getText(Long contentId);
+
+    /**
+     * 获取文本前缀（只从数据库读取前maxLength个字符）
+     *
+     * @param contentId 文档内容ID
+     * @param maxLength 最大字符数
+     * @return 文本前缀，不存在时返回null
+     */
+    String getTextPrefix(Long contentId, int maxLength);
+}
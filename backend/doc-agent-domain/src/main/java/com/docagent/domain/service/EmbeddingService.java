@@ -0,0 +1,43 @@
+package com.docagent.domain.service;
+
+import java.util.List;
+
+/**
+ * 文本向量化服务接口（返回的向量均已归一化为单位长度）
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+public interface EmbeddingService {
+
+    /**
+     * 模型标识（模型或维度变化时已持久化的向量需要重建）
+     *
+     * @return 模型标识
+     */
+    String getModelId();
+
+    /**
+     * 向量维度
+     *
+     * @return 维度
+     */
+    int getDimension();
+
+    /**
+     * 向量化对话问题（受查询超时限制）
+     *
+     * @param text 文本
+     * @return 向量
+     */
+    float[] embedQuery(String text);
+
+    /**
+     * 批量向量化文档分块
+     *
+     * @param texts 文本列表
+     * @return 向量列表（与输入顺序一致）
+     */
+    List<float[]> embedDocuments(List<String> texts);
+}
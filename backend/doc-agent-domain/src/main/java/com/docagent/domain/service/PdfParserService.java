@@ -1,6 +1,8 @@
 package com.docagent.domain.service;
 
-import java.io.InputStream;
+import com.docagent.domain.dto.ParsedDocument;
+
+import java.io.File;
 
 /**
  * PDF解析服务接口
@@ -12,18 +14,10 @@ import java.io.InputStream;
 public interface PdfParserService {
 
     /**
-     * 提取PDF文本内容
-     *
-     * @param inputStream PDF文件输入流
-     * @return 文本内容
-     */
-    String extractText(InputStream inputStream);
-
-    /**
-     * 获取PDF页数
+     * 解析PDF（一次加载得到全文、分页偏移、页数和元数据）
      *
-     * @param inputStream PDF文件输入流
-     * @return 页数
+     * @param file PDF文件
+     * @return 解析结果
      */
-    int getPageCount(InputStream inputStream);
+    ParsedDocument parse(File file);
 }
@@ -0,0 +1,42 @@
+package com.docagent.domain.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.docagent.domain.dto.TranslationMemoryStatsDTO;
+import com.docagent.domain.entity.TranslationMemory;
+
+/**
+ * 翻译记忆服务接口
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+public interface TranslationMemoryService extends IService<TranslationMemory> {
+
+    /**
+     * 查询段落的已有译文（先查本地缓存，再查持久层）
+     *
+     * @param text 原文
+     * @param targetLang 目标语言
+     * @param style 翻译风格
+     * @return 译文，未命中时返回null
+     */
+    String lookup(String text, String targetLang, String style);
+
+    /**
+     * 保存段落译文到翻译记忆
+     *
+     * @param text 原文
+     * @param targetLang 目标语言
+     * @param style 翻译风格
+     * @param translatedText 译文
+     */
+    void store(String text, String targetLang, String style, String translatedText);
+
+    /**
+     * 获取翻译记忆命中统计
+     *
+     * @return 命中统计信息
+     */
+    TranslationMemoryStatsDTO getStats();
+}
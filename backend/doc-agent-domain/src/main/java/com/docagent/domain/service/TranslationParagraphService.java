@@ -0,0 +1,56 @@
+package com.docagent.domain.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.docagent.domain.entity.TranslationParagraph;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 翻译段落服务接口
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+public interface TranslationParagraphService extends IService<TranslationParagraph> {
+
+    /**
+     * 保存单个段落的翻译结果（重复保存时忽略）
+     *
+     * @param translationId 翻译记录ID
+     * @param paragraphIndex 段落下标
+     * @param originalContent 原文
+     * @param translatedContent 译文
+     * @param sourceStart 段落在文档文本中的起始偏移（含）
+     * @param sourceEnd 段落在文档文本中的结束偏移（不含）
+     * @return 是否新保存（段落已存在时返回false，调用方不应重复累加进度）
+     */
+    boolean saveParagraph(Long translationId, Integer paragraphIndex, String originalContent, String translatedContent,
+                       Integer sourceStart, Integer sourceEnd);
+
+    /**
+     * 删除翻译记录下的全部段落
+     *
+     * @param translationId 翻译记录ID
+     */
+    void removeByTranslationId(Long translationId);
+
+    /**
+     * 查询已完成翻译的段落下标
+     *
+     * @param translationId 翻译记录ID
+     * @return 段落下标集合
+     */
+    Set<Integer> listTranslatedIndexes(Long translationId);
+
+    /**
+     * 按段落顺序分页查询翻译段落
+     *
+     * @param translationId 翻译记录ID
+     * @param offset 起始段落下标
+     * @param limit 查询数量
+     * @return 翻译段落列表
+     */
+    List<TranslationParagraph> listByTranslationId(Long translationId, Integer offset, Integer limit);
+}
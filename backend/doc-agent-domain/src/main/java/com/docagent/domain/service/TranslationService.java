@@ -2,6 +2,9 @@ package com.docagent.domain.service;
 
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.docagent.domain.entity.Translation;
+import com.docagent.domain.entity.TranslationParagraph;
+
+import java.util.List;
 
 /**
  * 翻译服务接口
@@ -32,6 +35,17 @@ public interface TranslationService extends IService<Translation> {
      */
     Translation getTranslationResult(Long translationId, String sessionId);
 
+    /**
+     * 按段落顺序分页获取翻译段落
+     *
+     * @param translationId 翻译记录ID
+     * @param offset 起始段落下标
+     * @param limit 查询数量
+     * @param sessionId 会话ID
+     * @return 翻译段落列表
+     */
+    List<TranslationParagraph> getTranslationParagraphs(Long translationId, Integer offset, Integer limit, String sessionId);
+
     /**
      * 根据文档ID获取最新翻译
      *
@@ -0,0 +1,604 @@
+package com.docagent.domain.service.impl;
+
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * AI接口准入控制器
+ * 并发上限按AIMD自适应调整（成功且并发接近上限时加性增长，429/5xx过载/超时时减半），
+ * 同时按每分钟请求数、每分钟token数两个令牌桶限流；收到429时按Retry-After暂停放行。
+ * 等待中的请求按优先级分类排队：交互请求（对话）总是先于批量请求（翻译）放行，且批量请求不占用为交互请求保留的并发，
+ * 并受批量并发上限约束（只统计已放行的请求，调用方无需在排队前另行占用并发许可）；
+ * 同一类别内按会话加权公平排队（按预计token数计算虚拟完成时间），单个会话的大量请求不会饿死其他会话。
+ * 超过截止时间仍未放行则失败
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+final class AiRateLimiter {
+
+    /**
+     * 过载时并发上限的缩减比例
+     */
+    private static final double DECREASE_FACTOR = 0.5D;
+
+    /**
+     * 两次缩减之间的最小间隔（同一波过载只缩减一次）
+     */
+    private static final long DECREASE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Retry-After的最长暂停时间
+     */
+    private static final long MAX_RETRY_AFTER_MS = 60_000L;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int interactiveReserved;
+
+    /**
+     * 批量请求的并发上限（0为不限制）
+     */
+    private final int bulkMaxInFlight;
+    private final long defaultRetryAfterMs;
+
+    /**
+     * 每分钟请求数令牌桶（未配置时为null）
+     */
+    private final TokenBucket requestBucket;
+
+    /**
+     * 每分钟token数令牌桶（未配置时为null）
+     */
+    private final TokenBucket tokenBucket;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * 各优先级的等待队列
+     */
+    private final Map<Priority, ClassQueue> queues = new EnumMap<>(Priority.class);
+
+    /**
+     * 到达序号（虚拟完成时间相同时先到先放行）
+     */
+    private long sequence;
+
+    /**
+     * 异步请求在虚拟线程上等待放行
+     */
+    private final ExecutorService waitExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private double limit;
+    private int inFlight;
+    private int bulkInFlight;
+    private long blockedUntilNanos;
+    private long lastDecreaseNanos;
+
+    private final AtomicLong rateLimitedCount = new AtomicLong();
+    private final AtomicLong queueTimeoutCount = new AtomicLong();
+
+    AiRateLimiter(int initialLimit, int minLimit, int maxLimit, int interactiveReserved, int bulkMaxInFlight,
+                  int requestsPerMinute, int tokensPerMinute, long defaultRetryAfterMs) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.interactiveReserved = Math.max(0, interactiveReserved);
+        this.bulkMaxInFlight = Math.max(0, bulkMaxInFlight);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        this.defaultRetryAfterMs = defaultRetryAfterMs;
+        this.requestBucket = requestsPerMinute > 0 ? new TokenBucket(requestsPerMinute) : null;
+        this.tokenBucket = tokensPerMinute > 0 ? new TokenBucket(tokensPerMinute) : null;
+        this.lastDecreaseNanos = System.nanoTime() - DECREASE_INTERVAL_NANOS;
+        for (Priority priority : Priority.values()) {
+            queues.put(priority, new ClassQueue());
+        }
+    }
+
+    /**
+     * 等待放行（阻塞当前线程）
+     *
+     * @param priority 优先级
+     * @param sessionKey 公平排队的会话标识
+     * @param estimatedTokens 预计消耗的token数
+     * @param timeoutMs 最长等待时间
+     * @return 许可，请求结束后必须调用release
+     */
+    Permit acquire(Priority priority, String sessionKey, int estimatedTokens, long timeoutMs) {
+        long enqueueNanos = System.nanoTime();
+        long deadline = enqueueNanos + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        ClassQueue queue = queues.get(priority);
+        lock.lock();
+        try {
+            Waiter waiter = queue.enqueue(lock.newCondition(), sessionKey, estimatedTokens, enqueueNanos, sequence++);
+            try {
+                while (true) {
+                    long now = System.nanoTime();
+                    long waitNanos;
+                    if (nextWaiter() == waiter) {
+                        waitNanos = tryAcquire(priority, estimatedTokens, now);
+                        if (waitNanos == 0L) {
+                            queue.dequeue(waiter, now);
+                            signalHead();
+                            return new Permit(priority, estimatedTokens, inFlight >= limit / 2);
+                        }
+                    } else {
+                        waitNanos = Long.MAX_VALUE;
+                    }
+
+                    long remaining = deadline - now;
+                    if (remaining <= 0L) {
+                        queue.remove(waiter);
+                        queue.timeoutCount++;
+                        signalHead();
+                        queueTimeoutCount.incrementAndGet();
+                        throw new RuntimeException("AI服务繁忙，请稍后重试");
+                    }
+                    // 并发已满时等待释放信号，令牌不足或被暂停时等待到可放行的时间点
+                    waiter.condition.awaitNanos(Math.min(waitNanos, remaining));
+                }
+            } catch (InterruptedException e) {
+                queue.remove(waiter);
+                signalHead();
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("AI请求等待被中断", e);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 异步等待放行（在虚拟线程上等待，不阻塞调用线程）
+     * 调用方取消Future或使其超时完成时中断等待线程，请求立即离开队列；取消后才放行的许可立即归还
+     *
+     * @param priority 优先级
+     * @param sessionKey 公平排队的会话标识
+     * @param estimatedTokens 预计消耗的token数
+     * @param timeoutMs 最长等待时间
+     * @return 许可的Future
+     */
+    CompletableFuture<Permit> acquireAsync(Priority priority, String sessionKey, int estimatedTokens, long timeoutMs) {
+        CompletableFuture<Permit> future = new CompletableFuture<>();
+        Future<?> waiting = waitExecutor.submit(() -> {
+            try {
+                Permit permit = acquire(priority, sessionKey, estimatedTokens, timeoutMs);
+                if (!future.complete(permit)) {
+                    release(permit);
+                }
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        });
+        future.whenComplete((permit, error) -> {
+            if (error != null) {
+                waiting.cancel(true);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * 请求结束，按结果调整并发上限并归还多预留的token（成功但未返回用量时保留预留）
+     *
+     * @param permit 许可
+     */
+    void release(Permit permit) {
+        lock.lock();
+        try {
+            inFlight--;
+            if (permit.priority == Priority.BULK) {
+                bulkInFlight--;
+            }
+            long now = System.nanoTime();
+
+            // 已知实际用量时归还差额；请求未成功（未发出、非2xx、超时、响应解析失败）时归还全部预留
+            if (tokenBucket != null) {
+                if (permit.usedTokens >= 0) {
+                    tokenBucket.refund(permit.reservedTokens - permit.usedTokens, now);
+                } else if (!permit.succeeded) {
+                    tokenBucket.refund(permit.reservedTokens, now);
+                }
+            }
+
+            if (permit.statusCode == 429) {
+                rateLimitedCount.incrementAndGet();
+                long pauseMs = permit.retryAfterMs >= 0 ? permit.retryAfterMs : defaultRetryAfterMs;
+                blockedUntilNanos = Math.max(blockedUntilNanos, now + TimeUnit.MILLISECONDS.toNanos(pauseMs));
+                decrease(now);
+            } else if (permit.overloaded) {
+                if (permit.retryAfterMs >= 0) {
+                    blockedUntilNanos = Math.max(blockedUntilNanos, now + TimeUnit.MILLISECONDS.toNanos(permit.retryAfterMs));
+                }
+                decrease(now);
+            } else if (permit.succeeded && permit.saturated) {
+                limit = Math.min(maxLimit, limit + 1D / limit);
+            }
+            signalHead();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 当前并发上限
+     */
+    int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 正在执行的请求数
+     */
+    int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 等待放行的请求数
+     */
+    int getQueueLength() {
+        lock.lock();
+        try {
+            int length = 0;
+            for (ClassQueue queue : queues.values()) {
+                length += queue.waiters.size();
+            }
+            return length;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 指定优先级的排队统计
+     *
+     * @param priority 优先级
+     * @return 排队统计
+     */
+    QueueStats getQueueStats(Priority priority) {
+        lock.lock();
+        try {
+            ClassQueue queue = queues.get(priority);
+            long avgWaitMs = queue.admittedCount > 0
+                    ? TimeUnit.NANOSECONDS.toMillis(queue.totalWaitNanos / queue.admittedCount) : 0L;
+            return new QueueStats(queue.waiters.size(), queue.admittedCount, avgWaitMs,
+                    TimeUnit.NANOSECONDS.toMillis(queue.maxWaitNanos), queue.timeoutCount);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long getRateLimitedCount() {
+        return rateLimitedCount.get();
+    }
+
+    long getQueueTimeoutCount() {
+        return queueTimeoutCount.get();
+    }
+
+    /**
+     * 尝试放行队首请求
+     *
+     * @return 0表示已放行；否则为建议等待的纳秒数（并发已满时为Long.MAX_VALUE，等待释放信号）
+     */
+    private long tryAcquire(Priority priority, int estimatedTokens, long now) {
+        if (now < blockedUntilNanos) {
+            return blockedUntilNanos - now;
+        }
+        if (inFlight >= (int) limit) {
+            return Long.MAX_VALUE;
+        }
+        // 批量请求至少保留一个并发，其余为交互请求预留；同时不超过批量并发上限
+        if (priority == Priority.BULK && (bulkInFlight >= Math.max(1, (int) limit - interactiveReserved)
+                || (bulkMaxInFlight > 0 && bulkInFlight >= bulkMaxInFlight))) {
+            return Long.MAX_VALUE;
+        }
+        long waitNanos = 0L;
+        if (requestBucket != null) {
+            waitNanos = Math.max(waitNanos, requestBucket.waitNanos(1, now));
+        }
+        if (tokenBucket != null) {
+            waitNanos = Math.max(waitNanos, tokenBucket.waitNanos(estimatedTokens, now));
+        }
+        if (waitNanos > 0L) {
+            return waitNanos;
+        }
+        if (requestBucket != null) {
+            requestBucket.take(1);
+        }
+        if (tokenBucket != null) {
+            tokenBucket.take(estimatedTokens);
+        }
+        inFlight++;
+        if (priority == Priority.BULK) {
+            bulkInFlight++;
+        }
+        return 0L;
+    }
+
+    private void decrease(long now) {
+        if (now - lastDecreaseNanos < DECREASE_INTERVAL_NANOS) {
+            return;
+        }
+        lastDecreaseNanos = now;
+        limit = Math.max(minLimit, limit * DECREASE_FACTOR);
+    }
+
+    /**
+     * 下一个应放行的请求：交互队列非空时取交互队列队首，否则取批量队列队首
+     */
+    private Waiter nextWaiter() {
+        for (Priority priority : Priority.values()) {
+            Waiter head = queues.get(priority).waiters.peek();
+            if (head != null) {
+                return head;
+            }
+        }
+        return null;
+    }
+
+    private void signalHead() {
+        Waiter head = nextWaiter();
+        if (head != null) {
+            head.condition.signal();
+        }
+    }
+
+    /**
+     * 解析Retry-After响应头（秒数或HTTP日期）
+     *
+     * @param header 响应头
+     * @return 暂停毫秒数，无法解析时返回-1
+     */
+    static long parseRetryAfter(String header) {
+        if (header == null || header.isBlank()) {
+            return -1L;
+        }
+        String value = header.trim();
+        try {
+            return Math.min(MAX_RETRY_AFTER_MS, Math.max(0L, (long) (Double.parseDouble(value) * 1000)));
+        } catch (NumberFormatException e) {
+            try {
+                long millis = Duration.between(ZonedDateTime.now(),
+                        ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME)).toMillis();
+                return Math.min(MAX_RETRY_AFTER_MS, Math.max(0L, millis));
+            } catch (DateTimeParseException ex) {
+                return -1L;
+            }
+        }
+    }
+
+    /**
+     * 请求优先级（声明顺序即放行顺序）
+     */
+    enum Priority {
+        /**
+         * 交互请求（对话），对延迟敏感
+         */
+        INTERACTIVE,
+        /**
+         * 批量请求（翻译），关注吞吐
+         */
+        BULK
+    }
+
+    /**
+     * 排队统计
+     *
+     * @param waiting 当前等待数
+     * @param admitted 累计放行数
+     * @param avgWaitMs 平均排队时间（毫秒）
+     * @param maxWaitMs 最长排队时间（毫秒）
+     * @param timeouts 累计排队超时数
+     */
+    record QueueStats(int waiting, long admitted, long avgWaitMs, long maxWaitMs, long timeouts) {
+    }
+
+    /**
+     * 等待放行的请求
+     */
+    private record Waiter(Condition condition, String sessionKey, double finishTag, long sequence, long enqueueNanos) {
+    }
+
+    /**
+     * 单个优先级的等待队列（按会话加权公平排队）
+     * 每个请求的虚拟完成时间 = max(队列虚拟时间, 该会话上一个请求的虚拟完成时间) + 预计token数，
+     * 按虚拟完成时间从小到大放行：连续排队的会话虚拟时间不断后移，新到的会话从当前虚拟时间开始，不必等前者全部完成
+     */
+    private static final class ClassQueue {
+
+        private final PriorityQueue<Waiter> waiters = new PriorityQueue<>((a, b) -> a.finishTag() != b.finishTag()
+                ? Double.compare(a.finishTag(), b.finishTag()) : Long.compare(a.sequence(), b.sequence()));
+
+        /**
+         * 各会话排队中的请求数与最后一个请求的虚拟完成时间
+         */
+        private final Map<String, SessionState> sessions = new HashMap<>();
+
+        /**
+         * 队列虚拟时间（最近放行请求的虚拟完成时间）
+         */
+        private double virtualTime;
+
+        private long admittedCount;
+        private long totalWaitNanos;
+        private long maxWaitNanos;
+        private long timeoutCount;
+
+        private Waiter enqueue(Condition condition, String sessionKey, int estimatedTokens, long now, long sequence) {
+            SessionState session = sessions.computeIfAbsent(sessionKey, key -> new SessionState());
+            double finishTag = Math.max(virtualTime, session.lastFinishTag) + Math.max(1, estimatedTokens);
+            session.lastFinishTag = finishTag;
+            session.waiting++;
+            Waiter waiter = new Waiter(condition, sessionKey, finishTag, sequence, now);
+            waiters.add(waiter);
+            return waiter;
+        }
+
+        private void dequeue(Waiter waiter, long now) {
+            waiters.poll();
+            virtualTime = Math.max(virtualTime, waiter.finishTag());
+            leave(waiter);
+            long waitNanos = now - waiter.enqueueNanos();
+            admittedCount++;
+            totalWaitNanos += waitNanos;
+            maxWaitNanos = Math.max(maxWaitNanos, waitNanos);
+        }
+
+        private void remove(Waiter waiter) {
+            if (waiters.remove(waiter)) {
+                leave(waiter);
+            }
+        }
+
+        /**
+         * 会话没有排队请求时移除其状态（下次到达从当前虚拟时间开始计算）
+         */
+        private void leave(Waiter waiter) {
+            SessionState session = sessions.get(waiter.sessionKey());
+            if (session != null && --session.waiting <= 0) {
+                sessions.remove(waiter.sessionKey());
+            }
+        }
+    }
+
+    /**
+     * 会话排队状态
+     */
+    private static final class SessionState {
+
+        private int waiting;
+        private double lastFinishTag;
+    }
+
+    /**
+     * 每分钟额度的令牌桶（连续补充，容量为一分钟额度）
+     */
+    private static final class TokenBucket {
+
+        private final double capacity;
+        private final double refillPerNano;
+        private double available;
+        private long lastRefillNanos;
+
+        private TokenBucket(int perMinute) {
+            this.capacity = perMinute;
+            this.refillPerNano = perMinute / (double) TimeUnit.MINUTES.toNanos(1);
+            this.available = perMinute;
+            this.lastRefillNanos = System.nanoTime();
+        }
+
+        /**
+         * 距离令牌足够还需等待的纳秒数（超过容量的请求按容量计算）
+         */
+        private long waitNanos(int amount, long now) {
+            refill(now);
+            double needed = Math.min(amount, capacity);
+            if (available >= needed) {
+                return 0L;
+            }
+            return (long) Math.ceil((needed - available) / refillPerNano);
+        }
+
+        private void take(int amount) {
+            available -= Math.min(amount, capacity);
+        }
+
+        /**
+         * 归还多预留的令牌（实际消耗更多时为负数，记为欠额）
+         */
+        private void refund(int amount, long now) {
+            refill(now);
+            available = Math.min(capacity, available + amount);
+        }
+
+        private void refill(long now) {
+            available = Math.min(capacity, available + (now - lastRefillNanos) * refillPerNano);
+            lastRefillNanos = now;
+        }
+    }
+
+    /**
+     * 放行许可，记录请求结果供调整并发上限
+     */
+    static final class Permit {
+
+        private final Priority priority;
+        private final int reservedTokens;
+
+        /**
+         * 放行时并发是否已接近上限（只有此时的成功才说明上限可以增长）
+         */
+        private final boolean saturated;
+
+        private int statusCode;
+        private long retryAfterMs = -1L;
+        private int usedTokens = -1;
+        private boolean succeeded;
+        private boolean overloaded;
+
+        private Permit(Priority priority, int reservedTokens, boolean saturated) {
+            this.priority = priority;
+            this.reservedTokens = reservedTokens;
+            this.saturated = saturated;
+        }
+
+        /**
+         * 记录HTTP响应
+         *
+         * @param code 状态码
+         * @param retryAfter Retry-After响应头
+         */
+        void onResponse(int code, String retryAfter) {
+            this.statusCode = code;
+            this.retryAfterMs = parseRetryAfter(retryAfter);
+            this.succeeded = code >= 200 && code < 300;
+            this.overloaded = code == 502 || code == 503 || code == 504;
+        }
+
+        /**
+         * 记录请求异常（含响应解析失败；超时视为过载，其他异常不影响并发上限）
+         *
+         * @param error 异常
+         */
+        void onFailure(Throwable error) {
+            this.succeeded = false;
+            this.overloaded = error instanceof InterruptedIOException;
+        }
+
+        /**
+         * 记录实际消耗的token数
+         *
+         * @param usedTokens token数
+         */
+        void setUsedTokens(int usedTokens) {
+            this.usedTokens = usedTokens;
+        }
+    }
+}
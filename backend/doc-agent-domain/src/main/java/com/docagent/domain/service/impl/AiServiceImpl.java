@@ -1,18 +1,24 @@
 package com.docagent.domain.service.impl;
 
 import com.docagent.domain.config.AiConfig;
+import com.docagent.domain.config.AiHttpEventListener;
+import com.docagent.domain.dto.AiClientStatsDTO;
 import com.docagent.domain.service.AiService;
+import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.*;
+import okio.BufferedSource;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * AI服务实现类（基于OpenAI协议）
@@ -27,10 +33,34 @@ import java.util.concurrent.TimeUnit;
 public class AiServiceImpl implements AiService {
 
     private final AiConfig aiConfig;
+    private final OkHttpClient aiHttpClient;
+    private final AiHttpEventListener aiHttpEventListener;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
 
+    /**
+     * 每条消息的格式开销（token）
+     */
+    private static final int MESSAGE_OVERHEAD_TOKENS = 4;
+
+    /**
+     * 未指定会话时的公平排队标识
+     */
+    private static final String DEFAULT_SESSION_KEY = "-";
+
+    /**
+     * 接口准入控制（自适应并发上限 + 每分钟请求数/token数限流 + 优先级与会话公平排队）
+     */
+    private AiRateLimiter rateLimiter;
+
+    @PostConstruct
+    public void init() {
+        rateLimiter = new AiRateLimiter(aiConfig.getInitialConcurrency(), aiConfig.getMinConcurrency(),
+                aiConfig.getMaxConcurrency(), aiConfig.getInteractiveReservedConcurrency(),
+                aiConfig.getBulkMaxConcurrency(), aiConfig.getRequestsPerMinute(), aiConfig.getTokensPerMinute(), aiConfig.getDefaultRetryAfterMs());
+    }
+
     /**
      * 调用AI进行文本翻译
      *
@@ -44,116 +74,248 @@ public class AiServiceImpl implements AiService {
     public String translate(String text, String sourceLang, String targetLang, String style) {
         log.info("[AI][翻译]-开始翻译，源语言={}，目标语言={}，风格={}", sourceLang, targetLang, style);
 
-        // 构建翻译提示词
-        String prompt = buildTranslatePrompt(text, sourceLang, targetLang, style);
-
         // 构建消息列表
-        List<Map<String, String>> messages = new ArrayList<>();
-        messages.add(Map.of("role", "system", "content", "你是一个专业的翻译助手，擅长各种语言的翻译工作。"));
-        messages.add(Map.of("role", "user", "content", prompt));
+        List<Map<String, String>> messages = buildTranslateMessages(text, sourceLang, targetLang, style);
 
-        // 调用AI
-        String result = chat(messages);
+        // 调用AI（按批量请求排队）
+        String result = chat(messages, AiRateLimiter.Priority.BULK, null);
 
         log.info("[AI][翻译]-翻译完成，结果长度={}", result.length());
         return result;
     }
 
+    /**
+     * 异步调用AI进行文本翻译
+     *
+     * @param text 待翻译文本
+     * @param sourceLang 源语言
+     * @param targetLang 目标语言
+     * @param style 翻译风格
+     * @param sessionId 会话ID（用于会话间公平排队）
+     * @return 翻译结果的Future
+     */
+    @Override
+    public CompletableFuture<String> translateAsync(String text, String sourceLang, String targetLang, String style,
+                                                    String sessionId) {
+        log.info("[AI][异步翻译]-开始翻译，源语言={}，目标语言={}，风格={}", sourceLang, targetLang, style);
+
+        List<Map<String, String>> messages = buildTranslateMessages(text, sourceLang, targetLang, style);
+
+        return chatAsync(messages, AiRateLimiter.Priority.BULK, sessionId, false).thenApply(result -> {
+            log.info("[AI][异步翻译]-翻译完成，结果长度={}", result.length());
+            return result;
+        });
+    }
+
+    /**
+     * 异步批量翻译多个文本片段（一次请求，按编号以JSON返回各片段译文）
+     *
+     * @param texts 待翻译片段
+     * @param sourceLang 源语言
+     * @param targetLang 目标语言
+     * @param style 翻译风格
+     * @param sessionId 会话ID（用于会话间公平排队）
+     * @return 与片段一一对应的译文列表的Future，模型未返回或无法解析的片段为null
+     */
+    @Override
+    public CompletableFuture<List<String>> translateBatchAsync(List<String> texts, String sourceLang,
+                                                              String targetLang, String style, String sessionId) {
+        log.info("[AI][批量翻译]-开始翻译，片段数={}，目标语言={}，风格={}", texts.size(), targetLang, style);
+
+        List<Map<String, String>> messages;
+        try {
+            messages = buildBatchTranslateMessages(texts, sourceLang, targetLang, style);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(new RuntimeException("AI调用失败: " + e.getMessage(), e));
+        }
+
+        return chatAsync(messages, AiRateLimiter.Priority.BULK, sessionId, true).thenApply(content -> {
+            List<String> results = TranslationBatchParser.parse(objectMapper.getFactory(), content, texts.size());
+            long parsed = results.stream().filter(Objects::nonNull).count();
+            log.info("[AI][批量翻译]-翻译完成，片段数={}，解析成功={}", texts.size(), parsed);
+            return results;
+        });
+    }
+
     /**
      * 调用AI进行对话
      *
      * @param messages 对话消息列表
+     * @param sessionId 会话ID（用于会话间公平排队）
      * @return AI回复内容
      */
     @Override
-    public String chat(List<Map<String, String>> messages) {
+    public String chat(List<Map<String, String>> messages, String sessionId) {
+        return chat(messages, AiRateLimiter.Priority.INTERACTIVE, sessionId);
+    }
+
+    /**
+     * 调用AI进行对话（按指定优先级排队）
+     */
+    private String chat(List<Map<String, String>> messages, AiRateLimiter.Priority priority, String sessionId) {
         log.info("[AI][对话]-开始调用AI，消息数量={}", messages.size());
 
+        Request request;
         try {
-            // 构建请求体
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("model", aiConfig.getModel());
-            requestBody.put("messages", messages);
-            requestBody.put("temperature", 0.7);
-
-            String requestJson = objectMapper.writeValueAsString(requestBody);
-            log.debug("[AI][对话]-请求参数={}", requestJson);
-
-            // 发送HTTP请求
-            OkHttpClient client = new OkHttpClient.Builder()
-                    .connectTimeout(aiConfig.getTimeout(), TimeUnit.MILLISECONDS)
-                    .readTimeout(aiConfig.getTimeout(), TimeUnit.MILLISECONDS)
-                    .build();
-
-            Request request = new Request.Builder()
-                    .url(aiConfig.getApiUrl() + "/chat/completions")
-                    .addHeader("Authorization", "Bearer " + aiConfig.getApiKey())
-                    .addHeader("Content-Type", "application/json")
-                    .post(RequestBody.create(requestJson, JSON))
-                    .build();
-
-            try (Response response = client.newCall(request).execute()) {
-                if (!response.isSuccessful()) {
-                    String errorBody = response.body() != null ? response.body().string() : "";
-                    log.error("[AI][对话]-API调用失败，状态码={}，错误信息={}", response.code(), errorBody);
-                    throw new RuntimeException("AI API调用失败: " + response.code());
-                }
-
-                String responseBody = response.body().string();
-                log.debug("[AI][对话]-响应结果={}", responseBody);
-
-                // 解析响应
-                JsonNode rootNode = objectMapper.readTree(responseBody);
-                String content = rootNode.path("choices")
-                        .get(0)
-                        .path("message")
-                        .path("content")
-                        .asText();
+            request = buildChatRequest(messages, false);
+        } catch (IOException e) {
+            throw new RuntimeException("AI调用失败: " + e.getMessage(), e);
+        }
 
-                log.info("[AI][对话]-AI回复成功，内容长度={}", content.length());
-                return content;
-            }
+        // 排队等待放行，超过截止时间仍未放行则失败
+        AiRateLimiter.Permit permit = rateLimiter.acquire(priority, sessionKey(sessionId), reserveTokens(messages),
+                queueTimeoutMs(priority));
+        // 发送HTTP请求（复用共享客户端的连接池）
+        try (Response response = aiHttpClient.newCall(request).execute()) {
+            permit.onResponse(response.code(), response.header("Retry-After"));
+            String content = parseChatResponse(response, permit);
+            log.info("[AI][对话]-AI回复成功，内容长度={}", content.length());
+            return content;
 
         } catch (IOException e) {
+            permit.onFailure(e);
             log.error("[AI][对话]-AI调用异常", e);
             throw new RuntimeException("AI调用失败: " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            permit.onFailure(e);
+            throw e;
+        } finally {
+            rateLimiter.release(permit);
         }
     }
 
     /**
-     * 调用AI进行流式对话
+     * 异步调用AI进行对话（基于OkHttp的enqueue，由虚拟线程执行网络IO）
      *
      * @param messages 对话消息列表
-     * @param callback 回调函数
+     * @param sessionId 会话ID（用于会话间公平排队）
+     * @return AI回复内容的Future
      */
     @Override
-    public void chatStream(List<Map<String, String>> messages, StreamCallback callback) {
-        log.info("[AI][流式对话]-开始调用AI，消息数量={}", messages.size());
+    public CompletableFuture<String> chatAsync(List<Map<String, String>> messages, String sessionId) {
+        return chatAsync(messages, AiRateLimiter.Priority.INTERACTIVE, sessionId, false);
+    }
 
+    /**
+     * 异步调用AI进行对话
+     *
+     * @param messages 对话消息列表
+     * @param priority 排队优先级
+     * @param sessionId 会话ID
+     * @param jsonOutput 是否要求JSON格式输出
+     * @return AI回复内容的Future
+     */
+    private CompletableFuture<String> chatAsync(List<Map<String, String>> messages, AiRateLimiter.Priority priority,
+                                                String sessionId, boolean jsonOutput) {
+        log.info("[AI][异步对话]-开始调用AI，消息数量={}", messages.size());
+
+        CompletableFuture<String> future = new CompletableFuture<>();
+        Request request;
         try {
-            // 构建请求体
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("model", aiConfig.getModel());
-            requestBody.put("messages", messages);
-            requestBody.put("temperature", 0.7);
-            requestBody.put("stream", true);
+            request = buildChatRequest(messages, false, jsonOutput);
+        } catch (IOException e) {
+            future.completeExceptionally(new RuntimeException("AI调用失败: " + e.getMessage(), e));
+            return future;
+        }
 
-            String requestJson = objectMapper.writeValueAsString(requestBody);
+        // 在虚拟线程上排队等待放行，放行后再发起请求
+        AtomicReference<Call> callRef = new AtomicReference<>();
+        CompletableFuture<AiRateLimiter.Permit> permitFuture = rateLimiter.acquireAsync(priority,
+                sessionKey(sessionId), reserveTokens(messages), queueTimeoutMs(priority));
+        permitFuture.whenComplete((permit, acquireError) -> {
+            if (Objects.nonNull(acquireError)) {
+                future.completeExceptionally(acquireError);
+                return;
+            }
+            if (future.isDone()) {
+                // 等待期间调用方已取消
+                rateLimiter.release(permit);
+                return;
+            }
+
+            Call call = aiHttpClient.newCall(request);
+            callRef.set(call);
+            call.enqueue(new Callback() {
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    permit.onFailure(e);
+                    rateLimiter.release(permit);
+                    log.error("[AI][异步对话]-AI调用异常", e);
+                    future.completeExceptionally(new RuntimeException("AI调用失败: " + e.getMessage(), e));
+                }
+
+                @Override
+                public void onResponse(Call call, Response response) {
+                    try (response) {
+                        permit.onResponse(response.code(), response.header("Retry-After"));
+                        String content = parseChatResponse(response, permit);
+                        log.info("[AI][异步对话]-AI回复成功，内容长度={}", content.length());
+                        future.complete(content);
+                    } catch (IOException e) {
+                        permit.onFailure(e);
+                        log.error("[AI][异步对话]-解析响应异常", e);
+                        future.completeExceptionally(new RuntimeException("AI调用失败: " + e.getMessage(), e));
+                    } catch (RuntimeException e) {
+                        permit.onFailure(e);
+                        future.completeExceptionally(e);
+                    } finally {
+                        rateLimiter.release(permit);
+                    }
+                }
+            });
+            if (future.isCompletedExceptionally()) {
+                call.cancel();
+            }
+        });
+
+        // 调用方取消Future或使其超时完成时，排队中的请求离开队列，已发出的HTTP请求同步取消以释放连接
+        future.whenComplete((result, error) -> {
+            if (Objects.isNull(error)) {
+                return;
+            }
+            permitFuture.cancel(true);
+            Call call = callRef.get();
+            if (Objects.nonNull(call)) {
+                call.cancel();
+            }
+        });
+        return future;
+    }
 
-            // 发送HTTP请求
-            OkHttpClient client = new OkHttpClient.Builder()
-                    .connectTimeout(aiConfig.getTimeout(), TimeUnit.MILLISECONDS)
-                    .readTimeout(aiConfig.getTimeout(), TimeUnit.MILLISECONDS)
-                    .build();
+    /**
+     * 调用AI进行流式对话
+     *
+     * @param messages 对话消息列表
+     * @param sessionId 会话ID（用于会话间公平排队）
+     * @param cancellation 取消句柄
+     * @param callback 回调函数
+     */
+    @Override
+    public void chatStream(List<Map<String, String>> messages, String sessionId, StreamCancellation cancellation,
+                           StreamCallback callback) {
+        log.info("[AI][流式对话]-开始调用AI，消息数量={}", messages.size());
 
-            Request request = new Request.Builder()
-                    .url(aiConfig.getApiUrl() + "/chat/completions")
-                    .addHeader("Authorization", "Bearer " + aiConfig.getApiKey())
-                    .addHeader("Content-Type", "application/json")
-                    .post(RequestBody.create(requestJson, JSON))
-                    .build();
+        AiRateLimiter.Permit permit = null;
+        try {
+            // 发送HTTP请求（复用共享客户端的连接池）
+            Request request = buildChatRequest(messages, true);
+
+            // 排队等待放行（流式对话运行在虚拟线程上，可直接阻塞等待）
+            int inputTokens = estimateInputTokens(messages);
+            permit = rateLimiter.acquire(AiRateLimiter.Priority.INTERACTIVE, sessionKey(sessionId),
+                    reserveTokens(messages), aiConfig.getQueueTimeoutMs());
+            int outputTokens = 0;
+
+            // 排队期间客户端已断开则不再发起请求；请求发出后客户端断开时取消请求，释放连接和许可
+            if (cancellation.isCancelled()) {
+                callback.onError(new RuntimeException("流式对话已取消"));
+                return;
+            }
+            Call call = aiHttpClient.newCall(request);
+            cancellation.onCancel(call::cancel);
 
-            try (Response response = client.newCall(request).execute()) {
+            try (Response response = call.execute()) {
+                permit.onResponse(response.code(), response.header("Retry-After"));
                 if (!response.isSuccessful()) {
                     callback.onError(new RuntimeException("AI API调用失败: " + response.code()));
                     return;
@@ -166,40 +328,238 @@ public class AiServiceImpl implements AiService {
                     return;
                 }
 
-                Scanner scanner = new Scanner(body.byteStream());
-                while (scanner.hasNextLine()) {
-                    String line = scanner.nextLine();
-                    if (line.startsWith("data: ")) {
-                        String data = line.substring(6);
-                        if ("[DONE]".equals(data)) {
-                            callback.onComplete();
-                            break;
-                        }
-
-                        try {
-                            JsonNode dataNode = objectMapper.readTree(data);
-                            String content = dataNode.path("choices")
-                                    .get(0)
-                                    .path("delta")
-                                    .path("content")
-                                    .asText();
-
-                            if (StringUtils.isNotBlank(content)) {
-                                callback.onChunk(content);
-                            }
-                        } catch (Exception e) {
-                            log.warn("[AI][流式对话]-解析数据失败: {}", data);
-                        }
+                // 直接从okio缓冲源按行读取，流式解析每个数据块
+                BufferedSource source = body.source();
+                JsonFactory jsonFactory = objectMapper.getFactory();
+                boolean completed = false;
+                String line;
+                while ((line = source.readUtf8Line()) != null) {
+                    String data = ChatStreamParser.extractData(line);
+                    if (data == null) {
+                        continue;
+                    }
+                    if (ChatStreamParser.DONE_MARKER.equals(data)) {
+                        completed = true;
+                        break;
+                    }
+
+                    String content;
+                    try {
+                        content = ChatStreamParser.readDeltaContent(jsonFactory, data);
+                    } catch (IOException e) {
+                        log.warn("[AI][流式对话]-解析数据失败: {}", data);
+                        continue;
+                    }
+
+                    // 空白内容（空格、换行）也是有效输出；回调异常（如客户端断开）向上抛出以中止读取
+                    if (StringUtils.isNotEmpty(content)) {
+                        outputTokens += TokenEstimator.estimate(content);
+                        callback.onChunk(content);
                     }
                 }
+                permit.setUsedTokens(inputTokens + outputTokens);
 
+                // 服务端未发送[DONE]直接关闭连接时同样视为结束
+                if (!completed) {
+                    log.warn("[AI][流式对话]-未收到结束标记，响应流已关闭");
+                }
+                callback.onComplete();
                 log.info("[AI][流式对话]-流式对话完成");
             }
 
         } catch (Exception e) {
+            if (cancellation.isCancelled()) {
+                // 客户端断开或超时导致的取消，不视为接口异常
+                log.info("[AI][流式对话]-流式对话已取消");
+                callback.onError(e);
+                return;
+            }
+            if (Objects.nonNull(permit)) {
+                permit.onFailure(e);
+            }
             log.error("[AI][流式对话]-AI调用异常", e);
             callback.onError(e);
+        } finally {
+            if (Objects.nonNull(permit)) {
+                rateLimiter.release(permit);
+            }
+        }
+    }
+
+    /**
+     * 获取AI HTTP客户端连接池统计
+     *
+     * @return 连接池统计信息
+     */
+    @Override
+    public AiClientStatsDTO getClientStats() {
+        ConnectionPool pool = aiHttpClient.connectionPool();
+        Dispatcher dispatcher = aiHttpClient.dispatcher();
+
+        long acquired = aiHttpEventListener.getConnectionAcquiredCount();
+        long connects = aiHttpEventListener.getConnectCount();
+        double reuseRate = acquired > 0 ? Math.max(0D, 1D - (double) connects / acquired) : 0D;
+
+        return AiClientStatsDTO.builder()
+                .connectionCount(pool.connectionCount())
+                .idleConnectionCount(pool.idleConnectionCount())
+                .runningCallsCount(dispatcher.runningCallsCount())
+                .queuedCallsCount(dispatcher.queuedCallsCount())
+                .totalCalls(aiHttpEventListener.getCallCount())
+                .totalConnects(connects)
+                .totalConnectionsAcquired(acquired)
+                .totalFailedCalls(aiHttpEventListener.getFailedCount())
+                .connectionReuseRate(reuseRate)
+                .concurrencyLimit(rateLimiter.getLimit())
+                .inFlightRequests(rateLimiter.getInFlight())
+                .waitingRequests(rateLimiter.getQueueLength())
+                .rateLimitedCount(rateLimiter.getRateLimitedCount())
+                .queueTimeoutCount(rateLimiter.getQueueTimeoutCount())
+                .interactiveQueue(toQueueStatsDTO(rateLimiter.getQueueStats(AiRateLimiter.Priority.INTERACTIVE)))
+                .bulkQueue(toQueueStatsDTO(rateLimiter.getQueueStats(AiRateLimiter.Priority.BULK)))
+                .build();
+    }
+
+    private AiClientStatsDTO.QueueStats toQueueStatsDTO(AiRateLimiter.QueueStats stats) {
+        return AiClientStatsDTO.QueueStats.builder()
+                .waitingRequests(stats.waiting())
+                .admittedRequests(stats.admitted())
+                .avgWaitMs(stats.avgWaitMs())
+                .maxWaitMs(stats.maxWaitMs())
+                .timeoutCount(stats.timeouts())
+                .build();
+    }
+
+    /**
+     * 构建对话请求
+     */
+    private Request buildChatRequest(List<Map<String, String>> messages, boolean stream) throws IOException {
+        return buildChatRequest(messages, stream, false);
+    }
+
+    /**
+     * 构建对话请求（可要求JSON格式输出）
+     */
+    private Request buildChatRequest(List<Map<String, String>> messages, boolean stream, boolean jsonOutput)
+            throws IOException {
+        // 构建请求体
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("model", aiConfig.getModel());
+        requestBody.put("messages", messages);
+        requestBody.put("temperature", 0.7);
+        if (stream) {
+            requestBody.put("stream", true);
+        }
+        if (jsonOutput && Boolean.TRUE.equals(aiConfig.getJsonResponseFormat())) {
+            requestBody.put("response_format", Map.of("type", "json_object"));
+        }
+
+        String requestJson = objectMapper.writeValueAsString(requestBody);
+        log.debug("[AI][对话]-请求参数={}", requestJson);
+
+        return new Request.Builder()
+                .url(aiConfig.getApiUrl() + "/chat/completions")
+                .addHeader("Authorization", "Bearer " + aiConfig.getApiKey())
+                .addHeader("Content-Type", "application/json")
+                .post(RequestBody.create(requestJson, JSON))
+                .build();
+    }
+
+    /**
+     * 公平排队的会话标识
+     */
+    private String sessionKey(String sessionId) {
+        return StringUtils.isNotBlank(sessionId) ? sessionId : DEFAULT_SESSION_KEY;
+    }
+
+    /**
+     * 排队超时时间（批量请求让位于交互请求，允许等待更久）
+     */
+    private long queueTimeoutMs(AiRateLimiter.Priority priority) {
+        return priority == AiRateLimiter.Priority.BULK ? aiConfig.getBulkQueueTimeoutMs() : aiConfig.getQueueTimeoutMs();
+    }
+
+    /**
+     * 请求放行时预留的token数（输入token数，并为输出预留同等额度，请求结束后按实际用量校正）
+     */
+    private int reserveTokens(List<Map<String, String>> messages) {
+        return estimateInputTokens(messages) * 2;
+    }
+
+    /**
+     * 估算输入token数
+     */
+    private int estimateInputTokens(List<Map<String, String>> messages) {
+        int inputTokens = 0;
+        for (Map<String, String> message : messages) {
+            inputTokens += MESSAGE_OVERHEAD_TOKENS + TokenEstimator.estimate(message.get("content"));
+        }
+        return inputTokens;
+    }
+
+    /**
+     * 解析对话响应，返回AI回复内容，并记录实际消耗的token数
+     */
+    private String parseChatResponse(Response response, AiRateLimiter.Permit permit) throws IOException {
+        if (!response.isSuccessful()) {
+            String errorBody = response.body() != null ? response.body().string() : "";
+            log.error("[AI][对话]-API调用失败，状态码={}，错误信息={}", response.code(), errorBody);
+            throw new RuntimeException("AI API调用失败: " + response.code());
+        }
+
+        String responseBody = response.body().string();
+        log.debug("[AI][对话]-响应结果={}", responseBody);
+
+        // 解析响应
+        JsonNode rootNode = objectMapper.readTree(responseBody);
+        JsonNode totalTokens = rootNode.path("usage").path("total_tokens");
+        if (totalTokens.canConvertToInt()) {
+            permit.setUsedTokens(totalTokens.asInt());
+        }
+        return rootNode.path("choices")
+                .get(0)
+                .path("message")
+                .path("content")
+                .asText();
+    }
+
+    /**
+     * 构建翻译消息列表
+     */
+    private List<Map<String, String>> buildTranslateMessages(String text, String sourceLang, String targetLang, String style) {
+        // 构建翻译提示词
+        String prompt = buildTranslatePrompt(text, sourceLang, targetLang, style);
+
+        List<Map<String, String>> messages = new ArrayList<>();
+        messages.add(Map.of("role", "system", "content", "你是一个专业的翻译助手，擅长各种语言的翻译工作。"));
+        messages.add(Map.of("role", "user", "content", prompt));
+        return messages;
+    }
+
+    /**
+     * 构建批量翻译消息列表（片段以JSON数组传入，避免原文中的换行和引号干扰编号）
+     */
+    private List<Map<String, String>> buildBatchTranslateMessages(List<String> texts, String sourceLang,
+                                                                  String targetLang, String style) throws IOException {
+        List<Map<String, Object>> segments = new ArrayList<>(texts.size());
+        for (int i = 0; i < texts.size(); i++) {
+            segments.add(Map.of(TranslationBatchParser.ID_FIELD, i + 1, TranslationBatchParser.TEXT_FIELD, texts.get(i)));
         }
+
+        StringBuilder prompt = new StringBuilder();
+        prompt.append("请将下面JSON数组中每个片段的text从")
+                .append(StringUtils.isNotBlank(sourceLang) ? sourceLang : "原语言")
+                .append("翻译成").append(targetLang).append("。\n\n");
+        appendStyleRequirement(prompt, style);
+        prompt.append("每个片段单独翻译，保留片段内的段落划分，不要合并或拆分片段。\n")
+                .append("只输出JSON对象，格式为：{\"segments\":[{\"id\":1,\"translation\":\"译文\"}]}，")
+                .append("id与输入片段一致，必须包含全部").append(texts.size()).append("个片段。\n\n");
+        prompt.append("待翻译片段：\n").append(objectMapper.writeValueAsString(segments));
+
+        List<Map<String, String>> messages = new ArrayList<>();
+        messages.add(Map.of("role", "system", "content", "你是一个专业的翻译助手，擅长各种语言的翻译工作。"));
+        messages.add(Map.of("role", "user", "content", prompt.toString()));
+        return messages;
     }
 
     /**
@@ -217,6 +577,20 @@ public class AiServiceImpl implements AiService {
         prompt.append("翻译成").append(targetLang).append("。\n\n");
 
         // 根据翻译风格添加要求
+        appendStyleRequirement(prompt, style);
+
+        // 文本可能包含多个段落
+        prompt.append("保留原文的段落划分，只输出译文，不要添加解释。\n\n");
+
+        prompt.append("待翻译文本：\n").append(text);
+
+        return prompt.toString();
+    }
+
+    /**
+     * 根据翻译风格添加要求
+     */
+    private void appendStyleRequirement(StringBuilder prompt, String style) {
         if ("accurate".equals(style)) {
             prompt.append("翻译要求：准确、专业，适用于技术文档。\n\n");
         } else if ("fluent".equals(style)) {
@@ -224,9 +598,5 @@ public class AiServiceImpl implements AiService {
         } else if ("concise".equals(style)) {
             prompt.append("翻译要求：简洁、精炼，适用于快速阅读。\n\n");
         }
-
-        prompt.append("待翻译文本：\n").append(text);
-
-        return prompt.toString();
     }
 }
@@ -0,0 +1,336 @@
+package com.docagent.domain.service.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * 文档分块的BM25倒排索引（不可变，可安全地被多个线程并发检索）
+ * 英文和数字按单词切分，中日韩文字按二元组切分
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+final class Bm25Index {
+
+    /**
+     * 索引文件魔数与版本
+     */
+    private static final int MAGIC = 0x424D3235;
+    private static final int VERSION = 1;
+
+    private static final double K1 = 1.2D;
+    private static final double B = 0.75D;
+
+    /**
+     * 分块内容
+     */
+    private final String[] chunks;
+
+    /**
+     * 分块所在页码（未知时为0）
+     */
+    private final int[] pageNumbers;
+
+    /**
+     * 分块词元数
+     */
+    private final int[] chunkLengths;
+
+    /**
+     * 倒排表：词元 -> 分块下标及词频
+     */
+    private final Map<String, Posting> postings;
+
+    private final double averageLength;
+
+    private Bm25Index(String[] chunks, int[] pageNumbers, int[] chunkLengths, Map<String, Posting> postings) {
+        this.chunks = chunks;
+        this.pageNumbers = pageNumbers;
+        this.chunkLengths = chunkLengths;
+        this.postings = postings;
+        long totalLength = 0;
+        for (int length : chunkLengths) {
+            totalLength += length;
+        }
+        this.averageLength = chunks.length > 0 ? Math.max(1D, (double) totalLength / chunks.length) : 1D;
+    }
+
+    /**
+     * 构建索引
+     *
+     * @param chunks 分块内容
+     * @param pageNumbers 分块所在页码（未知时为0）
+     * @return 索引
+     */
+    static Bm25Index build(List<String> chunks, List<Integer> pageNumbers) {
+        int chunkCount = chunks.size();
+        int[] chunkLengths = new int[chunkCount];
+        Map<String, List<int[]>> builder = new HashMap<>();
+
+        for (int i = 0; i < chunkCount; i++) {
+            List<String> tokens = tokenize(chunks.get(i));
+            chunkLengths[i] = tokens.size();
+            Map<String, Integer> termFrequencies = new HashMap<>();
+            for (String token : tokens) {
+                termFrequencies.merge(token, 1, Integer::sum);
+            }
+            int chunkIndex = i;
+            termFrequencies.forEach((term, frequency) ->
+                    builder.computeIfAbsent(term, key -> new ArrayList<>()).add(new int[]{chunkIndex, frequency}));
+        }
+
+        Map<String, Posting> postings = new HashMap<>(builder.size() * 4 / 3 + 1);
+        builder.forEach((term, entries) -> {
+            int[] chunkIds = new int[entries.size()];
+            int[] frequencies = new int[entries.size()];
+            for (int i = 0; i < entries.size(); i++) {
+                chunkIds[i] = entries.get(i)[0];
+                frequencies[i] = entries.get(i)[1];
+            }
+            postings.put(term, new Posting(chunkIds, frequencies));
+        });
+
+        return new Bm25Index(chunks.toArray(new String[0]),
+                pageNumbers.stream().mapToInt(Integer::intValue).toArray(), chunkLengths, postings);
+    }
+
+    /**
+     * 检索与查询最相关的分块
+     *
+     * @param query 查询文本
+     * @param topK 返回数量上限
+     * @return 命中的分块（按得分降序，同分按文档顺序）
+     */
+    List<Hit> search(String query, int topK) {
+        if (chunks.length == 0 || topK <= 0) {
+            return List.of();
+        }
+
+        float[] scores = new float[chunks.length];
+        Set<String> terms = new LinkedHashSet<>(tokenize(query));
+        for (String term : terms) {
+            Posting posting = postings.get(term);
+            if (posting == null) {
+                continue;
+            }
+            int documentFrequency = posting.chunkIds().length;
+            double idf = Math.log(1D + (chunks.length - documentFrequency + 0.5D) / (documentFrequency + 0.5D));
+            for (int i = 0; i < documentFrequency; i++) {
+                int chunkId = posting.chunkIds()[i];
+                int frequency = posting.frequencies()[i];
+                double norm = K1 * (1D - B + B * chunkLengths[chunkId] / averageLength);
+                scores[chunkId] += (float) (idf * frequency * (K1 + 1D) / (frequency + norm));
+            }
+        }
+
+        // 小顶堆保留得分最高的topK个分块，同分时靠前的分块优先（堆顶为得分最低、位置最靠后的分块）
+        PriorityQueue<Integer> heap = new PriorityQueue<>(topK + 1, (a, b) -> {
+            int compare = Float.compare(scores[a], scores[b]);
+            return compare != 0 ? compare : Integer.compare(b, a);
+        });
+        for (int i = 0; i < scores.length; i++) {
+            if (scores[i] <= 0F) {
+                continue;
+            }
+            if (heap.size() < topK) {
+                heap.offer(i);
+            } else if (scores[i] > scores[heap.peek()]) {
+                heap.poll();
+                heap.offer(i);
+            }
+        }
+
+        Hit[] hits = new Hit[heap.size()];
+        for (int i = hits.length - 1; i >= 0; i--) {
+            int chunkId = heap.poll();
+            hits[i] = new Hit(chunkId, pageNumbers[chunkId], chunks[chunkId], scores[chunkId]);
+        }
+        return Arrays.asList(hits);
+    }
+
+    /**
+     * 分块数量
+     */
+    int size() {
+        return chunks.length;
+    }
+
+    /**
+     * 获取分块内容
+     */
+    String chunkAt(int chunkIndex) {
+        return chunks[chunkIndex];
+    }
+
+    /**
+     * 获取分块所在页码（未知时为0）
+     */
+    int pageNumberAt(int chunkIndex) {
+        return pageNumbers[chunkIndex];
+    }
+
+    /**
+     * 全部分块内容（按文档顺序）
+     */
+    List<String> chunks() {
+        return Arrays.asList(chunks);
+    }
+
+    /**
+     * 写入索引文件（先写临时文件再原子替换）
+     *
+     * @param path 索引文件路径
+     */
+    void writeTo(Path path) throws IOException {
+        Path tempFile = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(chunks.length);
+            for (int i = 0; i < chunks.length; i++) {
+                output.writeInt(pageNumbers[i]);
+                output.writeInt(chunkLengths[i]);
+                writeString(output, chunks[i]);
+            }
+            output.writeInt(postings.size());
+            for (Map.Entry<String, Posting> entry : postings.entrySet()) {
+                writeString(output, entry.getKey());
+                int[] chunkIds = entry.getValue().chunkIds();
+                int[] frequencies = entry.getValue().frequencies();
+                output.writeInt(chunkIds.length);
+                for (int i = 0; i < chunkIds.length; i++) {
+                    output.writeInt(chunkIds[i]);
+                    output.writeInt(frequencies[i]);
+                }
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+        Files.move(tempFile, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * 读取索引文件
+     *
+     * @param path 索引文件路径
+     * @return 索引
+     */
+    static Bm25Index readFrom(Path path) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                throw new IOException("索引文件格式不兼容: " + path);
+            }
+            int chunkCount = input.readInt();
+            String[] chunks = new String[chunkCount];
+            int[] pageNumbers = new int[chunkCount];
+            int[] chunkLengths = new int[chunkCount];
+            for (int i = 0; i < chunkCount; i++) {
+                pageNumbers[i] = input.readInt();
+                chunkLengths[i] = input.readInt();
+                chunks[i] = readString(input);
+            }
+            int termCount = input.readInt();
+            Map<String, Posting> postings = new HashMap<>(termCount * 4 / 3 + 1);
+            for (int t = 0; t < termCount; t++) {
+                String term = readString(input);
+                int length = input.readInt();
+                int[] chunkIds = new int[length];
+                int[] frequencies = new int[length];
+                for (int i = 0; i < length; i++) {
+                    chunkIds[i] = input.readInt();
+                    frequencies[i] = input.readInt();
+                }
+                postings.put(term, new Posting(chunkIds, frequencies));
+            }
+            return new Bm25Index(chunks, pageNumbers, chunkLengths, postings);
+        }
+    }
+
+    /**
+     * 切分词元：英文和数字按单词（小写），中日韩文字按二元组，单字成段时保留单字
+     *
+     * @param text 文本
+     * @return 词元列表
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+
+        StringBuilder word = new StringBuilder();
+        int cjkStart = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            boolean cjk = TokenEstimator.isCjk(c);
+            boolean wordChar = !cjk && Character.isLetterOrDigit(c);
+
+            if (!wordChar && word.length() > 0) {
+                tokens.add(word.toString());
+                word.setLength(0);
+            }
+            if (!cjk && cjkStart >= 0) {
+                addCjkTokens(text, cjkStart, i, tokens);
+                cjkStart = -1;
+            }
+
+            if (wordChar) {
+                word.append(Character.toLowerCase(c));
+            } else if (cjk && cjkStart < 0) {
+                cjkStart = i;
+            }
+        }
+        return tokens;
+    }
+
+    private static void addCjkTokens(String text, int start, int end, List<String> tokens) {
+        if (end - start == 1) {
+            tokens.add(text.substring(start, end));
+            return;
+        }
+        for (int i = start; i < end - 1; i++) {
+            tokens.add(text.substring(i, i + 2));
+        }
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 倒排表项
+     */
+    private record Posting(int[] chunkIds, int[] frequencies) {
+    }
+
+    /**
+     * 检索命中
+     */
+    record Hit(int chunkIndex, int pageNumber, String content, float score) {
+    }
+}
@@ -0,0 +1,309 @@
+package com.docagent.domain.service.impl;
+
+import com.docagent.domain.entity.ChatHistory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * 对话窗口缓存：按(文档ID, 会话ID)保存最近若干条消息的环形缓冲
+ * 写入消息时同步追加，按会话数和总字节数限制容量，超出时淘汰最久未使用的会话；未命中时由调用方从数据库加载
+ * 缓存只反映本节点的写入：其他节点的写入通过失效广播调用invalidate，广播丢失时依靠窗口过期时间兜底
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+final class ChatHistoryWindowCache {
+
+    /**
+     * 单条消息的固定开销估算（对象头、字段、时间等）
+     */
+    private static final long ENTRY_OVERHEAD_BYTES = 96L;
+
+    private final int windowSize;
+    private final int maxWindows;
+    private final long maxBytes;
+
+    /**
+     * 窗口从数据库加载后的最长使用时间（毫秒），不大于0表示不过期
+     */
+    private final long maxAgeMillis;
+
+    private final LongSupplier clock;
+
+    /**
+     * 按访问顺序排列的窗口（最久未使用的在前）
+     */
+    private final LinkedHashMap<WindowKey, Window> windows = new LinkedHashMap<>(16, 0.75F, true);
+
+    private long totalBytes;
+
+    /**
+     * 正在从数据库加载的会话，记录加载期间该会话的写入/清空次数，用于丢弃与之并发的加载结果
+     * 只保留有加载进行中的会话，加载结束即移除
+     */
+    private final Map<WindowKey, LoadState> loading = new HashMap<>();
+
+    ChatHistoryWindowCache(int windowSize, int maxWindows, long maxBytes, long maxAgeMillis) {
+        this(windowSize, maxWindows, maxBytes, maxAgeMillis, System::currentTimeMillis);
+    }
+
+    ChatHistoryWindowCache(int windowSize, int maxWindows, long maxBytes, long maxAgeMillis, LongSupplier clock) {
+        this.windowSize = windowSize;
+        this.maxWindows = maxWindows;
+        this.maxBytes = maxBytes;
+        this.maxAgeMillis = maxAgeMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * 获取最近的消息（从旧到新），未命中时加载并放入缓存
+     *
+     * @param documentId 文档ID
+     * @param sessionId 会话ID
+     * @param limit 返回数量上限（不超过窗口大小）
+     * @param loader 从数据库加载最近windowSize条消息（从旧到新）
+     * @return 消息列表
+     */
+    List<ChatHistory> getRecent(Long documentId, String sessionId, int limit, Supplier<List<ChatHistory>> loader) {
+        Window window = getOrLoad(new WindowKey(documentId, sessionId), loader);
+        synchronized (window) {
+            int skip = Math.max(0, window.messages.size() - limit);
+            List<ChatHistory> result = new ArrayList<>(window.messages.size() - skip);
+            Iterator<ChatHistory> iterator = window.messages.iterator();
+            for (int i = 0; iterator.hasNext(); i++) {
+                ChatHistory message = iterator.next();
+                if (i >= skip) {
+                    result.add(message);
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 获取完整的对话历史（窗口中已包含全部消息时），否则返回null
+     *
+     * @param documentId 文档ID
+     * @param sessionId 会话ID
+     * @return 消息列表（从旧到新）或null
+     */
+    List<ChatHistory> getAllIfComplete(Long documentId, String sessionId) {
+        Window window;
+        synchronized (this) {
+            window = getUnexpired(new WindowKey(documentId, sessionId));
+        }
+        if (Objects.isNull(window)) {
+            return null;
+        }
+        synchronized (window) {
+            return window.complete ? new ArrayList<>(window.messages) : null;
+        }
+    }
+
+    /**
+     * 追加一条已保存的消息（会话未缓存时只记录，下次读取从数据库加载）
+     *
+     * @param message 消息
+     */
+    void append(ChatHistory message) {
+        WindowKey key = new WindowKey(message.getDocumentId(), message.getSessionId());
+        long entryBytes = estimateBytes(message);
+        synchronized (this) {
+            Window window = getUnexpired(key);
+            if (Objects.isNull(window)) {
+                markLoadsStale(key);
+                return;
+            }
+            long delta;
+            synchronized (window) {
+                window.messages.addLast(message);
+                delta = entryBytes;
+                if (window.messages.size() > windowSize) {
+                    delta -= estimateBytes(window.messages.removeFirst());
+                    window.complete = false;
+                }
+                window.bytes += delta;
+            }
+            totalBytes += delta;
+            evictIfNecessary();
+        }
+    }
+
+    /**
+     * 移除会话窗口（清空对话历史后调用）
+     *
+     * @param documentId 文档ID
+     * @param sessionId 会话ID
+     */
+    synchronized void invalidate(Long documentId, String sessionId) {
+        WindowKey key = new WindowKey(documentId, sessionId);
+        Window window = windows.remove(key);
+        if (Objects.nonNull(window)) {
+            totalBytes -= window.bytes;
+        }
+        markLoadsStale(key);
+    }
+
+    /**
+     * 获取窗口，未命中时在锁外加载（加载期间该会话有写入或清空时，结果只用于本次读取，不放入缓存）
+     */
+    private Window getOrLoad(WindowKey key, Supplier<List<ChatHistory>> loader) {
+        LoadState state;
+        long versionBeforeLoad;
+        synchronized (this) {
+            Window window = getUnexpired(key);
+            if (Objects.nonNull(window)) {
+                return window;
+            }
+            state = loading.computeIfAbsent(key, ignored -> new LoadState());
+            state.loaders++;
+            versionBeforeLoad = state.version;
+        }
+
+        List<ChatHistory> loaded;
+        try {
+            loaded = loader.get();
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                finishLoad(key, state);
+            }
+            throw e;
+        }
+        Window window = new Window(clock.getAsLong());
+        int skip = Math.max(0, loaded.size() - windowSize);
+        for (int i = skip; i < loaded.size(); i++) {
+            window.messages.addLast(loaded.get(i));
+            window.bytes += estimateBytes(loaded.get(i));
+        }
+        // 加载数量不足窗口大小，说明窗口中已是全部历史
+        window.complete = loaded.size() < windowSize;
+
+        synchronized (this) {
+            finishLoad(key, state);
+            Window existing = getUnexpired(key);
+            if (Objects.nonNull(existing)) {
+                return existing;
+            }
+            if (state.version != versionBeforeLoad) {
+                return window;
+            }
+            windows.put(key, window);
+            totalBytes += window.bytes;
+            evictIfNecessary();
+            return window;
+        }
+    }
+
+    /**
+     * 会话有写入/清空时，使该会话进行中的加载结果失效（调用方需持有本对象的锁）
+     */
+    private void markLoadsStale(WindowKey key) {
+        LoadState state = loading.get(key);
+        if (Objects.nonNull(state)) {
+            state.version++;
+        }
+    }
+
+    /**
+     * 加载结束，会话没有其他进行中的加载时移除其状态（调用方需持有本对象的锁）
+     */
+    private void finishLoad(WindowKey key, LoadState state) {
+        if (--state.loaders <= 0) {
+            loading.remove(key);
+        }
+    }
+
+    /**
+     * 获取未过期的窗口，已过期的窗口直接移除（调用方需持有本对象的锁）
+     */
+    private Window getUnexpired(WindowKey key) {
+        Window window = windows.get(key);
+        if (Objects.nonNull(window) && maxAgeMillis > 0 && clock.getAsLong() - window.loadedAt >= maxAgeMillis) {
+            windows.remove(key);
+            totalBytes -= window.bytes;
+            return null;
+        }
+        return window;
+    }
+
+    /**
+     * 超出会话数或总字节数时淘汰最久未使用的窗口（至少保留最近使用的一个）
+     */
+    private void evictIfNecessary() {
+        Iterator<Map.Entry<WindowKey, Window>> iterator = windows.entrySet().iterator();
+        while ((windows.size() > maxWindows || totalBytes > maxBytes) && windows.size() > 1 && iterator.hasNext()) {
+            totalBytes -= iterator.next().getValue().bytes;
+            iterator.remove();
+        }
+    }
+
+    /**
+     * 估算消息占用的字节数
+     */
+    private static long estimateBytes(ChatHistory message) {
+        long bytes = ENTRY_OVERHEAD_BYTES;
+        if (Objects.nonNull(message.getContent())) {
+            bytes += 2L * message.getContent().length();
+        }
+        if (Objects.nonNull(message.getSelectedText())) {
+            bytes += 2L * message.getSelectedText().length();
+        }
+        return bytes;
+    }
+
+    /**
+     * 缓存键
+     */
+    private record WindowKey(Long documentId, String sessionId) {
+    }
+
+    /**
+     * 会话的加载状态
+     */
+    private static final class LoadState {
+
+        /**
+         * 进行中的加载数
+         */
+        private int loaders;
+
+        /**
+         * 加载期间的写入/清空次数
+         */
+        private long version;
+    }
+
+    /**
+     * 会话窗口
+     */
+    private static final class Window {
+
+        private final ArrayDeque<ChatHistory> messages = new ArrayDeque<>();
+
+        /**
+         * 从数据库加载的时间
+         */
+        private final long loadedAt;
+
+        private long bytes;
+
+        /**
+         * 是否包含该会话的全部历史消息
+         */
+        private boolean complete;
+
+        private Window(long loadedAt) {
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -3,20 +3,32 @@ package com.docagent.domain.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.docagent.domain.config.ChatConfig;
+import com.docagent.domain.dto.RetrievedChunk;
 import com.docagent.domain.entity.ChatHistory;
 import com.docagent.domain.entity.Document;
 import com.docagent.domain.repository.mysql.ChatHistoryMapper;
 import com.docagent.domain.service.AiService;
 import com.docagent.domain.service.ChatService;
+import com.docagent.domain.service.DocumentIndexService;
 import com.docagent.domain.service.DocumentService;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * 对话服务实现类
@@ -30,11 +42,59 @@ import java.util.*;
 @RequiredArgsConstructor
 public class ChatServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatHistory> implements ChatService {
 
+    /**
+     * 系统提示词中携带的文档内容长度
+     */
+    private static final int CONTEXT_TEXT_LENGTH = 2000;
+
+    /**
+     * 构建上下文携带的历史消息条数
+     */
+    private static final int CONTEXT_HISTORY_SIZE = 10;
+
     private final DocumentService documentService;
     private final AiService aiService;
+    private final ExecutorService chatStreamExecutor;
+    private final DocumentIndexService documentIndexService;
+    private final ChatConfig chatConfig;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+    /**
+     * 本节点标识（忽略自己发出的失效广播，本节点的写入已直接追加到窗口）
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    /**
+     * 最近对话窗口缓存
+     */
+    private ChatHistoryWindowCache historyCache;
+
+    /**
+     * 失效广播的Redis熔断器（Redis不可用时不让每次写入都等待命令超时）
+     */
+    private RedisCircuitBreaker historySyncBreaker;
+
+    @PostConstruct
+    public void init() {
+        historySyncBreaker = new RedisCircuitBreaker(TimeUnit.SECONDS.toMillis(chatConfig.getHistorySyncOpenSeconds()));
+        historyCache = new ChatHistoryWindowCache(
+                Math.max(chatConfig.getHistoryWindowSize(), CONTEXT_HISTORY_SIZE),
+                chatConfig.getHistoryCacheMaxSessions(),
+                chatConfig.getHistoryCacheMaxMb() * 1024L * 1024L,
+                chatConfig.getHistoryCacheExpireSeconds() * 1000L);
+
+        // 订阅其他节点的对话写入/清空广播
+        if (Boolean.TRUE.equals(chatConfig.getHistoryCacheSyncEnabled())) {
+            redisMessageListenerContainer.addMessageListener(
+                    (message, pattern) -> onHistoryInvalidation(new String(message.getBody(), StandardCharsets.UTF_8)),
+                    new ChannelTopic(chatConfig.getHistoryInvalidationChannel()));
+        }
+    }
 
     /**
      * 发送对话消息
+     * 不在事务中等待AI回复：用户消息和AI回复各自单独提交，调用AI期间不占用数据库连接
      *
      * @param documentId 文档ID
      * @param message 用户消息
@@ -43,45 +103,118 @@ public class ChatServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatHistory>
      * @return AI回复内容
      */
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public String sendMessage(Long documentId, String message, String selectedText, String sessionId) {
         log.info("[对话][发送]-用户发送消息，文档ID={}，消息={}", documentId, message);
 
-        // 1. 验证文档权限
-        Document document = documentService.getByIdAndSessionId(documentId, sessionId);
+        // 1. 验证文档权限（需已解析完成）
+        Document document = documentService.getReadyDocument(documentId, sessionId);
         if (Objects.isNull(document)) {
             throw new RuntimeException("文档不存在或无权限访问");
         }
 
         // 2. 保存用户消息
-        ChatHistory userMessage = new ChatHistory();
-        userMessage.setDocumentId(documentId);
-        userMessage.setSessionId(sessionId);
-        userMessage.setRole("user");
-        userMessage.setContent(message);
-        userMessage.setSelectedText(selectedText);
-        userMessage.setCreateTime(LocalDateTime.now());
-        save(userMessage);
+        saveMessage(documentId, sessionId, "user", message, selectedText);
 
         // 3. 构建上下文消息列表
         List<Map<String, String>> messages = buildContextMessages(documentId, sessionId, document, selectedText, message);
 
-        // 4. 调用AI获取回复
-        String aiReply = aiService.chat(messages);
+        // 4. 调用AI获取回复（不持有数据库连接）
+        String aiReply = aiService.chat(messages, sessionId);
 
         // 5. 保存AI回复
-        ChatHistory assistantMessage = new ChatHistory();
-        assistantMessage.setDocumentId(documentId);
-        assistantMessage.setSessionId(sessionId);
-        assistantMessage.setRole("assistant");
-        assistantMessage.setContent(aiReply);
-        assistantMessage.setCreateTime(LocalDateTime.now());
-        save(assistantMessage);
+        saveMessage(documentId, sessionId, "assistant", aiReply, null);
 
         log.info("[对话][完成]-AI回复成功，回复长度={}", aiReply.length());
         return aiReply;
     }
 
+    /**
+     * 异步发送对话消息（等待AI回复期间不占用调用线程）
+     *
+     * @param documentId 文档ID
+     * @param message 用户消息
+     * @param selectedText 选中的文本（可选）
+     * @param sessionId 会话ID
+     * @return AI回复内容的Future
+     */
+    @Override
+    public CompletableFuture<String> sendMessageAsync(Long documentId, String message, String selectedText, String sessionId) {
+        log.info("[对话][异步发送]-用户发送消息，文档ID={}，消息={}", documentId, message);
+
+        // 1-3. 在虚拟线程上验证文档、保存用户消息并构建上下文（查询数据库、加载历史、问题向量化），不占用Tomcat工作线程
+        return CompletableFuture.supplyAsync(() -> {
+            Document document = documentService.getReadyDocument(documentId, sessionId);
+            if (Objects.isNull(document)) {
+                throw new RuntimeException("文档不存在或无权限访问");
+            }
+            saveMessage(documentId, sessionId, "user", message, selectedText);
+            return buildContextMessages(documentId, sessionId, document, selectedText, message);
+        }, chatStreamExecutor).thenCompose(messages -> aiService.chatAsync(messages, sessionId)).thenApply(aiReply -> {
+            saveMessage(documentId, sessionId, "assistant", aiReply, null);
+            log.info("[对话][异步完成]-AI回复成功，回复长度={}", aiReply.length());
+            return aiReply;
+        });
+    }
+
+    /**
+     * 流式发送对话消息（后台逐块回调，结束或中断时保存已生成的回复）
+     *
+     * @param documentId 文档ID
+     * @param message 用户消息
+     * @param selectedText 选中的文本（可选）
+     * @param sessionId 会话ID
+     * @param callback 流式输出回调
+     * @return 取消句柄
+     */
+    @Override
+    public AiService.StreamCancellation sendMessageStream(Long documentId, String message, String selectedText,
+                                                          String sessionId, AiService.StreamCallback callback) {
+        log.info("[对话][流式发送]-用户发送消息，文档ID={}，消息={}", documentId, message);
+
+        // 1. 验证文档权限（需已解析完成）
+        Document document = documentService.getReadyDocument(documentId, sessionId);
+        if (Objects.isNull(document)) {
+            throw new RuntimeException("文档不存在或无权限访问");
+        }
+
+        // 2. 保存用户消息
+        saveMessage(documentId, sessionId, "user", message, selectedText);
+
+        // 3. 构建上下文消息列表
+        List<Map<String, String>> messages = buildContextMessages(documentId, sessionId, document, selectedText, message);
+
+        // 4. 后台流式调用AI，累积回复内容，结束或中断时保存
+        StringBuilder replyBuilder = new StringBuilder();
+        AtomicBoolean finished = new AtomicBoolean(false);
+        AiService.StreamCancellation cancellation = new AiService.StreamCancellation();
+        chatStreamExecutor.execute(() -> aiService.chatStream(messages, sessionId, cancellation, new AiService.StreamCallback() {
+            @Override
+            public void onChunk(String chunk) {
+                replyBuilder.append(chunk);
+                callback.onChunk(chunk);
+            }
+
+            @Override
+            public void onComplete() {
+                if (finished.compareAndSet(false, true)) {
+                    saveStreamReply(documentId, sessionId, replyBuilder);
+                    log.info("[对话][流式完成]-AI回复成功，回复长度={}", replyBuilder.length());
+                    callback.onComplete();
+                }
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                if (finished.compareAndSet(false, true)) {
+                    saveStreamReply(documentId, sessionId, replyBuilder);
+                    log.warn("[对话][流式中断]-流式对话中断，已生成长度={}，原因={}", replyBuilder.length(), error.getMessage());
+                    callback.onError(error);
+                }
+            }
+        }));
+        return cancellation;
+    }
+
     /**
      * 获取对话历史
      *
@@ -93,6 +226,13 @@ public class ChatServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatHistory>
     public List<ChatHistory> getChatHistory(Long documentId, String sessionId) {
         log.info("[对话][历史]-获取对话历史，文档ID={}，会话ID={}", documentId, sessionId);
 
+        // 窗口缓存中已是全部历史时直接返回
+        List<ChatHistory> cached = historyCache.getAllIfComplete(documentId, sessionId);
+        if (Objects.nonNull(cached)) {
+            log.info("[对话][历史]-命中缓存，消息数量={}", cached.size());
+            return cached;
+        }
+
         LambdaQueryWrapper<ChatHistory> wrapper = Wrappers.lambdaQuery(ChatHistory.class)
                 .eq(ChatHistory::getDocumentId, documentId)
                 .eq(ChatHistory::getSessionId, sessionId)
@@ -111,7 +251,6 @@ public class ChatServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatHistory>
      * @param sessionId 会话ID
      */
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public void clearChatHistory(Long documentId, String sessionId) {
         log.info("[对话][清空]-清空对话历史，文档ID={}，会话ID={}", documentId, sessionId);
 
@@ -120,9 +259,70 @@ public class ChatServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatHistory>
                 .eq(ChatHistory::getSessionId, sessionId);
 
         remove(wrapper);
+        historyCache.invalidate(documentId, sessionId);
+        publishHistoryInvalidation(documentId, sessionId);
         log.info("[对话][清空]-清空成功");
     }
 
+    /**
+     * 广播对话窗口失效（其他节点移除该会话的窗口，下次读取从数据库加载）
+     */
+    private void publishHistoryInvalidation(Long documentId, String sessionId) {
+        if (!Boolean.TRUE.equals(chatConfig.getHistoryCacheSyncEnabled()) || !historySyncBreaker.allowRequest()) {
+            return;
+        }
+        try {
+            stringRedisTemplate.convertAndSend(chatConfig.getHistoryInvalidationChannel(),
+                    nodeId + ":" + documentId + ":" + sessionId);
+            historySyncBreaker.onSuccess();
+        } catch (RuntimeException e) {
+            historySyncBreaker.onFailure();
+            log.warn("[对话][窗口]-失效广播发送失败，熔断{}秒，文档ID={}，会话ID={}，原因={}",
+                    chatConfig.getHistorySyncOpenSeconds(), documentId, sessionId, e.getMessage());
+        }
+    }
+
+    /**
+     * 处理其他节点的失效广播，消息格式: 节点标识:文档ID:会话ID
+     */
+    private void onHistoryInvalidation(String message) {
+        String[] parts = message.split(":", 3);
+        if (parts.length != 3 || nodeId.equals(parts[0]) || !StringUtils.isNumeric(parts[1])) {
+            return;
+        }
+        historyCache.invalidate(Long.valueOf(parts[1]), parts[2]);
+    }
+
+    /**
+     * 保存流式对话已生成的回复（为空时不保存）
+     */
+    private void saveStreamReply(Long documentId, String sessionId, StringBuilder replyBuilder) {
+        if (replyBuilder.isEmpty()) {
+            return;
+        }
+        try {
+            saveMessage(documentId, sessionId, "assistant", replyBuilder.toString(), null);
+        } catch (Exception e) {
+            log.error("[对话][流式保存]-保存AI回复失败，文档ID={}", documentId, e);
+        }
+    }
+
+    /**
+     * 保存一条对话消息
+     */
+    private void saveMessage(Long documentId, String sessionId, String role, String content, String selectedText) {
+        ChatHistory chatHistory = new ChatHistory();
+        chatHistory.setDocumentId(documentId);
+        chatHistory.setSessionId(sessionId);
+        chatHistory.setRole(role);
+        chatHistory.setContent(content);
+        chatHistory.setSelectedText(selectedText);
+        chatHistory.setCreateTime(LocalDateTime.now());
+        save(chatHistory);
+        historyCache.append(chatHistory);
+        publishHistoryInvalidation(documentId, sessionId);
+    }
+
     /**
      * 构建上下文消息列表
      */
@@ -136,20 +336,12 @@ public class ChatServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatHistory>
         List<Map<String, String>> messages = new ArrayList<>();
 
         // 1. 系统提示词
-        String systemPrompt = buildSystemPrompt(document, selectedText);
+        String systemPrompt = buildSystemPrompt(document, selectedText, userMessage);
         messages.add(Map.of("role", "system", "content", systemPrompt));
 
-        // 2. 获取历史对话（最近10条）
-        LambdaQueryWrapper<ChatHistory> wrapper = Wrappers.lambdaQuery(ChatHistory.class)
-                .eq(ChatHistory::getDocumentId, documentId)
-                .eq(ChatHistory::getSessionId, sessionId)
-                .orderByDesc(ChatHistory::getCreateTime)
-                .last("LIMIT 10");
-
-        List<ChatHistory> recentHistory = list(wrapper);
-
-        // 反转顺序（从旧到新）
-        Collections.reverse(recentHistory);
+        // 2. 获取历史对话（最近10条，优先读窗口缓存）
+        List<ChatHistory> recentHistory = historyCache.getRecent(documentId, sessionId, CONTEXT_HISTORY_SIZE,
+                () -> loadRecentHistory(documentId, sessionId));
 
         for (ChatHistory history : recentHistory) {
             messages.add(Map.of("role", history.getRole(), "content", history.getContent()));
@@ -161,10 +353,28 @@ public class ChatServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatHistory>
         return messages;
     }
 
+    /**
+     * 从数据库加载最近的对话消息（从旧到新）
+     */
+    private List<ChatHistory> loadRecentHistory(Long documentId, String sessionId) {
+        LambdaQueryWrapper<ChatHistory> wrapper = Wrappers.lambdaQuery(ChatHistory.class)
+                .eq(ChatHistory::getDocumentId, documentId)
+                .eq(ChatHistory::getSessionId, sessionId)
+                .orderByDesc(ChatHistory::getCreateTime)
+                .orderByDesc(ChatHistory::getId)
+                .last("LIMIT " + Math.max(chatConfig.getHistoryWindowSize(), CONTEXT_HISTORY_SIZE));
+
+        List<ChatHistory> recentHistory = list(wrapper);
+
+        // 反转顺序（从旧到新）
+        Collections.reverse(recentHistory);
+        return recentHistory;
+    }
+
     /**
      * 构建系统提示词
      */
-    private String buildSystemPrompt(Document document, String selectedText) {
+    private String buildSystemPrompt(Document document, String selectedText, String userMessage) {
         StringBuilder prompt = new StringBuilder();
 
         prompt.append("你是一个智能文档阅读助手，帮助用户理解和分析文档内容。\n\n");
@@ -180,16 +390,29 @@ public class ChatServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatHistory>
             prompt.append("```\n").append(selectedText).append("\n```\n\n");
             prompt.append("请主要针对用户选中的这段文本内容进行回答。\n\n");
         } else {
-            // 提供文档的部分内容作为上下文
-            String textContent = document.getTextContent();
-            if (StringUtils.isNotBlank(textContent)) {
-                // 只提供前2000字符作为上下文
-                String contextText = textContent.length() > 2000
-                        ? textContent.substring(0, 2000) + "..."
-                        : textContent;
-
-                prompt.append("文档内容摘要：\n");
-                prompt.append("```\n").append(contextText).append("\n```\n\n");
+            // 检索与问题相关的文档分块作为上下文
+            List<RetrievedChunk> chunks = documentIndexService.search(
+                    document.getContentId(), document.getFilePath(), userMessage);
+            if (!chunks.isEmpty()) {
+                prompt.append("与用户问题相关的文档内容：\n");
+                for (RetrievedChunk chunk : chunks) {
+                    if (Objects.nonNull(chunk.getPageNumber())) {
+                        prompt.append("[第").append(chunk.getPageNumber()).append("页]\n");
+                    }
+                    prompt.append("```\n").append(chunk.getContent()).append("\n```\n");
+                }
+                prompt.append("\n");
+            } else {
+                // 未检索到相关内容时，只提供前2000字符作为上下文（多读一个字符用于判断是否截断）
+                String textContent = documentService.getTextPrefix(document.getId(), CONTEXT_TEXT_LENGTH + 1);
+                if (StringUtils.isNotBlank(textContent)) {
+                    String contextText = textContent.length() > CONTEXT_TEXT_LENGTH
+                            ? textContent.substring(0, CONTEXT_TEXT_LENGTH) + "..."
+                            : textContent;
+
+                    prompt.append("文档内容摘要：\n");
+                    prompt.append("```\n").append(contextText).append("\n```\n\n");
+                }
             }
         }
 
@@ -0,0 +1,93 @@
+package com.docagent.domain.service.impl;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * OpenAI流式响应解析器
+ * 使用Jackson流式API直接定位 choices[0].delta.content，不构建JsonNode树
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+final class ChatStreamParser {
+
+    /**
+     * SSE数据行前缀
+     */
+    static final String DATA_PREFIX = "data:";
+
+    /**
+     * 流结束标记
+     */
+    static final String DONE_MARKER = "[DONE]";
+
+    private ChatStreamParser() {
+    }
+
+    /**
+     * 提取SSE数据行的负载（去掉"data:"前缀及其后的一个空格）
+     *
+     * @param line SSE行
+     * @return 负载内容，非数据行返回null
+     */
+    static String extractData(String line) {
+        if (!line.startsWith(DATA_PREFIX)) {
+            return null;
+        }
+        int start = DATA_PREFIX.length();
+        if (line.length() > start && line.charAt(start) == ' ') {
+            start++;
+        }
+        return line.substring(start);
+    }
+
+    /**
+     * 读取 choices[0].delta.content
+     *
+     * @param jsonFactory JSON工厂
+     * @param data 数据行负载
+     * @return 内容块，不存在时返回null
+     */
+    static String readDeltaContent(JsonFactory jsonFactory, String data) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(data)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            if (moveToField(parser, "choices") != JsonToken.START_ARRAY) {
+                return null;
+            }
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            if (moveToField(parser, "delta") != JsonToken.START_OBJECT) {
+                return null;
+            }
+            if (moveToField(parser, "content") != JsonToken.VALUE_STRING) {
+                return null;
+            }
+            return parser.getText();
+        }
+    }
+
+    /**
+     * 在当前对象内移动到指定字段的值，跳过其他字段的子结构
+     *
+     * @return 字段值的token，字段不存在时返回null
+     */
+    private static JsonToken moveToField(JsonParser parser, String fieldName) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            JsonToken valueToken = parser.nextToken();
+            if (fieldName.equals(name)) {
+                return valueToken;
+            }
+            parser.skipChildren();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,118 @@
+package com.docagent.domain.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 单个分段的翻译进度：分段拆回源段落后逐段收集译文（命中翻译记忆或AI翻译完成），全部到齐后拼成分段译文
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+final class ChunkTranslation {
+
+    /**
+     * 分段下标
+     */
+    private final int index;
+
+    private final TranslationChunker.Chunk chunk;
+
+    /**
+     * 分段的源段落
+     */
+    private final List<TranslationChunker.Chunk> paragraphs;
+
+    /**
+     * 源段落译文（可能由不同线程写入）
+     */
+    private final AtomicReferenceArray<String> translations;
+
+    /**
+     * 尚未获得译文的源段落数
+     */
+    private final AtomicInteger remaining;
+
+    ChunkTranslation(int index, TranslationChunker.Chunk chunk) {
+        this.index = index;
+        this.chunk = chunk;
+        this.paragraphs = TranslationChunker.paragraphs(chunk);
+        this.translations = new AtomicReferenceArray<>(paragraphs.size());
+        this.remaining = new AtomicInteger(paragraphs.size());
+    }
+
+    int index() {
+        return index;
+    }
+
+    TranslationChunker.Chunk chunk() {
+        return chunk;
+    }
+
+    List<TranslationChunker.Chunk> paragraphs() {
+        return paragraphs;
+    }
+
+    /**
+     * 记录源段落译文
+     *
+     * @param part 源段落下标
+     * @param translatedText 译文
+     * @return 是否所有源段落都已获得译文
+     */
+    boolean complete(int part, String translatedText) {
+        if (translations.getAndSet(part, translatedText) != null) {
+            return false;
+        }
+        return remaining.decrementAndGet() == 0;
+    }
+
+    /**
+     * 尚未获得译文的源段落（命中翻译记忆的段落已记录译文，不再翻译）
+     */
+    List<Part> pendingParts() {
+        List<Part> parts = new ArrayList<>();
+        for (int i = 0; i < paragraphs.size(); i++) {
+            if (translations.get(i) == null) {
+                parts.add(new Part(this, i));
+            }
+        }
+        return parts;
+    }
+
+    /**
+     * 拼接分段译文（段落之间保留原文的分隔空白）
+     */
+    String join() {
+        List<String> texts = new ArrayList<>(paragraphs.size());
+        for (int i = 0; i < paragraphs.size(); i++) {
+            texts.add(translations.get(i));
+        }
+        return TranslationChunker.join(chunk, paragraphs, texts);
+    }
+
+    /**
+     * 待翻译的源段落
+     *
+     * @param chunk 所属分段
+     * @param index 在分段中的源段落下标
+     */
+    record Part(ChunkTranslation chunk, int index) {
+
+        String content() {
+            return chunk.paragraphs().get(index).content();
+        }
+
+        /**
+         * 记录译文
+         *
+         * @return 是否所属分段的所有源段落都已获得译文
+         */
+        boolean complete(String translatedText) {
+            return chunk.complete(index, translatedText);
+        }
+    }
+}
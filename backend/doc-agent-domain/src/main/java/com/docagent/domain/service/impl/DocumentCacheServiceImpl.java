@@ -0,0 +1,385 @@
+package com.docagent.domain.service.impl;
+
+import com.docagent.domain.config.DocumentCacheConfig;
+import com.docagent.domain.dto.DocumentCacheStatsDTO;
+import com.docagent.domain.entity.Document;
+import com.docagent.domain.service.DocumentCacheService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 文档元数据缓存服务实现类（本地缓存 + Redis，按文档ID和会话ID缓存）
+ * 只缓存解析结束（已完成或失败）的文档，解析中的文档状态随时变化，每次查询数据库
+ * <p>
+ * 失效与查询并发时的旧值回填：查询期间发生过失效的结果不回填；失效后延迟再删除一次Redis并广播（延迟双删），
+ * 清除其他节点在失效前读到旧值、失效后才写入的缓存。
+ * Redis访问失败后熔断一段时间，期间直接跳过Redis；期间的失效记录下来，恢复后补删
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DocumentCacheServiceImpl implements DocumentCacheService {
+
+    private final DocumentCacheConfig documentCacheConfig;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+    private final ScheduledExecutorService cacheEvictScheduler;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    /**
+     * 本地缓存，key为 文档ID:会话ID
+     */
+    private Cache<String, Document> localCache;
+
+    private RedisCircuitBreaker redisCircuitBreaker;
+
+    /**
+     * 正在查询数据库的文档，记录查询期间该文档收到的失效次数（本地失效和其他节点广播），有变化时不回填缓存
+     * 只保留有查询进行中的文档，查询结束即移除；访问需持有该对象的锁
+     */
+    private final Map<Long, LoadState> loading = new HashMap<>();
+
+    /**
+     * Redis不可用期间未能删除的key，恢复后补删，补删前不从Redis读取
+     */
+    private final Set<String> pendingDeletes = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong lookupCount = new AtomicLong();
+    private final AtomicLong localHitCount = new AtomicLong();
+    private final AtomicLong redisHitCount = new AtomicLong();
+    private final AtomicLong evictCount = new AtomicLong();
+    private final AtomicLong redisErrorCount = new AtomicLong();
+    private final AtomicLong redisSkipCount = new AtomicLong();
+    private final AtomicLong staleLoadCount = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        localCache = Caffeine.newBuilder()
+                .maximumSize(documentCacheConfig.getLocalMaxSize())
+                .expireAfterWrite(Duration.ofSeconds(documentCacheConfig.getLocalExpireSeconds()))
+                .build();
+
+        redisCircuitBreaker = new RedisCircuitBreaker(TimeUnit.SECONDS.toMillis(documentCacheConfig.getRedisOpenSeconds()));
+
+        // 订阅其他节点的失效广播
+        if (isRedisEnabled()) {
+            redisMessageListenerContainer.addMessageListener(
+                    (message, pattern) -> invalidateLocal(new String(message.getBody(), StandardCharsets.UTF_8)),
+                    new ChannelTopic(documentCacheConfig.getInvalidationChannel()));
+        }
+    }
+
+    /**
+     * 查询文档（先查本地缓存，再查Redis，均未命中时调用loader查询数据库）
+     *
+     * @param documentId 文档ID
+     * @param sessionId 会话ID
+     * @param loader 数据库查询
+     * @return 文档，不存在时返回null
+     */
+    @Override
+    public Document get(Long documentId, String sessionId, Supplier<Document> loader) {
+        if (!Boolean.TRUE.equals(documentCacheConfig.getEnabled())) {
+            return loader.get();
+        }
+        lookupCount.incrementAndGet();
+        String key = buildKey(documentId, sessionId);
+
+        // 1. 本地缓存
+        Document document = localCache.getIfPresent(key);
+        if (Objects.nonNull(document)) {
+            localHitCount.incrementAndGet();
+            return document;
+        }
+
+        // 2. Redis
+        document = getFromRedis(key);
+        if (Objects.nonNull(document)) {
+            redisHitCount.incrementAndGet();
+            localCache.put(key, document);
+            return document;
+        }
+
+        // 3. 数据库（查询期间该文档发生失效时，结果可能已过时，不回填缓存）
+        LoadState state;
+        long versionBeforeLoad;
+        synchronized (loading) {
+            state = loading.computeIfAbsent(documentId, ignored -> new LoadState());
+            state.loaders++;
+            versionBeforeLoad = state.version;
+        }
+        boolean stale;
+        try {
+            document = loader.get();
+        } finally {
+            synchronized (loading) {
+                stale = state.version != versionBeforeLoad;
+                if (--state.loaders <= 0) {
+                    loading.remove(documentId);
+                }
+            }
+        }
+        if (Objects.nonNull(document) && !Objects.equals(document.getStatus(), 0)) {
+            if (stale) {
+                staleLoadCount.incrementAndGet();
+                return document;
+            }
+            localCache.put(key, document);
+            putToRedis(key, document);
+        }
+        return document;
+    }
+
+    /**
+     * 使文档缓存失效（并广播到其他节点），延迟一段时间后再删除并广播一次
+     *
+     * @param documentId 文档ID
+     * @param sessionId 会话ID
+     */
+    @Override
+    public void evict(Long documentId, String sessionId) {
+        String key = buildKey(documentId, sessionId);
+        invalidateLocal(key);
+        evictCount.incrementAndGet();
+        if (!isRedisEnabled()) {
+            return;
+        }
+        deleteFromRedis(key);
+        try {
+            cacheEvictScheduler.schedule(() -> deleteFromRedis(key),
+                    documentCacheConfig.getDoubleDeleteDelayMs(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            log.warn("[文档缓存][失效]-延迟删除提交失败，key={}", key);
+        }
+    }
+
+    /**
+     * 获取缓存命中统计
+     *
+     * @return 命中统计信息
+     */
+    @Override
+    public DocumentCacheStatsDTO getStats() {
+        long lookups = lookupCount.get();
+        long localHits = localHitCount.get();
+        long redisHits = redisHitCount.get();
+
+        return DocumentCacheStatsDTO.builder()
+                .lookupCount(lookups)
+                .localHitCount(localHits)
+                .redisHitCount(redisHits)
+                .missCount(lookups - localHits - redisHits)
+                .hitRate(lookups > 0 ? (double) (localHits + redisHits) / lookups : 0D)
+                .evictCount(evictCount.get())
+                .redisErrorCount(redisErrorCount.get())
+                .redisCircuitOpen(redisCircuitBreaker.isOpen())
+                .redisSkipCount(redisSkipCount.get())
+                .pendingDeleteCount(pendingDeletes.size())
+                .staleLoadCount(staleLoadCount.get())
+                .localSize(localCache.estimatedSize())
+                .build();
+    }
+
+    /**
+     * 从Redis读取文档，Redis不可用或数据无法解析时返回null
+     */
+    private Document getFromRedis(String key) {
+        if (!isRedisEnabled() || !acquireRedis() || pendingDeletes.contains(key)) {
+            return null;
+        }
+        try {
+            String json = stringRedisTemplate.opsForValue().get(documentCacheConfig.getRedisKeyPrefix() + key);
+            redisCircuitBreaker.onSuccess();
+            return StringUtils.isNotBlank(json) ? objectMapper.readValue(json, Document.class) : null;
+        } catch (JsonProcessingException e) {
+            log.warn("[文档缓存][读取]-缓存数据无法解析，key={}", key);
+            return null;
+        } catch (RuntimeException e) {
+            onRedisFailure("读取", key, e);
+            return null;
+        }
+    }
+
+    /**
+     * 写入Redis（失败时只记录日志）
+     */
+    private void putToRedis(String key, Document document) {
+        if (!isRedisEnabled()) {
+            return;
+        }
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(document);
+        } catch (JsonProcessingException e) {
+            log.warn("[文档缓存][写入]-文档序列化失败，key={}", key, e);
+            return;
+        }
+        if (!acquireRedis() || pendingDeletes.contains(key)) {
+            return;
+        }
+        try {
+            stringRedisTemplate.opsForValue().set(documentCacheConfig.getRedisKeyPrefix() + key, json,
+                    Duration.ofSeconds(documentCacheConfig.getRedisTtlSeconds()));
+            redisCircuitBreaker.onSuccess();
+        } catch (RuntimeException e) {
+            onRedisFailure("写入", key, e);
+        }
+    }
+
+    /**
+     * 删除Redis缓存并广播失效，Redis不可用时记录下来等待恢复后补删
+     */
+    private void deleteFromRedis(String key) {
+        if (!acquireRedis()) {
+            addPendingDelete(key);
+            return;
+        }
+        try {
+            stringRedisTemplate.delete(documentCacheConfig.getRedisKeyPrefix() + key);
+            stringRedisTemplate.convertAndSend(documentCacheConfig.getInvalidationChannel(), key);
+            redisCircuitBreaker.onSuccess();
+            pendingDeletes.remove(key);
+        } catch (RuntimeException e) {
+            addPendingDelete(key);
+            onRedisFailure("失效", key, e);
+        }
+    }
+
+    /**
+     * 申请访问Redis：熔断期间返回false；允许访问时先补删Redis不可用期间积压的key
+     */
+    private boolean acquireRedis() {
+        if (!redisCircuitBreaker.allowRequest()) {
+            redisSkipCount.incrementAndGet();
+            return false;
+        }
+        if (pendingDeletes.isEmpty()) {
+            return true;
+        }
+        Iterator<String> iterator = pendingDeletes.iterator();
+        while (iterator.hasNext()) {
+            String key = iterator.next();
+            try {
+                stringRedisTemplate.delete(documentCacheConfig.getRedisKeyPrefix() + key);
+                stringRedisTemplate.convertAndSend(documentCacheConfig.getInvalidationChannel(), key);
+                iterator.remove();
+            } catch (RuntimeException e) {
+                onRedisFailure("补删", key, e);
+                return false;
+            }
+        }
+        redisCircuitBreaker.onSuccess();
+        log.info("[文档缓存][补删]-Redis恢复，积压的失效已补删");
+        return true;
+    }
+
+    /**
+     * 记录待补删的key（超出上限时丢弃，依靠Redis过期时间兜底）
+     */
+    private void addPendingDelete(String key) {
+        if (pendingDeletes.size() < documentCacheConfig.getPendingDeleteMaxSize()) {
+            pendingDeletes.add(key);
+        } else {
+            log.warn("[文档缓存][失效]-待补删key数量已达上限，key={}", key);
+        }
+    }
+
+    /**
+     * Redis访问失败：计数并开始熔断
+     */
+    private void onRedisFailure(String action, String key, RuntimeException e) {
+        redisErrorCount.incrementAndGet();
+        redisCircuitBreaker.onFailure();
+        log.warn("[文档缓存][{}]-Redis访问失败，熔断{}秒，key={}，原因={}",
+                action, documentCacheConfig.getRedisOpenSeconds(), key, e.getMessage());
+    }
+
+    /**
+     * 使本地缓存失效，并使该文档进行中的数据库查询结果不再回填缓存
+     */
+    private void invalidateLocal(String key) {
+        Long documentId = parseDocumentId(key);
+        if (Objects.nonNull(documentId)) {
+            synchronized (loading) {
+                LoadState state = loading.get(documentId);
+                if (Objects.nonNull(state)) {
+                    state.version++;
+                }
+            }
+        }
+        localCache.invalidate(key);
+    }
+
+    /**
+     * 从缓存key解析文档ID，格式不正确时返回null
+     */
+    private Long parseDocumentId(String key) {
+        int separator = key.indexOf(':');
+        try {
+            return Long.valueOf(separator > 0 ? key.substring(0, separator) : key);
+        } catch (NumberFormatException e) {
+            log.warn("[文档缓存][失效]-无法解析文档ID，key={}", key);
+            return null;
+        }
+    }
+
+    private boolean isRedisEnabled() {
+        return Boolean.TRUE.equals(documentCacheConfig.getRedisEnabled());
+    }
+
+    /**
+     * 构建缓存key
+     */
+    private String buildKey(Long documentId, String sessionId) {
+        return documentId + ":" + sessionId;
+    }
+
+    /**
+     * 文档的数据库查询状态
+     */
+    private static final class LoadState {
+
+        /**
+         * 进行中的查询数
+         */
+        private int loaders;
+
+        /**
+         * 查询期间的失效次数
+         */
+        private long version;
+    }
+}
@@ -0,0 +1,207 @@
+package com.docagent.domain.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.docagent.domain.dto.ParsedDocument;
+import com.docagent.domain.entity.DocumentContent;
+import com.docagent.domain.repository.mysql.DocumentContentMapper;
+import com.docagent.domain.service.DocumentContentService;
+import com.docagent.domain.service.DocumentIndexService;
+import com.docagent.domain.service.DocumentTextService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * 文档内容服务实现类
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DocumentContentServiceImpl extends ServiceImpl<DocumentContentMapper, DocumentContent>
+        implements DocumentContentService {
+
+    private final DocumentTextService documentTextService;
+    private final DocumentIndexService documentIndexService;
+
+    /**
+     * 根据内容哈希查询
+     *
+     * @param contentHash 内容哈希
+     * @return 文档内容（不含文本），不存在时返回null
+     */
+    @Override
+    public DocumentContent getByHash(String contentHash) {
+        LambdaQueryWrapper<DocumentContent> wrapper = Wrappers.lambdaQuery(DocumentContent.class)
+                .select(DocumentContent::getId, DocumentContent::getContentHash, DocumentContent::getFileSize,
+                        DocumentContent::getFilePath, DocumentContent::getPageCount,
+                        DocumentContent::getStatus, DocumentContent::getRefCount)
+                .eq(DocumentContent::getContentHash, contentHash);
+        return getOne(wrapper);
+    }
+
+    /**
+     * 新建文档内容（解析中，引用计数为1）
+     *
+     * @param contentHash 内容哈希
+     * @param filePath 文件存储路径
+     * @param fileSize 文件大小
+     * @return 文档内容
+     */
+    @Override
+    public DocumentContent createContent(String contentHash, String filePath, Long fileSize) {
+        DocumentContent content = new DocumentContent();
+        content.setContentHash(contentHash);
+        content.setFilePath(filePath);
+        content.setFileSize(fileSize);
+        content.setStatus(0); // 0-解析中
+        content.setRefCount(1);
+        content.setCreateTime(LocalDateTime.now());
+        content.setUpdateTime(LocalDateTime.now());
+        save(content);
+        return content;
+    }
+
+    /**
+     * 增加引用计数（内容正在被释放时失败）
+     *
+     * @param contentId 内容ID
+     * @return 是否成功
+     */
+    @Override
+    public boolean retain(Long contentId) {
+        return lambdaUpdate()
+                .eq(DocumentContent::getId, contentId)
+                .gt(DocumentContent::getRefCount, 0)
+                .setSql("ref_count = ref_count + 1")
+                .update();
+    }
+
+    /**
+     * 减少引用计数，计数归零时删除内容记录和文件
+     *
+     * @param contentId 内容ID
+     */
+    @Override
+    public void release(Long contentId) {
+        lambdaUpdate()
+                .eq(DocumentContent::getId, contentId)
+                .gt(DocumentContent::getRefCount, 0)
+                .setSql("ref_count = ref_count - 1")
+                .update();
+
+        DocumentContent content = getRefInfo(contentId);
+        if (Objects.isNull(content) || content.getRefCount() > 0) {
+            return;
+        }
+
+        // 仅在计数仍为0时删除，期间被重新引用（retain成功）则保留
+        boolean removed = remove(Wrappers.lambdaQuery(DocumentContent.class)
+                .eq(DocumentContent::getId, contentId)
+                .eq(DocumentContent::getRefCount, 0));
+        if (!removed) {
+            return;
+        }
+        documentTextService.removeById(contentId);
+        documentIndexService.deleteIndex(contentId, content.getFilePath());
+
+        try {
+            Files.deleteIfExists(Paths.get(content.getFilePath()));
+            log.info("[文档内容][释放]-内容已无引用，删除文件，内容ID={}，路径={}", contentId, content.getFilePath());
+        } catch (IOException e) {
+            log.warn("[文档内容][释放]-删除文件失败，路径={}", content.getFilePath(), e);
+        }
+    }
+
+    /**
+     * 将解析失败的内容重置为解析中（并发时只有一个调用方成功）
+     *
+     * @param contentId 内容ID
+     * @return 是否由本次调用重置
+     */
+    @Override
+    public boolean resetFailed(Long contentId) {
+        return lambdaUpdate()
+                .eq(DocumentContent::getId, contentId)
+                .eq(DocumentContent::getStatus, 2)
+                .set(DocumentContent::getStatus, 0)
+                .set(DocumentContent::getUpdateTime, LocalDateTime.now())
+                .update();
+    }
+
+    /**
+     * 保存解析结果并标记为已完成
+     *
+     * @param contentId 内容ID
+     * @param parsed 解析结果
+     */
+    @Override
+    public void markParsed(Long contentId, ParsedDocument parsed) {
+        // 文本单独存表，元数据行保持轻量
+        documentTextService.saveText(contentId, parsed.getText());
+        lambdaUpdate()
+                .eq(DocumentContent::getId, contentId)
+                .set(DocumentContent::getPageCount, parsed.getPageCount())
+                .set(DocumentContent::getStatus, 1) // 1-已完成
+                .set(DocumentContent::getUpdateTime, LocalDateTime.now())
+                .update();
+    }
+
+    /**
+     * 标记解析失败
+     *
+     * @param contentId 内容ID
+     */
+    @Override
+    public void markFailed(Long contentId) {
+        lambdaUpdate()
+                .eq(DocumentContent::getId, contentId)
+                .set(DocumentContent::getStatus, 2) // 2-失败
+                .set(DocumentContent::getUpdateTime, LocalDateTime.now())
+                .update();
+    }
+
+    /**
+     * 获取内容文本
+     *
+     * @param contentId 内容ID
+     * @return 文本内容
+     */
+    @Override
+    public String getTextContent(Long contentId) {
+        return documentTextService.getText(contentId);
+    }
+
+    /**
+     * 获取内容文本前缀
+     *
+     * @param contentId 内容ID
+     * @param maxLength 最大字符数
+     * @return 文本前缀
+     */
+    @Override
+    public String getTextPrefix(Long contentId, int maxLength) {
+        return documentTextService.getTextPrefix(contentId, maxLength);
+    }
+
+    /**
+     * 查询内容的路径和引用计数
+     */
+    private DocumentContent getRefInfo(Long contentId) {
+        LambdaQueryWrapper<DocumentContent> wrapper = Wrappers.lambdaQuery(DocumentContent.class)
+                .select(DocumentContent::getId, DocumentContent::getFilePath, DocumentContent::getRefCount)
+                .eq(DocumentContent::getId, contentId);
+        return getOne(wrapper);
+    }
+}
@@ -0,0 +1,468 @@
+package com.docagent.domain.service.impl;
+
+import com.docagent.domain.config.ChatConfig;
+import com.docagent.domain.dto.ParsedDocument;
+import com.docagent.domain.dto.RetrievedChunk;
+import com.docagent.domain.service.DocumentIndexService;
+import com.docagent.domain.service.DocumentTextService;
+import com.docagent.domain.service.EmbeddingService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 文档检索索引服务实现类（BM25关键词索引 + 向量索引，倒数排名融合）
+ * 索引只在入库线程池中构建；对话线程只读取已有的索引文件，缺失时提交后台重建并跳过本次检索
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DocumentIndexServiceImpl implements DocumentIndexService {
+
+    /**
+     * 索引文件后缀（与PDF文件同目录）
+     */
+    private static final String INDEX_FILE_SUFFIX = ".bm25";
+
+    /**
+     * 向量索引文件后缀（与PDF文件同目录）
+     */
+    private static final String VECTOR_FILE_SUFFIX = ".vec";
+
+    /**
+     * 倒数排名融合常数
+     */
+    private static final int RRF_K = 60;
+
+    /**
+     * 每种检索方式的候选数量相对topK的倍数
+     */
+    private static final int CANDIDATE_MULTIPLIER = 3;
+
+    /**
+     * 分块边界字符（优先在这些字符之后切分）
+     */
+    private static final String BOUNDARY_CHARS = "\n。！？；.!?;";
+
+    /**
+     * 记录向量索引重试状态的内容数量上限
+     */
+    private static final long VECTOR_RETRY_MAX_ENTRIES = 10_000L;
+
+    private final ChatConfig chatConfig;
+    private final DocumentTextService documentTextService;
+    private final EmbeddingService embeddingService;
+    private final ThreadPoolTaskExecutor ingestExecutor;
+
+    /**
+     * 常驻内存的索引，key为共享内容ID（只缓存加载成功的索引）
+     */
+    private Cache<Long, LoadedIndex> indexCache;
+
+    /**
+     * 正在后台重建索引的共享内容ID（同一内容只提交一个重建任务）
+     */
+    private final Set<Long> rebuilding = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 向量索引构建失败的内容（失败次数与下次可重试的时间），构建成功后移除
+     */
+    private Cache<Long, VectorRetry> vectorRetries;
+
+    @PostConstruct
+    public void init() {
+        indexCache = Caffeine.newBuilder()
+                .maximumSize(chatConfig.getIndexCacheSize())
+                .build();
+        vectorRetries = Caffeine.newBuilder()
+                .maximumSize(VECTOR_RETRY_MAX_ENTRIES)
+                .build();
+    }
+
+    /**
+     * 为解析结果分块并建立索引
+     *
+     * @param contentId 共享内容ID
+     * @param filePath PDF文件路径
+     * @param parsed 解析结果
+     */
+    @Override
+    public void buildIndex(Long contentId, String filePath, ParsedDocument parsed) {
+        long startTime = System.currentTimeMillis();
+        List<String> chunks = new ArrayList<>();
+        List<Integer> pageNumbers = new ArrayList<>();
+        if (Objects.nonNull(parsed.getPages()) && !parsed.getPages().isEmpty()) {
+            for (ParsedDocument.PageText page : parsed.getPages()) {
+                splitChunks(parsed.getPageText(page.getPageNumber()), page.getPageNumber(), chunks, pageNumbers);
+            }
+        } else {
+            splitChunks(parsed.getText(), 0, chunks, pageNumbers);
+        }
+
+        Bm25Index keywordIndex = Bm25Index.build(chunks, pageNumbers);
+        try {
+            keywordIndex.writeTo(getIndexPath(filePath));
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入索引文件失败: " + filePath, e);
+        }
+        VectorIndex vectorIndex = buildVectorIndex(contentId, filePath, keywordIndex);
+        indexCache.put(contentId, new LoadedIndex(keywordIndex, vectorIndex));
+
+        log.info("[索引][构建]-文档索引构建完成，内容ID={}，分块数={}，向量索引={}，耗时={}ms",
+                contentId, keywordIndex.size(), Objects.nonNull(vectorIndex), System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * 检索与问题最相关的分块（在token预算内）
+     *
+     * @param contentId 共享内容ID
+     * @param filePath PDF文件路径
+     * @param query 用户问题
+     * @return 命中的分块（按文档顺序）
+     */
+    @Override
+    public List<RetrievedChunk> search(Long contentId, String filePath, String query) {
+        if (Objects.isNull(contentId) || StringUtils.isBlank(query)) {
+            return List.of();
+        }
+
+        LoadedIndex index = getLoadedIndex(contentId, filePath);
+        if (Objects.isNull(index)) {
+            return List.of();
+        }
+
+        // 关键词检索与向量检索各取候选，按倒数排名融合
+        int candidateCount = chatConfig.getRetrievalTopK() * CANDIDATE_MULTIPLIER;
+        Map<Integer, Double> fusedScores = new HashMap<>();
+        List<Bm25Index.Hit> keywordHits = index.keyword().search(query, candidateCount);
+        for (int rank = 0; rank < keywordHits.size(); rank++) {
+            fusedScores.merge(keywordHits.get(rank).chunkIndex(), 1D / (RRF_K + rank + 1), Double::sum);
+        }
+        int[] vectorHits = searchVectors(index.vector(), query, candidateCount);
+        for (int rank = 0; rank < vectorHits.length; rank++) {
+            fusedScores.merge(vectorHits[rank], 1D / (RRF_K + rank + 1), Double::sum);
+        }
+
+        // 按融合得分从高到低放入，直到达到数量上限或用完token预算
+        List<Map.Entry<Integer, Double>> ranked = new ArrayList<>(fusedScores.entrySet());
+        ranked.sort(Map.Entry.<Integer, Double>comparingByValue().reversed());
+        int remainingTokens = chatConfig.getRetrievalTokenBudget();
+        List<RetrievedChunk> selected = new ArrayList<>();
+        for (Map.Entry<Integer, Double> entry : ranked) {
+            if (selected.size() >= chatConfig.getRetrievalTopK()) {
+                break;
+            }
+            int chunkIndex = entry.getKey();
+            String content = index.keyword().chunkAt(chunkIndex);
+            int tokens = TokenEstimator.estimate(content);
+            if (tokens > remainingTokens) {
+                continue;
+            }
+            remainingTokens -= tokens;
+            int pageNumber = index.keyword().pageNumberAt(chunkIndex);
+            selected.add(RetrievedChunk.builder()
+                    .chunkIndex(chunkIndex)
+                    .pageNumber(pageNumber > 0 ? pageNumber : null)
+                    .content(content)
+                    .score(entry.getValue())
+                    .build());
+        }
+        selected.sort(Comparator.comparing(RetrievedChunk::getChunkIndex));
+        return selected;
+    }
+
+    /**
+     * 删除索引
+     *
+     * @param contentId 共享内容ID
+     * @param filePath PDF文件路径
+     */
+    @Override
+    public void deleteIndex(Long contentId, String filePath) {
+        indexCache.invalidate(contentId);
+        try {
+            Files.deleteIfExists(getIndexPath(filePath));
+            Files.deleteIfExists(getVectorPath(filePath));
+        } catch (IOException e) {
+            log.warn("[索引][删除]-删除索引文件失败，路径={}", filePath, e);
+        }
+    }
+
+    /**
+     * 获取已加载的索引：优先使用缓存，未缓存时只读取索引文件（不在对话线程构建索引）
+     * 关键词索引缺失或向量索引不可用时提交后台重建
+     */
+    private LoadedIndex getLoadedIndex(Long contentId, String filePath) {
+        LoadedIndex index = indexCache.getIfPresent(contentId);
+        if (Objects.nonNull(index)) {
+            // 向量索引之前构建失败的，按退避间隔在后台重试
+            if (Objects.isNull(index.vector()) && isVectorRetryDue(contentId)) {
+                scheduleRebuild(contentId, filePath);
+            }
+            return index;
+        }
+
+        Bm25Index keywordIndex = readKeywordIndex(getIndexPath(filePath));
+        if (Objects.isNull(keywordIndex)) {
+            // 索引文件缺失或损坏，不缓存，交给后台重建
+            scheduleRebuild(contentId, filePath);
+            return null;
+        }
+        VectorIndex vectorIndex = readVectorIndex(getVectorPath(filePath), keywordIndex);
+        if (Objects.isNull(vectorIndex) && isVectorRetryDue(contentId)) {
+            scheduleRebuild(contentId, filePath);
+        }
+        index = new LoadedIndex(keywordIndex, vectorIndex);
+        indexCache.put(contentId, index);
+        return index;
+    }
+
+    /**
+     * 提交后台重建任务（与文档解析共用入库线程池，队列已满时放弃，下次检索再提交）
+     */
+    private void scheduleRebuild(Long contentId, String filePath) {
+        if (!rebuilding.add(contentId)) {
+            return;
+        }
+        try {
+            ingestExecutor.execute(() -> {
+                try {
+                    rebuildIndex(contentId, filePath);
+                } finally {
+                    rebuilding.remove(contentId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rebuilding.remove(contentId);
+            log.warn("[索引][重建]-入库队列已满，暂不重建索引，内容ID={}", contentId);
+        }
+    }
+
+    /**
+     * 重建索引（入库线程池中执行）：关键词索引文件不存在或损坏时按已保存的文本重建（无分页信息），
+     * 向量索引缺失、模型或维度变化时重新向量化（失败后按退避间隔重试，超过次数上限不再重试）；关键词索引无法重建时不写入缓存
+     */
+    private void rebuildIndex(Long contentId, String filePath) {
+        try {
+            Bm25Index keywordIndex = loadKeywordIndex(contentId, filePath);
+            if (Objects.isNull(keywordIndex)) {
+                return;
+            }
+            VectorIndex vectorIndex = readVectorIndex(getVectorPath(filePath), keywordIndex);
+            if (Objects.isNull(vectorIndex) && isVectorRetryDue(contentId)) {
+                vectorIndex = buildVectorIndex(contentId, filePath, keywordIndex);
+            }
+            indexCache.put(contentId, new LoadedIndex(keywordIndex, vectorIndex));
+        } catch (RuntimeException e) {
+            log.warn("[索引][重建]-索引重建失败，内容ID={}", contentId, e);
+        }
+    }
+
+    /**
+     * 读取关键词索引文件，文件不存在或损坏时返回null
+     */
+    private Bm25Index readKeywordIndex(Path indexPath) {
+        if (!Files.exists(indexPath)) {
+            return null;
+        }
+        try {
+            return Bm25Index.readFrom(indexPath);
+        } catch (IOException e) {
+            log.warn("[索引][加载]-索引文件读取失败，路径={}", indexPath, e);
+            return null;
+        }
+    }
+
+    /**
+     * 内存映射方式读取向量索引文件，文件不存在、损坏或与当前模型、分块数不一致时返回null
+     */
+    private VectorIndex readVectorIndex(Path vectorPath, Bm25Index keywordIndex) {
+        if (!Files.exists(vectorPath)) {
+            return null;
+        }
+        try {
+            VectorIndex vectorIndex = VectorIndex.map(vectorPath);
+            if (embeddingService.getModelId().equals(vectorIndex.getModelId())
+                    && vectorIndex.size() == keywordIndex.size()) {
+                return vectorIndex;
+            }
+        } catch (IOException e) {
+            log.warn("[索引][加载]-向量索引文件读取失败，路径={}", vectorPath, e);
+        }
+        return null;
+    }
+
+    /**
+     * 加载关键词索引，索引文件不可用时按已保存的文本重建
+     */
+    private Bm25Index loadKeywordIndex(Long contentId, String filePath) {
+        Path indexPath = getIndexPath(filePath);
+        Bm25Index existing = readKeywordIndex(indexPath);
+        if (Objects.nonNull(existing)) {
+            return existing;
+        }
+
+        String text = documentTextService.getText(contentId);
+        if (StringUtils.isBlank(text)) {
+            return null;
+        }
+        List<String> chunks = new ArrayList<>();
+        List<Integer> pageNumbers = new ArrayList<>();
+        splitChunks(text, 0, chunks, pageNumbers);
+        Bm25Index index = Bm25Index.build(chunks, pageNumbers);
+        try {
+            index.writeTo(indexPath);
+        } catch (IOException e) {
+            log.warn("[索引][重建]-索引文件写入失败，路径={}", indexPath, e);
+        }
+        log.info("[索引][重建]-按文本重建索引，内容ID={}，分块数={}", contentId, index.size());
+        return index;
+    }
+
+    /**
+     * 向量化全部分块并写入向量索引文件，失败时记录失败次数并返回null（只使用关键词检索）
+     */
+    private VectorIndex buildVectorIndex(Long contentId, String filePath, Bm25Index keywordIndex) {
+        Path vectorPath = getVectorPath(filePath);
+        try {
+            List<float[]> vectors = embeddingService.embedDocuments(keywordIndex.chunks());
+            VectorIndex.write(vectorPath, embeddingService.getModelId(), embeddingService.getDimension(), vectors);
+            VectorIndex vectorIndex = VectorIndex.map(vectorPath);
+            vectorRetries.invalidate(contentId);
+            return vectorIndex;
+        } catch (IOException | RuntimeException e) {
+            VectorRetry retry = recordVectorFailure(contentId);
+            log.warn("[索引][向量]-向量索引构建失败，只使用关键词检索，内容ID={}，失败次数={}", contentId, retry.attempts(), e);
+            return null;
+        }
+    }
+
+    /**
+     * 向量索引是否可以重新构建（未失败过，或已过退避间隔且未达到次数上限）
+     */
+    private boolean isVectorRetryDue(Long contentId) {
+        VectorRetry retry = vectorRetries.getIfPresent(contentId);
+        if (Objects.isNull(retry)) {
+            return true;
+        }
+        return retry.attempts() < chatConfig.getVectorRetryMaxAttempts()
+                && System.currentTimeMillis() >= retry.nextRetryAt();
+    }
+
+    /**
+     * 记录一次向量索引构建失败，重试间隔按失败次数指数增长
+     */
+    private VectorRetry recordVectorFailure(Long contentId) {
+        return vectorRetries.asMap().compute(contentId, (key, previous) -> {
+            int attempts = Objects.isNull(previous) ? 1 : previous.attempts() + 1;
+            long delay = Math.min(chatConfig.getVectorRetryMaxMs(),
+                    chatConfig.getVectorRetryInitialMs() << Math.min(attempts - 1, 20));
+            if (attempts >= chatConfig.getVectorRetryMaxAttempts()) {
+                log.warn("[索引][向量]-向量索引构建失败次数达到上限，不再重试，内容ID={}", key);
+            }
+            return new VectorRetry(attempts, System.currentTimeMillis() + delay);
+        });
+    }
+
+    /**
+     * 向量检索，问题向量化失败或超时时返回空结果
+     */
+    private int[] searchVectors(VectorIndex vectorIndex, String query, int topK) {
+        if (Objects.isNull(vectorIndex)) {
+            return new int[0];
+        }
+        try {
+            return vectorIndex.search(embeddingService.embedQuery(query), topK);
+        } catch (RuntimeException e) {
+            log.warn("[索引][向量]-问题向量化失败，只使用关键词检索，原因={}", e.getMessage());
+            return new int[0];
+        }
+    }
+
+    /**
+     * 按固定长度切分分块（带重叠），切分点尽量落在句末或换行处
+     */
+    private void splitChunks(String text, int pageNumber, List<String> chunks, List<Integer> pageNumbers) {
+        if (StringUtils.isBlank(text)) {
+            return;
+        }
+        int chunkSize = chatConfig.getChunkSize();
+        int overlap = Math.min(chatConfig.getChunkOverlap(), chunkSize / 2);
+
+        int start = 0;
+        while (start < text.length()) {
+            int end = Math.min(start + chunkSize, text.length());
+            if (end < text.length()) {
+                // 在后半段中寻找最后一个边界字符
+                for (int i = end - 1; i > start + chunkSize / 2; i--) {
+                    if (BOUNDARY_CHARS.indexOf(text.charAt(i)) >= 0) {
+                        end = i + 1;
+                        break;
+                    }
+                }
+            }
+            String chunk = text.substring(start, end).trim();
+            if (!chunk.isEmpty()) {
+                chunks.add(chunk);
+                pageNumbers.add(pageNumber);
+            }
+            if (end >= text.length()) {
+                break;
+            }
+            start = Math.max(end - overlap, start + 1);
+        }
+    }
+
+    /**
+     * 索引文件路径
+     */
+    private Path getIndexPath(String filePath) {
+        return Paths.get(filePath + INDEX_FILE_SUFFIX);
+    }
+
+    /**
+     * 向量索引文件路径
+     */
+    private Path getVectorPath(String filePath) {
+        return Paths.get(filePath + VECTOR_FILE_SUFFIX);
+    }
+
+    /**
+     * 已加载的文档索引（向量索引构建失败时为null）
+     */
+    private record LoadedIndex(Bm25Index keyword, VectorIndex vector) {
+    }
+
+    /**
+     * 向量索引重试状态
+     *
+     * @param attempts 已失败次数
+     * @param nextRetryAt 下次可重试的时间（毫秒时间戳）
+     */
+    private record VectorRetry(int attempts, long nextRetryAt) {
+    }
+}
@@ -1,30 +1,43 @@
 package com.docagent.domain.service.impl;
 
-import cn.hutool.core.io.FileUtil;
 import cn.hutool.core.util.IdUtil;
-import cn.hutool.crypto.digest.DigestUtil;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.docagent.domain.dto.DocumentStatusDTO;
 import com.docagent.domain.dto.FileUploadDTO;
+import com.docagent.domain.dto.ParsedDocument;
 import com.docagent.domain.entity.Document;
+import com.docagent.domain.entity.DocumentContent;
 import com.docagent.domain.repository.mysql.DocumentMapper;
+import com.docagent.domain.service.DocumentCacheService;
+import com.docagent.domain.service.DocumentContentService;
+import com.docagent.domain.service.DocumentIndexService;
 import com.docagent.domain.service.DocumentService;
 import com.docagent.domain.service.PdfParserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * 文档服务实现类
@@ -38,73 +51,192 @@ import java.util.Objects;
 @RequiredArgsConstructor
 public class DocumentServiceImpl extends ServiceImpl<DocumentMapper, Document> implements DocumentService {
 
+    /**
+     * 最大文件大小（50MB）
+     */
+    private static final long MAX_FILE_SIZE = 50L * 1024 * 1024;
+
+    /**
+     * 上传临时目录名（位于存储目录下，保证可原子移动）
+     */
+    private static final String TEMP_DIR_NAME = ".tmp";
+
+    /**
+     * 流式拷贝缓冲区大小
+     */
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 获取共享内容的最大尝试次数（与内容释放并发时重试）
+     */
+    private static final int ACQUIRE_MAX_ATTEMPTS = 3;
+
     private final PdfParserService pdfParserService;
+    private final DocumentContentService documentContentService;
+    private final DocumentIndexService documentIndexService;
+    private final DocumentCacheService documentCacheService;
+    private final ThreadPoolTaskExecutor ingestExecutor;
 
     @Value("${app.file.storage-path:./storage/documents}")
     private String storagePath;
 
     /**
-     * 上传文档
+     * 上传文档（文件落盘并登记后立即返回，解析交给后台入库队列）
+     * 任一步骤失败时归还已获取的内容引用并删除暂存文件，避免引用计数和文件泄漏
      *
      * @param fileUpload 文件上传信息
      * @param sessionId 会话ID
      * @return 文档ID
      */
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public Long uploadDocument(FileUploadDTO fileUpload, String sessionId) {
         log.info("[文档][上传]-开始处理文档上传，文件名={}，会话ID={}", fileUpload.getOriginalFilename(), sessionId);
 
+        StagedFile stagedFile = null;
+        // 已获取但尚未转交给文档记录的内容引用，失败时归还
+        Long pendingContentId = null;
         try {
             // 1. 校验文件
             validateFile(fileUpload);
 
-            // 2. 读取文件内容计算MD5
-            byte[] fileBytes = fileUpload.getInputStream().readAllBytes();
-            String md5 = DigestUtil.md5Hex(fileBytes);
-            log.info("[文档][上传]-文件MD5={}", md5);
+            // 2. 流式写入临时文件，同时计算MD5（不在堆内缓存整个文件）
+            stagedFile = stageUpload(fileUpload.getInputStream());
+            String md5 = stagedFile.md5();
+            log.info("[文档][上传]-文件MD5={}，大小={}", md5, stagedFile.size());
 
-            // 3. 检查是否已存在相同文件
+            // 3. 检查是否已存在相同文件（已完成或解析中）
             Document existDoc = checkExistDocument(md5, sessionId);
             if (Objects.nonNull(existDoc)) {
+                Files.deleteIfExists(stagedFile.path());
                 log.info("[文档][上传]-文档已存在，直接返回，文档ID={}", existDoc.getId());
                 return existDoc.getId();
             }
 
-            // 4. 保存文件到磁盘
-            String filePath = saveFileToDisk(fileBytes, fileUpload.getOriginalFilename());
-            log.info("[文档][上传]-文件保存成功，路径={}", filePath);
-
-            // 5. 提取PDF文本和页数（使用新的输入流）
-            ByteArrayInputStream textStream = new ByteArrayInputStream(fileBytes);
-            String textContent = pdfParserService.extractText(textStream);
-
-            ByteArrayInputStream pageStream = new ByteArrayInputStream(fileBytes);
-            int pageCount = pdfParserService.getPageCount(pageStream);
+            // 4. 按内容哈希复用已存储的文件和解析结果（跨会话去重）
+            AcquiredContent acquired = acquireContent(stagedFile);
+            DocumentContent content = acquired.content();
+            pendingContentId = content.getId();
 
-            // 6. 保存文档信息到数据库
+            // 5. 保存文档记录（仅引用共享内容）
             Document document = new Document();
             document.setSessionId(sessionId);
             document.setFileName(fileUpload.getOriginalFilename());
-            document.setFileSize(fileUpload.getFileSize());
-            document.setFilePath(filePath);
+            document.setFileSize(stagedFile.size());
+            document.setFilePath(content.getFilePath());
             document.setFileMd5(md5);
-            document.setPageCount(pageCount);
-            document.setTextContent(textContent);
-            document.setStatus(1); // 1-已完成
+            document.setContentId(content.getId());
+            document.setPageCount(content.getPageCount());
+            document.setStatus(acquired.needIngest() ? 0 : content.getStatus());
             document.setCreateTime(LocalDateTime.now());
             document.setUpdateTime(LocalDateTime.now());
 
             save(document);
-
-            log.info("[文档][上传]-文档上传成功，文档ID={}，页数={}，文本长度={}",
-                    document.getId(), pageCount, textContent.length());
+            pendingContentId = null;
+
+            // 6. 新内容提交后台解析任务，队列已满时撤销本次上传
+            if (acquired.needIngest()) {
+                try {
+                    ingestExecutor.execute(() -> ingestContent(content.getId()));
+                } catch (RejectedExecutionException e) {
+                    log.warn("[文档][上传]-解析队列已满，撤销上传，文档ID={}", document.getId());
+                    removeById(document.getId());
+                    documentContentService.markFailed(content.getId());
+                    updateStatusByContentId(content.getId(), 2, null);
+                    documentContentService.release(content.getId());
+                    throw new RuntimeException("文档解析任务繁忙，请稍后重试");
+                }
+                log.info("[文档][上传]-文档已提交解析，文档ID={}，内容ID={}", document.getId(), content.getId());
+            } else {
+                // 引用期间解析可能已结束，按内容当前状态补齐
+                syncFromContent(document);
+                log.info("[文档][上传]-复用已有内容，文档ID={}，内容ID={}", document.getId(), content.getId());
+            }
 
             return document.getId();
 
         } catch (IOException e) {
             log.error("[文档][上传]-文档上传失败", e);
             throw new RuntimeException("文档上传失败: " + e.getMessage(), e);
+        } finally {
+            if (Objects.nonNull(pendingContentId)) {
+                releaseQuietly(pendingContentId);
+            }
+            // 暂存文件在复用内容时已删除、新内容时已移入存储目录，这里只清理失败时残留的文件
+            if (Objects.nonNull(stagedFile)) {
+                deleteQuietly(stagedFile.path());
+            }
+        }
+    }
+
+    /**
+     * 归还内容引用（上传失败的补偿操作，失败时只记录日志，不覆盖原异常）
+     */
+    private void releaseQuietly(Long contentId) {
+        try {
+            documentContentService.release(contentId);
+            log.info("[文档][上传]-上传失败，已归还内容引用，内容ID={}", contentId);
+        } catch (RuntimeException e) {
+            log.error("[文档][上传]-归还内容引用失败，内容ID={}", contentId, e);
+        }
+    }
+
+    /**
+     * 删除文件（失败时只记录日志）
+     */
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("[文档][上传]-删除临时文件失败，路径={}", path, e);
+        }
+    }
+
+    /**
+     * 删除文档（释放对共享内容的引用，无引用时删除文件）
+     *
+     * @param documentId 文档ID
+     * @param sessionId 会话ID
+     */
+    @Override
+    public void deleteDocument(Long documentId, String sessionId) {
+        Document document = getByIdAndSessionId(documentId, sessionId);
+        removeById(documentId);
+        documentCacheService.evict(documentId, sessionId);
+        if (Objects.nonNull(document.getContentId())) {
+            documentContentService.release(document.getContentId());
+        }
+        log.info("[文档][删除]-文档删除成功，文档ID={}，内容ID={}", documentId, document.getContentId());
+    }
+
+    /**
+     * 应用启动后重新提交未完成解析的内容
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinishedIngests() {
+        LambdaQueryWrapper<DocumentContent> wrapper = Wrappers.lambdaQuery(DocumentContent.class)
+                .select(DocumentContent::getId)
+                .eq(DocumentContent::getStatus, 0);
+
+        List<DocumentContent> unfinished;
+        try {
+            unfinished = documentContentService.list(wrapper);
+        } catch (Exception e) {
+            log.error("[文档][续解析]-查询未完成解析的内容失败", e);
+            return;
+        }
+        if (unfinished.isEmpty()) {
+            return;
+        }
+
+        log.info("[文档][续解析]-发现未完成解析的内容，数量={}", unfinished.size());
+        for (DocumentContent content : unfinished) {
+            try {
+                ingestExecutor.execute(() -> ingestContent(content.getId()));
+            } catch (RejectedExecutionException e) {
+                log.warn("[文档][续解析]-解析队列已满，标记失败，内容ID={}", content.getId());
+                documentContentService.markFailed(content.getId());
+                updateStatusByContentId(content.getId(), 2, null);
+            }
         }
     }
 
@@ -130,7 +262,7 @@ public class DocumentServiceImpl extends ServiceImpl<DocumentMapper, Document> i
     }
 
     /**
-     * 根据文档ID和会话ID查询文档
+     * 根据文档ID和会话ID查询文档（经过文档元数据缓存）
      *
      * @param documentId 文档ID
      * @param sessionId 会话ID
@@ -144,7 +276,7 @@ public class DocumentServiceImpl extends ServiceImpl<DocumentMapper, Document> i
                 .eq(Document::getId, documentId)
                 .eq(Document::getSessionId, sessionId);
 
-        Document document = getOne(wrapper);
+        Document document = documentCacheService.get(documentId, sessionId, () -> getOne(wrapper));
 
         if (Objects.isNull(document)) {
             log.warn("[文档][详情]-文档不存在或无权限访问，文档ID={}，会话ID={}", documentId, sessionId);
@@ -155,6 +287,206 @@ public class DocumentServiceImpl extends ServiceImpl<DocumentMapper, Document> i
         return document;
     }
 
+    /**
+     * 根据文档ID和会话ID查询已解析完成的文档（解析中或失败时抛出异常）
+     *
+     * @param documentId 文档ID
+     * @param sessionId 会话ID
+     * @return 文档
+     */
+    @Override
+    public Document getReadyDocument(Long documentId, String sessionId) {
+        Document document = getByIdAndSessionId(documentId, sessionId);
+        if (Objects.equals(document.getStatus(), 0)) {
+            throw new RuntimeException("文档正在解析中，请稍后重试");
+        }
+        if (!Objects.equals(document.getStatus(), 1)) {
+            throw new RuntimeException("文档解析失败，请重新上传");
+        }
+        return document;
+    }
+
+    /**
+     * 查询文档解析状态
+     *
+     * @param documentId 文档ID
+     * @param sessionId 会话ID
+     * @return 解析状态
+     */
+    @Override
+    public DocumentStatusDTO getDocumentStatus(Long documentId, String sessionId) {
+        LambdaQueryWrapper<Document> wrapper = Wrappers.lambdaQuery(Document.class)
+                .select(Document::getId, Document::getStatus, Document::getPageCount)
+                .eq(Document::getId, documentId)
+                .eq(Document::getSessionId, sessionId);
+
+        Document document = getOne(wrapper);
+        if (Objects.isNull(document)) {
+            throw new RuntimeException("文档不存在或无权限访问");
+        }
+
+        return DocumentStatusDTO.builder()
+                .documentId(document.getId())
+                .status(document.getStatus())
+                .pageCount(document.getPageCount())
+                .build();
+    }
+
+    /**
+     * 获取文档的文本内容
+     *
+     * @param documentId 文档ID
+     * @return 文本内容
+     */
+    @Override
+    public String getTextContent(Long documentId) {
+        Long contentId = getContentId(documentId);
+        return Objects.nonNull(contentId) ? documentContentService.getTextContent(contentId) : null;
+    }
+
+    /**
+     * 获取文档文本前缀（只读取前maxLength个字符）
+     *
+     * @param documentId 文档ID
+     * @param maxLength 最大字符数
+     * @return 文本前缀
+     */
+    @Override
+    public String getTextPrefix(Long documentId, int maxLength) {
+        Long contentId = getContentId(documentId);
+        return Objects.nonNull(contentId) ? documentContentService.getTextPrefix(contentId, maxLength) : null;
+    }
+
+    /**
+     * 查询文档引用的共享内容ID
+     */
+    private Long getContentId(Long documentId) {
+        Document document = getOne(Wrappers.lambdaQuery(Document.class)
+                .select(Document::getId, Document::getContentId)
+                .eq(Document::getId, documentId));
+        return Objects.nonNull(document) ? document.getContentId() : null;
+    }
+
+    /**
+     * 解析共享内容并同步所有引用它的文档状态（在入库线程池中运行）
+     */
+    private void ingestContent(Long contentId) {
+        long startTime = System.currentTimeMillis();
+        try {
+            DocumentContent content = documentContentService.getById(contentId);
+            if (Objects.isNull(content) || !Objects.equals(content.getStatus(), 0)) {
+                return;
+            }
+
+            // 一次解析得到PDF文本和页数（从磁盘文件读取）
+            ParsedDocument parsed = pdfParserService.parse(new File(content.getFilePath()));
+
+            // 建立对话检索索引（失败时不影响入库，检索时会按文本重建）
+            try {
+                documentIndexService.buildIndex(contentId, content.getFilePath(), parsed);
+            } catch (RuntimeException e) {
+                log.warn("[文档][解析]-检索索引构建失败，内容ID={}", contentId, e);
+            }
+
+            documentContentService.markParsed(contentId, parsed);
+            updateStatusByContentId(contentId, 1, parsed.getPageCount());
+
+            log.info("[文档][解析]-文档解析完成，内容ID={}，页数={}，文本长度={}，耗时={}ms",
+                    contentId, parsed.getPageCount(), parsed.getText().length(), System.currentTimeMillis() - startTime);
+
+        } catch (Exception e) {
+            log.error("[文档][解析]-文档解析失败，内容ID={}", contentId, e);
+            documentContentService.markFailed(contentId);
+            updateStatusByContentId(contentId, 2, null);
+        }
+    }
+
+    /**
+     * 获取或创建暂存文件对应的共享内容（已有内容则增加引用并删除暂存文件）
+     */
+    private AcquiredContent acquireContent(StagedFile stagedFile) throws IOException {
+        for (int attempt = 1; attempt <= ACQUIRE_MAX_ATTEMPTS; attempt++) {
+            // 1. 已有相同内容，增加引用
+            DocumentContent content = documentContentService.getByHash(stagedFile.sha256());
+            if (Objects.nonNull(content)) {
+                if (!documentContentService.retain(content.getId())) {
+                    // 内容正在被释放，重新查询
+                    continue;
+                }
+                Files.deleteIfExists(stagedFile.path());
+                // 之前解析失败的内容重新解析
+                boolean needIngest = documentContentService.resetFailed(content.getId());
+                return new AcquiredContent(content, needIngest);
+            }
+
+            // 2. 新内容，移动到存储目录并登记
+            Path storedPath = moveToStorage(stagedFile.path());
+            log.info("[文档][上传]-文件保存成功，路径={}", storedPath);
+            try {
+                content = documentContentService.createContent(stagedFile.sha256(), storedPath.toString(), stagedFile.size());
+                return new AcquiredContent(content, true);
+            } catch (DuplicateKeyException e) {
+                // 并发上传了相同内容，删除本次文件后引用已登记的内容
+                log.info("[文档][上传]-相同内容已被并发登记，哈希={}", stagedFile.sha256());
+                Files.deleteIfExists(storedPath);
+                return acquireExisting(stagedFile.sha256());
+            } catch (RuntimeException e) {
+                // 登记失败（如数据库异常），已移入存储目录的文件无人引用，直接删除
+                deleteQuietly(storedPath);
+                throw e;
+            }
+        }
+        throw new RuntimeException("文档上传失败，请稍后重试");
+    }
+
+    /**
+     * 引用已登记的共享内容
+     */
+    private AcquiredContent acquireExisting(String contentHash) {
+        DocumentContent content = documentContentService.getByHash(contentHash);
+        if (Objects.isNull(content) || !documentContentService.retain(content.getId())) {
+            throw new RuntimeException("文档上传失败，请稍后重试");
+        }
+        return new AcquiredContent(content, documentContentService.resetFailed(content.getId()));
+    }
+
+    /**
+     * 按共享内容的当前状态更新文档记录
+     */
+    private void syncFromContent(Document document) {
+        DocumentContent content = documentContentService.getOne(Wrappers.lambdaQuery(DocumentContent.class)
+                .select(DocumentContent::getId, DocumentContent::getStatus, DocumentContent::getPageCount)
+                .eq(DocumentContent::getId, document.getContentId()));
+        if (Objects.nonNull(content) && !Objects.equals(content.getStatus(), document.getStatus())) {
+            lambdaUpdate()
+                    .eq(Document::getId, document.getId())
+                    .set(Document::getStatus, content.getStatus())
+                    .set(Document::getPageCount, content.getPageCount())
+                    .set(Document::getUpdateTime, LocalDateTime.now())
+                    .update();
+            documentCacheService.evict(document.getId(), document.getSessionId());
+        }
+    }
+
+    /**
+     * 更新引用指定内容的所有文档的状态，并使这些文档的缓存失效
+     */
+    private void updateStatusByContentId(Long contentId, Integer status, Integer pageCount) {
+        lambdaUpdate()
+                .eq(Document::getContentId, contentId)
+                .set(Document::getStatus, status)
+                .set(Objects.nonNull(pageCount), Document::getPageCount, pageCount)
+                .set(Document::getUpdateTime, LocalDateTime.now())
+                .update();
+
+        List<Document> documents = list(Wrappers.lambdaQuery(Document.class)
+                .select(Document::getId, Document::getSessionId)
+                .eq(Document::getContentId, contentId));
+        for (Document document : documents) {
+            documentCacheService.evict(document.getId(), document.getSessionId());
+        }
+    }
+
     /**
      * 校验文件
      */
@@ -171,7 +503,7 @@ public class DocumentServiceImpl extends ServiceImpl<DocumentMapper, Document> i
             throw new RuntimeException("只支持PDF格式文件");
         }
 
-        if (fileUpload.getFileSize() > 50 * 1024 * 1024) {
+        if (Objects.nonNull(fileUpload.getFileSize()) && fileUpload.getFileSize() > MAX_FILE_SIZE) {
             throw new RuntimeException("文件大小不能超过50MB");
         }
     }
@@ -183,30 +515,92 @@ public class DocumentServiceImpl extends ServiceImpl<DocumentMapper, Document> i
         LambdaQueryWrapper<Document> wrapper = Wrappers.lambdaQuery(Document.class)
                 .eq(Document::getFileMd5, md5)
                 .eq(Document::getSessionId, sessionId)
-                .eq(Document::getStatus, 1);
+                .in(Document::getStatus, 0, 1)
+                .orderByDesc(Document::getStatus)
+                .last("LIMIT 1");
 
         return getOne(wrapper);
     }
 
     /**
-     * 保存文件到磁盘
+     * 将上传流写入存储目录下的临时文件，边写边计算MD5、SHA-256并校验大小
+     */
+    private StagedFile stageUpload(InputStream inputStream) throws IOException {
+        Path tempDir = getStorageDir().resolve(TEMP_DIR_NAME);
+        Files.createDirectories(tempDir);
+        Path tempFile = Files.createTempFile(tempDir, "upload-", ".part");
+
+        MessageDigest md5Digest;
+        MessageDigest sha256Digest;
+        try {
+            md5Digest = MessageDigest.getInstance("MD5");
+            sha256Digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("摘要算法不可用", e);
+        }
+        long size = 0;
+        try (InputStream input = new DigestInputStream(new DigestInputStream(inputStream, md5Digest), sha256Digest);
+             OutputStream output = Files.newOutputStream(tempFile)) {
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                size += read;
+                if (size > MAX_FILE_SIZE) {
+                    throw new RuntimeException("文件大小不能超过50MB");
+                }
+                output.write(buffer, 0, read);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+
+        return new StagedFile(tempFile, HexFormat.of().formatHex(md5Digest.digest()),
+                HexFormat.of().formatHex(sha256Digest.digest()), size);
+    }
+
+    /**
+     * 将临时文件原子移动到存储目录
+     */
+    private Path moveToStorage(Path tempFile) throws IOException {
+        // 生成唯一文件名: UUID + .pdf（同一内容只存一份，文件归内容记录所有）
+        String uniqueFilename = IdUtil.simpleUUID() + ".pdf";
+        Path filePath = getStorageDir().resolve(uniqueFilename);
+
+        // 临时文件与目标位于同一目录树，可直接原子重命名
+        try {
+            Files.move(tempFile, filePath, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+        return filePath;
+    }
+
+    /**
+     * 获取存储目录（不存在时创建）
      */
-    private String saveFileToDisk(byte[] fileBytes, String originalFilename) throws IOException {
-        // 创建存储目录
+    private Path getStorageDir() throws IOException {
         Path storageDir = Paths.get(storagePath);
         if (!Files.exists(storageDir)) {
             Files.createDirectories(storageDir);
             log.info("[文档][存储]-创建存储目录: {}", storageDir);
         }
+        return storageDir;
+    }
 
-        // 生成唯一文件名: UUID + 原始文件扩展名
-        String extension = FileUtil.extName(originalFilename);
-        String uniqueFilename = IdUtil.simpleUUID() + "." + extension;
-        Path filePath = storageDir.resolve(uniqueFilename);
-
-        // 写入文件
-        Files.write(filePath, fileBytes);
+    /**
+     * 已写入临时文件的上传内容
+     */
+    private record StagedFile(Path path, String md5, String sha256, long size) {
+    }
 
-        return filePath.toString();
+    /**
+     * 本次上传引用的共享内容
+     *
+     * @param content 共享内容
+     * @param needIngest 是否需要由本次上传提交解析
+     */
+    private record AcquiredContent(DocumentContent content, boolean needIngest) {
     }
 }
@@ -0,0 +1,80 @@
+package com.docagent.domain.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.docagent.domain.entity.DocumentText;
+import com.docagent.domain.repository.mysql.DocumentTextMapper;
+import com.docagent.domain.service.DocumentTextService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * 文档文本服务实现类
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+@Slf4j
+@Service
+public class DocumentTextServiceImpl extends ServiceImpl<DocumentTextMapper, DocumentText>
+        implements DocumentTextService {
+
+    /**
+     * 保存文档文本（已存在时覆盖）
+     *
+     * @param contentId 文档内容ID
+     * @param textContent 文本内容
+     */
+    @Override
+    public void saveText(Long contentId, String textContent) {
+        DocumentText documentText = new DocumentText();
+        documentText.setContentId(contentId);
+        documentText.setTextContent(textContent);
+        documentText.setTextLength(textContent.length());
+        documentText.setCreateTime(LocalDateTime.now());
+        try {
+            save(documentText);
+        } catch (DuplicateKeyException e) {
+            // 解析失败后重新解析，覆盖旧文本
+            updateById(documentText);
+        }
+    }
+
+    /**
+     * 获取完整文本
+     *
+     * @param contentId 文档内容ID
+     * @return 文本内容，不存在时返回null
+     */
+    @Override
+    public String getText(Long contentId) {
+        LambdaQueryWrapper<DocumentText> wrapper = Wrappers.lambdaQuery(DocumentText.class)
+                .select(DocumentText::getTextContent)
+                .eq(DocumentText::getContentId, contentId);
+        DocumentText documentText = getOne(wrapper);
+        return Objects.nonNull(documentText) ? documentText.getTextContent() : null;
+    }
+
+    /**
+     * 获取文本前缀（只从数据库读取前maxLength个字符）
+     *
+     * @param contentId 文档内容ID
+     * @param maxLength 最大字符数
+     * @return 文本前缀，不存在时返回null
+     */
+    @Override
+    public String getTextPrefix(Long contentId, int maxLength) {
+        QueryWrapper<DocumentText> wrapper = Wrappers.query(DocumentText.class)
+                .select("LEFT(text_content, " + maxLength + ") AS text_content")
+                .eq("content_id", contentId);
+        DocumentText documentText = getOne(wrapper);
+        return Objects.nonNull(documentText) ? documentText.getTextContent() : null;
+    }
+}
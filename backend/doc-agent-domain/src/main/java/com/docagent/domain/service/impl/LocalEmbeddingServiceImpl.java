@@ -0,0 +1,77 @@
+package com.docagent.domain.service.impl;
+
+import com.docagent.domain.config.EmbeddingConfig;
+import com.docagent.domain.service.EmbeddingService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 本地哈希向量化实现
+ * 将词元（与BM25相同的切分规则）按特征哈希累加到固定维度，结果确定且无需外部模型
+ * 只反映词面重叠、不具备语义相似度，仅作为无法访问embeddings接口时的降级方案（离线环境、测试）
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "app.embedding", name = "provider", havingValue = "local")
+public class LocalEmbeddingServiceImpl implements EmbeddingService {
+
+    private final EmbeddingConfig embeddingConfig;
+
+    @Override
+    public String getModelId() {
+        return "local-hash:" + getDimension();
+    }
+
+    @Override
+    public int getDimension() {
+        return embeddingConfig.getDimension();
+    }
+
+    @Override
+    public float[] embedQuery(String text) {
+        return embed(text);
+    }
+
+    @Override
+    public List<float[]> embedDocuments(List<String> texts) {
+        List<float[]> vectors = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            vectors.add(embed(text));
+        }
+        return vectors;
+    }
+
+    /**
+     * 特征哈希：词元哈希决定维度下标，哈希的另一位决定符号，最后归一化
+     */
+    private float[] embed(String text) {
+        int dimension = getDimension();
+        float[] vector = new float[dimension];
+        for (String token : Bm25Index.tokenize(text)) {
+            int hash = murmurMix(token.hashCode());
+            int index = Math.floorMod(hash, dimension);
+            vector[index] += (hash >>> 31) == 0 ? 1F : -1F;
+        }
+        return VectorIndex.normalize(vector);
+    }
+
+    /**
+     * 打散String.hashCode的低位分布
+     */
+    private static int murmurMix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+}
@@ -0,0 +1,169 @@
+package com.docagent.domain.service.impl;
+
+import com.docagent.domain.config.AiConfig;
+import com.docagent.domain.config.EmbeddingConfig;
+import com.docagent.domain.service.EmbeddingService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * OpenAI兼容embeddings接口的向量化实现（复用AI HTTP客户端的连接池）
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "app.embedding", name = "provider", havingValue = "openai", matchIfMissing = true)
+public class OpenAiEmbeddingServiceImpl implements EmbeddingService {
+
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+
+    /**
+     * 排队使用的会话标识（向量化请求不区分会话）
+     */
+    private static final String SESSION_KEY = "-";
+
+    private final AiConfig aiConfig;
+    private final EmbeddingConfig embeddingConfig;
+    private final OkHttpClient aiHttpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * 问题向量化客户端（共享连接池，整体调用超时为查询超时）
+     */
+    private OkHttpClient queryHttpClient;
+
+    /**
+     * 向量化接口准入控制（独立额度，不占用对话和翻译的并发；入库请求按批量优先级排队，问题向量化优先）
+     */
+    private AiRateLimiter rateLimiter;
+
+    @PostConstruct
+    public void init() {
+        queryHttpClient = aiHttpClient.newBuilder()
+                .callTimeout(Duration.ofMillis(embeddingConfig.getQueryTimeoutMs()))
+                .build();
+        int maxConcurrency = Math.max(2, embeddingConfig.getMaxConcurrency());
+        rateLimiter = new AiRateLimiter(maxConcurrency, 1, maxConcurrency, 1, maxConcurrency - 1,
+                embeddingConfig.getRequestsPerMinute(), embeddingConfig.getTokensPerMinute(), aiConfig.getDefaultRetryAfterMs());
+    }
+
+    @Override
+    public String getModelId() {
+        return embeddingConfig.getModel() + ":" + getDimension();
+    }
+
+    @Override
+    public int getDimension() {
+        return embeddingConfig.getDimension();
+    }
+
+    @Override
+    public float[] embedQuery(String text) {
+        return requestEmbeddings(queryHttpClient, List.of(text), AiRateLimiter.Priority.INTERACTIVE,
+                embeddingConfig.getQueryTimeoutMs()).get(0);
+    }
+
+    /**
+     * 逐批向量化，任一批失败（含维度不一致）立即失败，不再请求后续批次
+     */
+    @Override
+    public List<float[]> embedDocuments(List<String> texts) {
+        List<float[]> vectors = new ArrayList<>(texts.size());
+        int batchSize = embeddingConfig.getBatchSize();
+        for (int start = 0; start < texts.size(); start += batchSize) {
+            List<String> batch = texts.subList(start, Math.min(start + batchSize, texts.size()));
+            vectors.addAll(requestEmbeddings(aiHttpClient, batch, AiRateLimiter.Priority.BULK,
+                    embeddingConfig.getBulkQueueTimeoutMs()));
+        }
+        return vectors;
+    }
+
+    /**
+     * 调用embeddings接口（排队等待放行），返回向量的维度与配置不一致时失败
+     */
+    private List<float[]> requestEmbeddings(OkHttpClient client, List<String> texts,
+                                            AiRateLimiter.Priority priority, long queueTimeoutMs) {
+        int estimatedTokens = 0;
+        for (String text : texts) {
+            estimatedTokens += TokenEstimator.estimate(text);
+        }
+
+        AiRateLimiter.Permit permit = rateLimiter.acquire(priority, SESSION_KEY, estimatedTokens, queueTimeoutMs);
+        try {
+            Map<String, Object> requestBody = new HashMap<>();
+            requestBody.put("model", embeddingConfig.getModel());
+            requestBody.put("input", texts);
+            requestBody.put("dimensions", getDimension());
+
+            Request request = new Request.Builder()
+                    .url(aiConfig.getApiUrl() + "/embeddings")
+                    .addHeader("Authorization", "Bearer " + aiConfig.getApiKey())
+                    .addHeader("Content-Type", "application/json")
+                    .post(RequestBody.create(objectMapper.writeValueAsString(requestBody), JSON))
+                    .build();
+
+            try (Response response = client.newCall(request).execute()) {
+                permit.onResponse(response.code(), response.header("Retry-After"));
+                if (!response.isSuccessful()) {
+                    String errorBody = response.body() != null ? response.body().string() : "";
+                    log.error("[向量化][请求]-API调用失败，状态码={}，错误信息={}", response.code(), errorBody);
+                    throw new RuntimeException("向量化API调用失败: " + response.code());
+                }
+
+                // 按index字段还原输入顺序
+                JsonNode rootNode = objectMapper.readTree(response.body().string());
+                JsonNode totalTokens = rootNode.path("usage").path("total_tokens");
+                if (totalTokens.canConvertToInt()) {
+                    permit.setUsedTokens(totalTokens.asInt());
+                }
+                float[][] vectors = new float[texts.size()][];
+                for (JsonNode item : rootNode.path("data")) {
+                    JsonNode embedding = item.path("embedding");
+                    float[] vector = new float[embedding.size()];
+                    for (int i = 0; i < vector.length; i++) {
+                        vector[i] = (float) embedding.get(i).asDouble();
+                    }
+                    vectors[item.path("index").asInt()] = VectorIndex.normalize(vector);
+                }
+                for (float[] vector : vectors) {
+                    if (vector == null || vector.length != getDimension()) {
+                        log.error("[向量化][请求]-向量维度不一致，期望={}，实际={}", getDimension(), vector == null ? 0 : vector.length);
+                        throw new RuntimeException("向量化结果维度不一致，期望=" + getDimension());
+                    }
+                }
+                return Arrays.asList(vectors);
+            }
+        } catch (IOException e) {
+            permit.onFailure(e);
+            log.error("[向量化][请求]-向量化请求失败，分块数={}", texts.size(), e);
+            throw new RuntimeException("向量化请求失败: " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            permit.onFailure(e);
+            throw e;
+        } finally {
+            rateLimiter.release(permit);
+        }
+    }
+}
@@ -1,14 +1,37 @@
 package com.docagent.domain.service.impl;
 
+import com.docagent.domain.config.PdfConfig;
+import com.docagent.domain.dto.ParsedDocument;
 import com.docagent.domain.service.PdfParserService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.apache.pdfbox.io.RandomAccessReadBufferedFile;
+import org.apache.pdfbox.io.RandomAccessReadMemoryMappedFile;
+import org.apache.pdfbox.io.ScratchFile;
 import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDDocumentInformation;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDDocumentOutline;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDOutlineItem;
 import org.apache.pdfbox.text.PDFTextStripper;
 import org.springframework.stereotype.Service;
 
+import java.io.Closeable;
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 
 /**
  * PDF解析服务实现类
@@ -19,50 +42,309 @@ import java.io.InputStream;
  */
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class PdfParserServiceImpl implements PdfParserService {
 
     /**
-     * 提取PDF文本内容
+     * 目录项数量上限
+     */
+    private static final int MAX_OUTLINE_ITEMS = 1000;
+
+    private static final long MB = 1024L * 1024;
+
+    private final PdfConfig pdfConfig;
+    private final ExecutorService pdfParseExecutor;
+
+    /**
+     * 本节点PDF流数据缓存的堆内预算（单位MB，只约束ScratchFile缓冲区）
+     */
+    private Semaphore mainMemoryPermits;
+
+    @PostConstruct
+    public void init() {
+        mainMemoryPermits = new Semaphore(pdfConfig.getGlobalMainMemoryMb());
+    }
+
+    /**
+     * 解析PDF（一次加载得到全文、分页偏移、页数和元数据）
      *
-     * @param inputStream PDF文件输入流
-     * @return 文本内容
+     * @param file PDF文件
+     * @return 解析结果
      */
     @Override
-    public String extractText(InputStream inputStream) {
-        log.info("[PDF][解析]-开始提取PDF文本内容");
+    public ParsedDocument parse(File file) {
+        log.info("[PDF][解析]-开始解析PDF，文件={}", file.getName());
 
-        try (PDDocument document = Loader.loadPDF(inputStream.readAllBytes())) {
-            PDFTextStripper stripper = new PDFTextStripper();
-            String text = stripper.getText(document);
+        try {
+            int pageCount;
+            String title = null;
+            String author = null;
+            List<ParsedDocument.OutlineItem> outline;
+            ExtractedText extracted = null;
+            boolean parallel;
 
-            log.info("[PDF][解析]-PDF文本提取成功，文本长度={}", text.length());
-            return text;
+            // 1. 读取页数、元数据和目录；小文档直接在本次加载中提取全文
+            try (BudgetedDocument loaded = loadDocument(file)) {
+                PDDocument document = loaded.document();
+                pageCount = document.getNumberOfPages();
+                if (pageCount > pdfConfig.getMaxPages()) {
+                    log.warn("[PDF][解析]-PDF页数超过上限，文件={}，页数={}，上限={}",
+                            file.getName(), pageCount, pdfConfig.getMaxPages());
+                    throw new RuntimeException("PDF页数超过上限" + pdfConfig.getMaxPages() + "页");
+                }
+                PDDocumentInformation info = document.getDocumentInformation();
+                if (Objects.nonNull(info)) {
+                    title = info.getTitle();
+                    author = info.getAuthor();
+                }
+                outline = extractOutline(document);
+
+                parallel = pageCount >= pdfConfig.getParallelPageThreshold() && pdfConfig.getParallelism() > 1;
+                if (!parallel) {
+                    extracted = extractText(document, 1, pageCount);
+                }
+            }
+
+            // 2. 大文档先关闭上面的文档再按页段并行提取，同一时刻只保留各页段任务的加载
+            if (parallel) {
+                extracted = extractTextParallel(file, pageCount);
+            }
+            String text = extracted.text();
+
+            ParsedDocument parsed = ParsedDocument.builder()
+                    .pageCount(pageCount)
+                    .text(text)
+                    .pages(extracted.pages())
+                    .title(title)
+                    .author(author)
+                    .outline(outline)
+                    .build();
+
+            log.info("[PDF][解析]-PDF解析成功，页数={}，文本长度={}，目录项数={}",
+                    parsed.getPageCount(), text.length(), parsed.getOutline().size());
+            return parsed;
 
         } catch (IOException e) {
-            log.error("[PDF][解析]-PDF文本提取失败", e);
-            throw new RuntimeException("PDF文本提取失败: " + e.getMessage(), e);
+            log.error("[PDF][解析]-PDF解析失败", e);
+            throw new RuntimeException("PDF解析失败: " + e.getMessage(), e);
         }
     }
 
     /**
-     * 获取PDF页数
-     *
-     * @param inputStream PDF文件输入流
-     * @return 页数
+     * 按页段并行提取文本，每个任务独立加载文档（PDDocument非线程安全），结果按页序拼接
      */
-    @Override
-    public int getPageCount(InputStream inputStream) {
-        log.info("[PDF][解析]-开始获取PDF页数");
+    private ExtractedText extractTextParallel(File file, int pageCount) throws IOException {
+        int pagesPerTask = pdfConfig.getPagesPerTask();
+        log.info("[PDF][解析]-启用并行提取，页数={}，每段页数={}", pageCount, pagesPerTask);
 
-        try (PDDocument document = Loader.loadPDF(inputStream.readAllBytes())) {
-            int pageCount = document.getNumberOfPages();
+        List<Future<ExtractedText>> futures = new ArrayList<>();
+        for (int startPage = 1; startPage <= pageCount; startPage += pagesPerTask) {
+            int rangeStart = startPage;
+            int rangeEnd = Math.min(startPage + pagesPerTask - 1, pageCount);
+            futures.add(pdfParseExecutor.submit(() -> {
+                try (BudgetedDocument rangeDocument = loadDocument(file)) {
+                    return extractText(rangeDocument.document(), rangeStart, rangeEnd);
+                }
+            }));
+        }
 
-            log.info("[PDF][解析]-获取PDF页数成功，页数={}", pageCount);
-            return pageCount;
+        // 按页段顺序拼接文本，并将页偏移换算为全文偏移
+        StringBuilder text = new StringBuilder();
+        List<ParsedDocument.PageText> pages = new ArrayList<>(pageCount);
+        try {
+            for (Future<ExtractedText> future : futures) {
+                ExtractedText range = future.get();
+                int baseOffset = text.length();
+                for (ParsedDocument.PageText page : range.pages()) {
+                    pages.add(ParsedDocument.PageText.builder()
+                            .pageNumber(page.getPageNumber())
+                            .startOffset(baseOffset + page.getStartOffset())
+                            .endOffset(baseOffset + page.getEndOffset())
+                            .build());
+                }
+                text.append(range.text());
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IOException("PDF并行提取被中断", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw new IOException("PDF并行提取失败: " + e.getCause().getMessage(), e.getCause());
+        }
 
-        } catch (IOException e) {
-            log.error("[PDF][解析]-获取PDF页数失败", e);
-            throw new RuntimeException("获取PDF页数失败: " + e.getMessage(), e);
+        return new ExtractedText(text.toString(), pages);
+    }
+
+    /**
+     * 从磁盘文件加载PDF，流数据缓存受单次加载预算和本节点总预算限制
+     * 总预算不足时不等待，直接使用纯临时文件缓存；该预算只覆盖ScratchFile缓冲区，页对象和提取文本的堆占用由页数上限控制
+     */
+    private BudgetedDocument loadDocument(File file) throws IOException {
+        int permits = pdfConfig.getMaxMainMemoryPerLoadMb();
+        MemoryUsageSetting memoryUsage;
+        if (permits > 0 && mainMemoryPermits.tryAcquire(permits)) {
+            memoryUsage = MemoryUsageSetting.setupMixed(permits * MB, scratchFileLimit());
+        } else {
+            log.debug("[PDF][加载]-堆内缓存预算不足，使用临时文件缓存，文件={}", file.getName());
+            permits = 0;
+            memoryUsage = MemoryUsageSetting.setupTempFileOnly(scratchFileLimit());
+        }
+        if (StringUtils.isNotBlank(pdfConfig.getScratchDir())) {
+            memoryUsage.setTempDir(new File(pdfConfig.getScratchDir()));
+        }
+
+        RandomAccessRead source = null;
+        try {
+            source = Boolean.TRUE.equals(pdfConfig.getMmapEnabled())
+                    ? new RandomAccessReadMemoryMappedFile(file)
+                    : new RandomAccessReadBufferedFile(file);
+            MemoryUsageSetting setting = memoryUsage;
+            PDDocument document = Loader.loadPDF(source, "", null, null, () -> new ScratchFile(setting));
+            return new BudgetedDocument(document, permits);
+        } catch (IOException | RuntimeException e) {
+            if (Objects.nonNull(source)) {
+                source.close();
+            }
+            if (permits > 0) {
+                mainMemoryPermits.release(permits);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 单次加载的临时文件上限（字节），-1表示不限制
+     */
+    private long scratchFileLimit() {
+        int limitMb = pdfConfig.getMaxScratchFilePerLoadMb();
+        return limitMb < 0 ? -1 : limitMb * MB;
+    }
+
+    /**
+     * 提取指定页范围的文本并记录每页字符区间
+     */
+    private ExtractedText extractText(PDDocument document, int startPage, int endPage) throws IOException {
+        PageTrackingStripper stripper = new PageTrackingStripper();
+        stripper.setStartPage(startPage);
+        stripper.setEndPage(endPage);
+        StringWriter writer = new StringWriter();
+        stripper.writeText(document, writer);
+        return new ExtractedText(writer.toString(), stripper.getPages());
+    }
+
+    /**
+     * 提取文档目录（书签），数量超过上限时截断
+     */
+    private List<ParsedDocument.OutlineItem> extractOutline(PDDocument document) {
+        List<ParsedDocument.OutlineItem> items = new ArrayList<>();
+        PDDocumentOutline outline = document.getDocumentCatalog().getDocumentOutline();
+        if (Objects.nonNull(outline)) {
+            collectOutlineItems(document, outline.children(), 0, items);
+        }
+        return items;
+    }
+
+    /**
+     * 递归收集目录项
+     */
+    private void collectOutlineItems(PDDocument document, Iterable<PDOutlineItem> children,
+                                     int level, List<ParsedDocument.OutlineItem> items) {
+        for (PDOutlineItem item : children) {
+            if (items.size() >= MAX_OUTLINE_ITEMS) {
+                return;
+            }
+
+            Integer pageNumber = null;
+            try {
+                PDPage page = item.findDestinationPage(document);
+                if (Objects.nonNull(page)) {
+                    int index = document.getPages().indexOf(page);
+                    pageNumber = index >= 0 ? index + 1 : null;
+                }
+            } catch (IOException e) {
+                log.debug("[PDF][解析]-目录项目标页解析失败: {}", item.getTitle());
+            }
+
+            items.add(ParsedDocument.OutlineItem.builder()
+                    .title(item.getTitle())
+                    .pageNumber(pageNumber)
+                    .level(level)
+                    .build());
+
+            if (item.hasChildren()) {
+                collectOutlineItems(document, item.children(), level + 1, items);
+            }
+        }
+    }
+
+    /**
+     * 占用堆内缓存预算的PDF文档，关闭时归还预算（PDDocument关闭时会一并关闭读取源）
+     */
+    private final class BudgetedDocument implements Closeable {
+
+        private final PDDocument document;
+        private final int permits;
+
+        private BudgetedDocument(PDDocument document, int permits) {
+            this.document = document;
+            this.permits = permits;
+        }
+
+        private PDDocument document() {
+            return document;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                document.close();
+            } finally {
+                if (permits > 0) {
+                    mainMemoryPermits.release(permits);
+                }
+            }
+        }
+    }
+
+    /**
+     * 文本提取结果
+     */
+    private record ExtractedText(String text, List<ParsedDocument.PageText> pages) {
+    }
+
+    /**
+     * 记录每页在输出文本中字符区间的文本提取器
+     */
+    private static class PageTrackingStripper extends PDFTextStripper {
+
+        private final List<ParsedDocument.PageText> pages = new ArrayList<>();
+
+        private int pageStartOffset;
+
+        @Override
+        protected void startPage(PDPage page) throws IOException {
+            pageStartOffset = currentOffset();
+            super.startPage(page);
+        }
+
+        @Override
+        protected void endPage(PDPage page) throws IOException {
+            super.endPage(page);
+            pages.add(ParsedDocument.PageText.builder()
+                    .pageNumber(getCurrentPageNo())
+                    .startOffset(pageStartOffset)
+                    .endOffset(currentOffset())
+                    .build());
+        }
+
+        private int currentOffset() throws IOException {
+            output.flush();
+            return ((StringWriter) output).getBuffer().length();
+        }
+
+        List<ParsedDocument.PageText> getPages() {
+            return pages;
         }
     }
 }
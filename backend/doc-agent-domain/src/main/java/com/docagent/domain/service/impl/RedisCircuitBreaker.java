@@ -0,0 +1,68 @@
+package com.docagent.domain.service.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Redis访问熔断器：访问失败后在熔断时间内直接跳过Redis，避免每个请求都等待命令超时
+ * 熔断时间结束后只放行一个试探请求，成功则恢复，失败则继续熔断；试探请求未报告结果时，再过一个熔断时间放行下一个试探请求
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+final class RedisCircuitBreaker {
+
+    private final long openMillis;
+    private final LongSupplier clock;
+
+    /**
+     * 熔断结束时间（毫秒），0表示未熔断
+     */
+    private final AtomicLong openUntil = new AtomicLong();
+
+    RedisCircuitBreaker(long openMillis) {
+        this(openMillis, System::currentTimeMillis);
+    }
+
+    RedisCircuitBreaker(long openMillis, LongSupplier clock) {
+        this.openMillis = openMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * 是否允许访问Redis（熔断结束后只放行一个试探请求：放行时把熔断结束时间后移，其他请求继续跳过）
+     */
+    boolean allowRequest() {
+        long until = openUntil.get();
+        if (until == 0L) {
+            return true;
+        }
+        long now = clock.getAsLong();
+        if (now < until) {
+            return false;
+        }
+        return openUntil.compareAndSet(until, now + openMillis);
+    }
+
+    /**
+     * 记录访问成功（结束熔断）
+     */
+    void onSuccess() {
+        openUntil.set(0L);
+    }
+
+    /**
+     * 记录访问失败（开始或延长熔断）
+     */
+    void onFailure() {
+        openUntil.set(clock.getAsLong() + openMillis);
+    }
+
+    /**
+     * 是否处于熔断状态
+     */
+    boolean isOpen() {
+        return openUntil.get() != 0L;
+    }
+}
@@ -0,0 +1,61 @@
+package com.docagent.domain.service.impl;
+
+/**
+ * token数量估算器
+ * 不依赖具体模型的分词表：中日韩字符按1个token计，其他字符按4个字符1个token计
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+final class TokenEstimator {
+
+    private static final int LATIN_CHARS_PER_TOKEN = 4;
+
+    private TokenEstimator() {
+    }
+
+    /**
+     * 估算文本的token数量
+     *
+     * @param text 文本
+     * @return token数量
+     */
+    static int estimate(CharSequence text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        int cjkCount = 0;
+        int otherCount = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (isCjk(text.charAt(i))) {
+                cjkCount++;
+            } else {
+                otherCount++;
+            }
+        }
+        return estimate(cjkCount, otherCount);
+    }
+
+    /**
+     * 按字符数估算token数量
+     *
+     * @param cjkCount 中日韩字符数
+     * @param otherCount 其他字符数
+     * @return token数量
+     */
+    static int estimate(int cjkCount, int otherCount) {
+        return cjkCount + (otherCount + LATIN_CHARS_PER_TOKEN - 1) / LATIN_CHARS_PER_TOKEN;
+    }
+
+    /**
+     * 是否为中日韩字符
+     */
+    static boolean isCjk(char c) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(c);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+}
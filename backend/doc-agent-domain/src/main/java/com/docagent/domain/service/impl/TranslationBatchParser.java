@@ -0,0 +1,130 @@
+package com.docagent.domain.service.impl;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 批量翻译响应解析器
+ * 使用Jackson流式API逐个读取 {"segments":[{"id":1,"translation":"..."}]} 中的片段，
+ * 输出被截断或中途格式错误时保留已读到的片段，其余片段由调用方单独重译
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+@Slf4j
+final class TranslationBatchParser {
+
+    static final String SEGMENTS_FIELD = "segments";
+    static final String ID_FIELD = "id";
+    static final String TEXT_FIELD = "text";
+    static final String TRANSLATION_FIELD = "translation";
+
+    private TranslationBatchParser() {
+    }
+
+    /**
+     * 解析批量翻译结果
+     *
+     * @param jsonFactory JSON工厂
+     * @param content 模型回复内容（允许包含代码块标记等前后缀）
+     * @param segmentCount 片段数量（编号从1开始）
+     * @return 与片段一一对应的译文，缺失的片段为null
+     */
+    static List<String> parse(JsonFactory jsonFactory, String content, int segmentCount) {
+        String[] results = new String[segmentCount];
+        int start = content == null ? -1 : indexOfJsonStart(content);
+        if (start < 0) {
+            return Arrays.asList(results);
+        }
+
+        try (JsonParser parser = jsonFactory.createParser(content.substring(start))) {
+            JsonToken token = parser.nextToken();
+            // 兼容直接返回片段数组的情况
+            if (token == JsonToken.START_OBJECT) {
+                token = moveToField(parser, SEGMENTS_FIELD);
+            }
+            if (token != JsonToken.START_ARRAY) {
+                return Arrays.asList(results);
+            }
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+                if (token == JsonToken.START_OBJECT) {
+                    readSegment(parser, results);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } catch (JsonProcessingException e) {
+            log.warn("[AI][批量翻译]-响应JSON不完整，保留已解析的片段，原因={}", e.getOriginalMessage());
+        } catch (IOException e) {
+            log.warn("[AI][批量翻译]-响应解析失败", e);
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * 读取单个片段对象（当前位于START_OBJECT）
+     */
+    private static void readSegment(JsonParser parser, String[] results) throws IOException {
+        int id = -1;
+        String translation = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            JsonToken valueToken = parser.nextToken();
+            if (ID_FIELD.equals(name) && (valueToken == JsonToken.VALUE_NUMBER_INT || valueToken == JsonToken.VALUE_STRING)) {
+                id = parseId(parser.getText());
+            } else if (TRANSLATION_FIELD.equals(name) && valueToken == JsonToken.VALUE_STRING) {
+                translation = parser.getText();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (id >= 1 && id <= results.length && translation != null && !translation.isBlank()) {
+            results[id - 1] = translation;
+        }
+    }
+
+    private static int parseId(String text) {
+        try {
+            return Integer.parseInt(text.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 定位JSON起始位置（跳过代码块标记等前缀）
+     */
+    private static int indexOfJsonStart(String content) {
+        int objectStart = content.indexOf('{');
+        int arrayStart = content.indexOf('[');
+        if (objectStart < 0) {
+            return arrayStart;
+        }
+        return arrayStart < 0 ? objectStart : Math.min(objectStart, arrayStart);
+    }
+
+    /**
+     * 在当前对象内移动到指定字段的值，跳过其他字段的子结构
+     *
+     * @return 字段值的token，字段不存在时返回null
+     */
+    private static JsonToken moveToField(JsonParser parser, String fieldName) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            JsonToken valueToken = parser.nextToken();
+            if (fieldName.equals(name)) {
+                return valueToken;
+            }
+            parser.skipChildren();
+        }
+        return null;
+    }
+}
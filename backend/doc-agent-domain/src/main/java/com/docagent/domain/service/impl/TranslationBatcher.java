@@ -0,0 +1,73 @@
+package com.docagent.domain.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量翻译组批器
+ * 以分段为单位组批（分段内只包含未命中翻译记忆的源段落），同一分段的源段落总在同一批次；
+ * 批次按原文token数和分段数封顶，请求次数约为 未命中原文token数 / token上限
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+final class TranslationBatcher {
+
+    private final int maxChunks;
+    private final int maxTokens;
+
+    private List<ChunkTranslation.Part> batch = new ArrayList<>();
+    private int batchChunks;
+    private int batchTokens;
+
+    /**
+     * @param maxChunks 每批分段数上限
+     * @param maxTokens 每批原文token上限（单个分段超过上限时单独成批）
+     */
+    TranslationBatcher(int maxChunks, int maxTokens) {
+        this.maxChunks = Math.max(1, maxChunks);
+        this.maxTokens = Math.max(1, maxTokens);
+    }
+
+    /**
+     * 加入分段的待翻译源段落
+     *
+     * @param parts 同一分段的待翻译源段落
+     * @return 加入前已满的批次（需先提交），未满时返回null
+     */
+    List<ChunkTranslation.Part> add(List<ChunkTranslation.Part> parts) {
+        if (parts.isEmpty()) {
+            return null;
+        }
+        int tokens = 0;
+        for (ChunkTranslation.Part part : parts) {
+            tokens += TokenEstimator.estimate(part.content());
+        }
+
+        List<ChunkTranslation.Part> full = null;
+        if (!batch.isEmpty() && (batchChunks >= maxChunks || batchTokens + tokens > maxTokens)) {
+            full = drain();
+        }
+        batch.addAll(parts);
+        batchChunks++;
+        batchTokens += tokens;
+        return full;
+    }
+
+    /**
+     * 取出当前批次
+     *
+     * @return 当前批次，为空时返回null
+     */
+    List<ChunkTranslation.Part> drain() {
+        if (batch.isEmpty()) {
+            return null;
+        }
+        List<ChunkTranslation.Part> full = batch;
+        batch = new ArrayList<>();
+        batchChunks = 0;
+        batchTokens = 0;
+        return full;
+    }
+}
@@ -0,0 +1,307 @@
+package com.docagent.domain.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 翻译分段器
+ * 先按句子切分（空行视为段落边界，单个换行视为PDF折行），再把相邻句子合并到目标token数，
+ * 段落边界处达到一定填充率即结束当前分段；分段只在句末切分，单句超过上限时才依次按换行、逗号、空白切开
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+final class TranslationChunker {
+
+    /**
+     * 句末标点
+     */
+    private static final String SENTENCE_END_CHARS = "。！？!?；;…";
+
+    /**
+     * 句末标点之后仍属于本句的闭合符号
+     */
+    private static final String CLOSING_CHARS = "”’\"')）】」』";
+
+    /**
+     * 超长句子的次级切分字符
+     */
+    private static final String CLAUSE_CHARS = "，,、：:";
+
+    /**
+     * 分段已达到目标token数的该比例时，遇到段落边界即结束
+     */
+    private static final double MIN_FILL_RATIO = 0.6D;
+
+    private TranslationChunker() {
+    }
+
+    /**
+     * 切分文本
+     *
+     * @param text 原文
+     * @param targetTokens 每个分段的目标token数
+     * @param maxTokens 单个分段的token上限（只有单句超过该值时才会切开句子）
+     * @return 分段列表（按原文顺序，带原文偏移）
+     */
+    static List<Chunk> split(String text, int targetTokens, int maxTokens) {
+        List<Chunk> chunks = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return chunks;
+        }
+        int target = Math.max(1, Math.min(targetTokens, maxTokens));
+        int max = Math.max(target, maxTokens);
+
+        int chunkStart = -1;
+        int chunkEnd = -1;
+        int chunkTokens = 0;
+        for (Sentence sentence : splitSentences(text)) {
+            // 单句超过上限：结束当前分段，超长句子单独切开
+            if (sentence.tokens() > max) {
+                if (chunkStart >= 0) {
+                    addChunk(text, chunkStart, chunkEnd, chunks);
+                    chunkStart = -1;
+                    chunkTokens = 0;
+                }
+                for (int[] piece : cutOversized(text, sentence.start(), sentence.end(), max)) {
+                    addChunk(text, piece[0], piece[1], chunks);
+                }
+                continue;
+            }
+
+            boolean full = chunkTokens + sentence.tokens() > target;
+            boolean paragraphBreak = sentence.paragraphStart() && chunkTokens >= target * MIN_FILL_RATIO;
+            if (chunkStart >= 0 && (full || paragraphBreak)) {
+                addChunk(text, chunkStart, chunkEnd, chunks);
+                chunkStart = -1;
+                chunkTokens = 0;
+            }
+            if (chunkStart < 0) {
+                chunkStart = sentence.start();
+            }
+            chunkEnd = sentence.end();
+            chunkTokens += sentence.tokens();
+        }
+        if (chunkStart >= 0) {
+            addChunk(text, chunkStart, chunkEnd, chunks);
+        }
+        return chunks;
+    }
+
+    /**
+     * 把分段按空行拆回源段落（翻译记忆按源段落查询和写入，不受分段合并方式影响）
+     *
+     * @param chunk 分段
+     * @return 源段落列表（去除首尾空白，偏移为在原文中的偏移）
+     */
+    static List<Chunk> paragraphs(Chunk chunk) {
+        List<Chunk> paragraphs = new ArrayList<>();
+        String content = chunk.content();
+        int length = content.length();
+        int paragraphStart = 0;
+        for (int i = 0; i < length; i++) {
+            if (content.charAt(i) != '\n') {
+                continue;
+            }
+            int next = i + 1;
+            while (next < length && content.charAt(next) != '\n' && Character.isWhitespace(content.charAt(next))) {
+                next++;
+            }
+            if (next < length && content.charAt(next) == '\n') {
+                addChunk(content, paragraphStart, i, paragraphs);
+                while (next < length && Character.isWhitespace(content.charAt(next))) {
+                    next++;
+                }
+                paragraphStart = next;
+                i = next - 1;
+            }
+        }
+        addChunk(content, paragraphStart, length, paragraphs);
+        return paragraphs.stream()
+                .map(paragraph -> new Chunk(paragraph.content(), chunk.start() + paragraph.start(),
+                        chunk.start() + paragraph.end()))
+                .toList();
+    }
+
+    /**
+     * 按源段落拼接译文，段落之间保留原文的分隔空白
+     *
+     * @param chunk 分段
+     * @param paragraphs 分段的源段落（{@link #paragraphs(Chunk)}的结果）
+     * @param translations 与源段落一一对应的译文
+     * @return 分段译文
+     */
+    static String join(Chunk chunk, List<Chunk> paragraphs, List<String> translations) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < paragraphs.size(); i++) {
+            if (i > 0) {
+                builder.append(chunk.content(), paragraphs.get(i - 1).end() - chunk.start(),
+                        paragraphs.get(i).start() - chunk.start());
+            }
+            builder.append(translations.get(i));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 按句末标点和空行切分句子
+     */
+    private static List<Sentence> splitSentences(String text) {
+        List<Sentence> sentences = new ArrayList<>();
+        int length = text.length();
+        int sentenceStart = 0;
+        boolean paragraphStart = true;
+
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c == '\n') {
+                int next = i + 1;
+                while (next < length && text.charAt(next) != '\n' && Character.isWhitespace(text.charAt(next))) {
+                    next++;
+                }
+                if (next < length && text.charAt(next) == '\n') {
+                    // 空行：段落结束
+                    addSentence(text, sentenceStart, i, paragraphStart, sentences);
+                    paragraphStart = true;
+                    while (next < length && Character.isWhitespace(text.charAt(next))) {
+                        next++;
+                    }
+                    sentenceStart = next;
+                    i = next - 1;
+                }
+                continue;
+            }
+            if (isSentenceEnd(text, i)) {
+                int end = i + 1;
+                while (end < length && (CLOSING_CHARS.indexOf(text.charAt(end)) >= 0
+                        || SENTENCE_END_CHARS.indexOf(text.charAt(end)) >= 0)) {
+                    end++;
+                }
+                if (addSentence(text, sentenceStart, end, paragraphStart, sentences)) {
+                    paragraphStart = false;
+                }
+                sentenceStart = end;
+                i = end - 1;
+            }
+        }
+        addSentence(text, sentenceStart, length, paragraphStart, sentences);
+        return sentences;
+    }
+
+    /**
+     * 句点只在其后是空白或文本结尾时视为句末（避免切开小数、网址等）
+     */
+    private static boolean isSentenceEnd(String text, int index) {
+        char c = text.charAt(index);
+        if (SENTENCE_END_CHARS.indexOf(c) >= 0) {
+            return true;
+        }
+        return c == '.' && (index + 1 == text.length() || Character.isWhitespace(text.charAt(index + 1)));
+    }
+
+    /**
+     * 添加句子（去除首尾空白，空句子忽略）
+     *
+     * @return 是否添加
+     */
+    private static boolean addSentence(String text, int start, int end, boolean paragraphStart, List<Sentence> sentences) {
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        if (start >= end) {
+            return false;
+        }
+        sentences.add(new Sentence(start, end, TokenEstimator.estimate(text.subSequence(start, end)), paragraphStart));
+        return true;
+    }
+
+    /**
+     * 切开超长句子：超出上限时在最近的换行、逗号或空白之后切分，都没有时直接切分
+     */
+    private static List<int[]> cutOversized(String text, int start, int end, int maxTokens) {
+        List<int[]> pieces = new ArrayList<>();
+        int pieceStart = start;
+        int lastLineBreak = -1;
+        int lastClause = -1;
+        int lastSpace = -1;
+        int cjkCount = 0;
+        int otherCount = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (TokenEstimator.isCjk(c)) {
+                cjkCount++;
+            } else {
+                otherCount++;
+            }
+            if (c == '\n') {
+                lastLineBreak = i + 1;
+            } else if (CLAUSE_CHARS.indexOf(c) >= 0) {
+                lastClause = i + 1;
+            } else if (Character.isWhitespace(c)) {
+                lastSpace = i + 1;
+            }
+            if (TokenEstimator.estimate(cjkCount, otherCount) <= maxTokens) {
+                continue;
+            }
+
+            int cut = lastLineBreak > pieceStart ? lastLineBreak
+                    : lastClause > pieceStart ? lastClause
+                    : lastSpace > pieceStart ? lastSpace
+                    : Math.max(i, pieceStart + 1);
+            pieces.add(new int[]{pieceStart, cut});
+            pieceStart = cut;
+            lastLineBreak = -1;
+            lastClause = -1;
+            lastSpace = -1;
+            // 重新统计切分点之后已扫描的字符
+            cjkCount = 0;
+            otherCount = 0;
+            for (int j = cut; j <= i; j++) {
+                if (TokenEstimator.isCjk(text.charAt(j))) {
+                    cjkCount++;
+                } else {
+                    otherCount++;
+                }
+            }
+        }
+        if (pieceStart < end) {
+            pieces.add(new int[]{pieceStart, end});
+        }
+        return pieces;
+    }
+
+    /**
+     * 添加分段（去除首尾空白并修正偏移，空分段忽略）
+     */
+    private static void addChunk(String text, int start, int end, List<Chunk> chunks) {
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        if (start < end) {
+            chunks.add(new Chunk(text.substring(start, end), start, end));
+        }
+    }
+
+    /**
+     * 句子（原文区间）
+     */
+    private record Sentence(int start, int end, int tokens, boolean paragraphStart) {
+    }
+
+    /**
+     * 翻译分段
+     *
+     * @param content 分段原文
+     * @param start 在原文中的起始偏移（含）
+     * @param end 在原文中的结束偏移（不含）
+     */
+    record Chunk(String content, int start, int end) {
+    }
+}
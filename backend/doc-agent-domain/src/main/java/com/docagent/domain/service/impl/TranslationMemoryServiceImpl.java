@@ -0,0 +1,173 @@
+package com.docagent.domain.service.impl;
+
+import cn.hutool.crypto.digest.DigestUtil;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.docagent.domain.config.TranslationConfig;
+import com.docagent.domain.dto.TranslationMemoryStatsDTO;
+import com.docagent.domain.entity.TranslationMemory;
+import com.docagent.domain.repository.mysql.TranslationMemoryMapper;
+import com.docagent.domain.service.TranslationMemoryService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * 翻译记忆服务实现类（本地缓存 + MySQL持久层）
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TranslationMemoryServiceImpl extends ServiceImpl<TranslationMemoryMapper, TranslationMemory>
+        implements TranslationMemoryService {
+
+    /**
+     * 行内空白（不含换行）
+     */
+    private static final Pattern HORIZONTAL_WHITESPACE = Pattern.compile("[\\h\\x0B\\f]+");
+
+    /**
+     * 行尾空白
+     */
+    private static final Pattern TRAILING_WHITESPACE = Pattern.compile(" +\n");
+
+    private final TranslationConfig translationConfig;
+
+    /**
+     * 本地缓存，key为段落哈希，value为译文
+     */
+    private Cache<String, String> localCache;
+
+    private final AtomicLong lookupCount = new AtomicLong();
+    private final AtomicLong localHitCount = new AtomicLong();
+    private final AtomicLong persistentHitCount = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        localCache = Caffeine.newBuilder()
+                .maximumSize(translationConfig.getMemoryLocalMaxSize())
+                .expireAfterAccess(Duration.ofMinutes(translationConfig.getMemoryLocalExpireMinutes()))
+                .build();
+    }
+
+    /**
+     * 查询段落的已有译文（先查本地缓存，再查持久层）
+     *
+     * @param text 原文
+     * @param targetLang 目标语言
+     * @param style 翻译风格
+     * @return 译文，未命中时返回null
+     */
+    @Override
+    public String lookup(String text, String targetLang, String style) {
+        if (!Boolean.TRUE.equals(translationConfig.getMemoryEnabled()) || StringUtils.isBlank(text)) {
+            return null;
+        }
+        lookupCount.incrementAndGet();
+        String hash = buildHash(text, targetLang, style);
+
+        // 1. 本地缓存
+        String translated = localCache.getIfPresent(hash);
+        if (Objects.nonNull(translated)) {
+            localHitCount.incrementAndGet();
+            return translated;
+        }
+
+        // 2. 持久层
+        LambdaQueryWrapper<TranslationMemory> wrapper = Wrappers.lambdaQuery(TranslationMemory.class)
+                .select(TranslationMemory::getTranslatedContent)
+                .eq(TranslationMemory::getSourceHash, hash)
+                .last("LIMIT 1");
+        TranslationMemory memory = getOne(wrapper);
+        if (Objects.nonNull(memory)) {
+            persistentHitCount.incrementAndGet();
+            localCache.put(hash, memory.getTranslatedContent());
+            return memory.getTranslatedContent();
+        }
+
+        return null;
+    }
+
+    /**
+     * 保存段落译文到翻译记忆
+     *
+     * @param text 原文
+     * @param targetLang 目标语言
+     * @param style 翻译风格
+     * @param translatedText 译文
+     */
+    @Override
+    public void store(String text, String targetLang, String style, String translatedText) {
+        if (!Boolean.TRUE.equals(translationConfig.getMemoryEnabled())
+                || StringUtils.isBlank(text) || StringUtils.isBlank(translatedText)) {
+            return;
+        }
+        String hash = buildHash(text, targetLang, style);
+        localCache.put(hash, translatedText);
+
+        TranslationMemory memory = new TranslationMemory();
+        memory.setSourceHash(hash);
+        memory.setTargetLang(targetLang);
+        memory.setTranslateStyle(style);
+        memory.setTranslatedContent(translatedText);
+        memory.setCreateTime(LocalDateTime.now());
+        try {
+            save(memory);
+        } catch (DuplicateKeyException e) {
+            // 相同段落已被其他任务写入，保留已有译文
+            log.debug("[翻译记忆][保存]-译文已存在，哈希={}", hash);
+        }
+    }
+
+    /**
+     * 获取翻译记忆命中统计
+     *
+     * @return 命中统计信息
+     */
+    @Override
+    public TranslationMemoryStatsDTO getStats() {
+        long lookups = lookupCount.get();
+        long localHits = localHitCount.get();
+        long persistentHits = persistentHitCount.get();
+        long misses = lookups - localHits - persistentHits;
+
+        return TranslationMemoryStatsDTO.builder()
+                .lookupCount(lookups)
+                .localHitCount(localHits)
+                .persistentHitCount(persistentHits)
+                .missCount(misses)
+                .hitRate(lookups > 0 ? (double) (localHits + persistentHits) / lookups : 0D)
+                .localSize(localCache.estimatedSize())
+                .build();
+    }
+
+    /**
+     * 计算段落哈希（原文规范化后与目标语言、风格一起参与计算）
+     * 只合并行内空白，换行保留（列表、代码、诗歌等按行排版的内容换行不同则译文不同）
+     */
+    static String buildHash(String text, String targetLang, String style) {
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFC)
+                .replace("\r\n", "\n")
+                .replace('\r', '\n');
+        normalized = HORIZONTAL_WHITESPACE.matcher(normalized).replaceAll(" ");
+        normalized = TRAILING_WHITESPACE.matcher(normalized).replaceAll("\n").strip();
+        return DigestUtil.sha256Hex(normalized + "\u0000" + targetLang + "\u0000" + Objects.toString(style, ""));
+    }
+}
@@ -0,0 +1,108 @@
+package com.docagent.domain.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.docagent.domain.entity.TranslationParagraph;
+import com.docagent.domain.repository.mysql.TranslationParagraphMapper;
+import com.docagent.domain.service.TranslationParagraphService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 翻译段落服务实现类
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+@Slf4j
+@Service
+public class TranslationParagraphServiceImpl extends ServiceImpl<TranslationParagraphMapper, TranslationParagraph>
+        implements TranslationParagraphService {
+
+    /**
+     * 保存单个段落的翻译结果（重复保存时忽略）
+     *
+     * @param translationId 翻译记录ID
+     * @param paragraphIndex 段落下标
+     * @param originalContent 原文
+     * @param translatedContent 译文
+     * @param sourceStart 段落在文档文本中的起始偏移（含）
+     * @param sourceEnd 段落在文档文本中的结束偏移（不含）
+     * @return 是否新保存（段落已存在时返回false）
+     */
+    @Override
+    public boolean saveParagraph(Long translationId, Integer paragraphIndex, String originalContent, String translatedContent,
+                              Integer sourceStart, Integer sourceEnd) {
+        TranslationParagraph paragraph = new TranslationParagraph();
+        paragraph.setTranslationId(translationId);
+        paragraph.setParagraphIndex(paragraphIndex);
+        paragraph.setOriginalContent(originalContent);
+        paragraph.setTranslatedContent(translatedContent);
+        paragraph.setSourceStart(sourceStart);
+        paragraph.setSourceEnd(sourceEnd);
+        paragraph.setCreateTime(LocalDateTime.now());
+
+        try {
+            return save(paragraph);
+        } catch (DuplicateKeyException e) {
+            // 同一段落已由其他任务保存（如重启后的重复执行），保留已有结果
+            log.warn("[翻译段落][保存]-段落已存在，翻译ID={}，段落下标={}", translationId, paragraphIndex);
+            return false;
+        }
+    }
+
+    /**
+     * 删除翻译记录下的全部段落
+     *
+     * @param translationId 翻译记录ID
+     */
+    @Override
+    public void removeByTranslationId(Long translationId) {
+        remove(Wrappers.lambdaQuery(TranslationParagraph.class)
+                .eq(TranslationParagraph::getTranslationId, translationId));
+    }
+
+    /**
+     * 查询已完成翻译的段落下标
+     *
+     * @param translationId 翻译记录ID
+     * @return 段落下标集合
+     */
+    @Override
+    public Set<Integer> listTranslatedIndexes(Long translationId) {
+        LambdaQueryWrapper<TranslationParagraph> wrapper = Wrappers.lambdaQuery(TranslationParagraph.class)
+                .select(TranslationParagraph::getParagraphIndex)
+                .eq(TranslationParagraph::getTranslationId, translationId);
+
+        return list(wrapper).stream()
+                .map(TranslationParagraph::getParagraphIndex)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * 按段落顺序分页查询翻译段落
+     *
+     * @param translationId 翻译记录ID
+     * @param offset 起始段落下标
+     * @param limit 查询数量
+     * @return 翻译段落列表
+     */
+    @Override
+    public List<TranslationParagraph> listByTranslationId(Long translationId, Integer offset, Integer limit) {
+        LambdaQueryWrapper<TranslationParagraph> wrapper = Wrappers.lambdaQuery(TranslationParagraph.class)
+                .eq(TranslationParagraph::getTranslationId, translationId)
+                .ge(TranslationParagraph::getParagraphIndex, offset)
+                .lt(TranslationParagraph::getParagraphIndex, offset + limit)
+                .orderByAsc(TranslationParagraph::getParagraphIndex);
+
+        return list(wrapper);
+    }
+}
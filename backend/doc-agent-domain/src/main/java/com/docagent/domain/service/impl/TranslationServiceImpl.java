@@ -3,21 +3,33 @@ package com.docagent.domain.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.docagent.domain.config.TranslationConfig;
 import com.docagent.domain.entity.Document;
 import com.docagent.domain.entity.Translation;
+import com.docagent.domain.entity.TranslationParagraph;
 import com.docagent.domain.repository.mysql.TranslationMapper;
 import com.docagent.domain.service.AiService;
 import com.docagent.domain.service.DocumentService;
+import com.docagent.domain.service.TranslationMemoryService;
+import com.docagent.domain.service.TranslationParagraphService;
 import com.docagent.domain.service.TranslationService;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
 
 /**
  * 翻译服务实现类
@@ -33,10 +45,46 @@ public class TranslationServiceImpl extends ServiceImpl<TranslationMapper, Trans
 
     private final DocumentService documentService;
     private final AiService aiService;
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ThreadPoolTaskExecutor translationExecutor;
+    private final TranslationConfig translationConfig;
+    private final TranslationParagraphService translationParagraphService;
+    private final TranslationMemoryService translationMemoryService;
+    private final ScheduledExecutorService translationLeaseScheduler;
 
     /**
-     * 开始翻译文档
+     * 默认翻译风格
+     */
+    private static final String DEFAULT_STYLE = "fluent";
+
+    /**
+     * 本节点标识（认领翻译任务时写入租约）
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    /**
+     * 本节点正在排队或执行的翻译任务，key为 文档ID:目标语言:翻译风格，value为翻译记录ID（持有租约）
+     */
+    private final ConcurrentHashMap<String, Long> runningJobs = new ConcurrentHashMap<>();
+
+    /**
+     * 翻译记录短时缓存（轮询查询用），key为翻译记录ID
+     */
+    private Cache<Long, Translation> resultCache;
+
+    @PostConstruct
+    public void init() {
+        resultCache = Caffeine.newBuilder()
+                .maximumSize(10000)
+                .expireAfterWrite(Duration.ofMillis(translationConfig.getResultCacheMillis()))
+                .build();
+
+        // 定期续约本节点执行中的任务，并接管租约到期（执行节点宕机）的任务
+        long interval = translationConfig.getLeaseRenewSeconds();
+        translationLeaseScheduler.scheduleWithFixedDelay(this::maintainLeases, interval, interval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 开始翻译文档（提交后台任务，立即返回翻译记录ID）
      *
      * @param documentId 文档ID
      * @param targetLang 目标语言
@@ -45,73 +93,356 @@ public class TranslationServiceImpl extends ServiceImpl<TranslationMapper, Trans
      * @return 翻译记录ID
      */
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public Long startTranslation(Long documentId, String targetLang, String style, String sessionId) {
         log.info("[翻译][开始]-开始翻译文档，文档ID={}，目标语言={}，风格={}", documentId, targetLang, style);
 
-        // 1. 查询文档
-        Document document = documentService.getByIdAndSessionId(documentId, sessionId);
+        // 1. 验证文档权限（需已解析完成）
+        Document document = documentService.getReadyDocument(documentId, sessionId);
         if (Objects.isNull(document)) {
             throw new RuntimeException("文档不存在");
         }
 
-        // 2. 检查是否已有相同翻译（可使用缓存）
-        Translation existTranslation = getLatestTranslation(documentId, targetLang, sessionId);
-        if (Objects.nonNull(existTranslation) && existTranslation.getStatus() == 1) {
-            log.info("[翻译][开始]-翻译已存在，直接返回，翻译ID={}", existTranslation.getId());
-            return existTranslation.getId();
+        // 2. 检查是否已有相同翻译（同一文档、目标语言、风格只翻译一次）
+        String translateStyle = StringUtils.defaultIfBlank(style, DEFAULT_STYLE);
+        Translation translation = findLatestTranslation(documentId, targetLang, translateStyle);
+        if (Objects.nonNull(translation) && translation.getStatus() == 1) {
+            log.info("[翻译][开始]-翻译已存在，直接返回，翻译ID={}", translation.getId());
+            return translation.getId();
         }
 
-        // 3. 创建翻译记录
-        Translation translation = new Translation();
-        translation.setDocumentId(documentId);
-        translation.setSourceLang("auto"); // 自动检测
-        translation.setTargetLang(targetLang);
-        translation.setTranslateStyle(style);
-        translation.setStatus(0); // 0-翻译中
-        translation.setCreateTime(LocalDateTime.now());
-        save(translation);
+        // 3. 未完成的翻译（中断或失败）复用原记录续翻，否则创建新记录
+        if (Objects.isNull(translation)) {
+            try {
+                translation = createTranslation(documentId, targetLang, translateStyle);
+            } catch (DuplicateKeyException e) {
+                // 并发请求（或其他节点）已创建同一翻译，由创建方执行
+                Translation created = findLatestTranslation(documentId, targetLang, translateStyle);
+                log.info("[翻译][开始]-相同翻译已被并发创建，翻译ID={}", created.getId());
+                return created.getId();
+            }
+        }
+        return submitTranslation(translation);
+    }
+
+    /**
+     * 应用启动后续翻中断的任务（已完成的段落会被跳过）；只处理无人执行或租约已到期的任务，认领成功才执行
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinishedTranslations() {
+        LambdaQueryWrapper<Translation> wrapper = Wrappers.lambdaQuery(Translation.class)
+                .select(Translation::getId, Translation::getDocumentId,
+                        Translation::getTargetLang, Translation::getTranslateStyle, Translation::getStatus)
+                .eq(Translation::getStatus, 0)
+                .and(w -> w.isNull(Translation::getLeaseUntil).or().lt(Translation::getLeaseUntil, LocalDateTime.now()));
 
-        // 4. 调用AI进行翻译（简化版：直接翻译全文）
+        List<Translation> unfinished;
         try {
-            String textContent = document.getTextContent();
+            unfinished = list(wrapper);
+        } catch (Exception e) {
+            log.error("[翻译][续翻]-查询未完成的翻译任务失败", e);
+            return;
+        }
+        if (unfinished.isEmpty()) {
+            return;
+        }
 
-            // 如果文本太长，分段翻译
-            List<String> paragraphs = splitTextIntoParagraphs(textContent);
-            List<Map<String, String>> translatedParagraphs = new ArrayList<>();
+        log.info("[翻译][续翻]-发现未完成的翻译任务，数量={}", unfinished.size());
+        for (Translation translation : unfinished) {
+            try {
+                submitTranslation(translation);
+            } catch (RuntimeException e) {
+                log.warn("[翻译][续翻]-续翻任务提交失败，翻译ID={}，原因={}", translation.getId(), e.getMessage());
+            }
+        }
+    }
 
-            log.info("[翻译][执行]-文本分段数量={}", paragraphs.size());
+    /**
+     * 提交翻译任务（本节点已在排队或执行、或其他节点持有租约时直接返回）
+     */
+    private Long submitTranslation(Translation translation) {
+        String jobKey = buildJobKey(translation.getDocumentId(), translation.getTargetLang(), translation.getTranslateStyle());
+        runningJobs.computeIfAbsent(jobKey, key -> {
+            // 认领任务（同时标记为翻译中），其他节点持有未到期的租约时不重复执行
+            if (!claimLease(translation.getId())) {
+                log.info("[翻译][开始]-翻译任务由其他节点执行中，翻译ID={}", translation.getId());
+                return null;
+            }
 
-            for (int i = 0; i < paragraphs.size(); i++) {
-                String paragraph = paragraphs.get(i);
-                log.info("[翻译][执行]-翻译第{}段，长度={}", i + 1, paragraph.length());
+            try {
+                translationExecutor.execute(() -> executeTranslation(translation.getId(), key));
+            } catch (RejectedExecutionException e) {
+                log.warn("[翻译][开始]-翻译任务队列已满，翻译ID={}", translation.getId());
+                markFailed(translation.getId());
+                throw new RuntimeException("翻译任务繁忙，请稍后重试");
+            }
 
-                String translatedText = aiService.translate(paragraph, null, targetLang, style);
+            log.info("[翻译][开始]-翻译任务已提交，翻译ID={}", translation.getId());
+            return translation.getId();
+        });
+        return translation.getId();
+    }
 
-                Map<String, String> paragraphMap = new HashMap<>();
-                paragraphMap.put("index", String.valueOf(i));
-                paragraphMap.put("original", paragraph);
-                paragraphMap.put("translated", translatedText);
-                translatedParagraphs.add(paragraphMap);
+    /**
+     * 续约本节点执行中的任务，并接管租约到期的任务（在租约调度线程中运行）
+     */
+    private void maintainLeases() {
+        try {
+            for (Long translationId : runningJobs.values()) {
+                if (!renewLease(translationId)) {
+                    log.warn("[翻译][租约]-续约失败，任务可能已被其他节点接管，翻译ID={}", translationId);
+                }
             }
+            resumeUnfinishedTranslations();
+        } catch (RuntimeException e) {
+            log.warn("[翻译][租约]-租约维护失败，原因={}", e.getMessage());
+        }
+    }
 
-            // 5. 保存翻译结果（JSON格式）
-            String translatedContent = objectMapper.writeValueAsString(translatedParagraphs);
-            translation.setTranslatedContent(translatedContent);
-            translation.setStatus(1); // 1-已完成
-            updateById(translation);
+    /**
+     * 认领翻译任务：只有无人执行、租约已到期或本节点持有时才能认领（条件更新，多个节点同时认领只有一个成功）
+     *
+     * @return 是否认领成功
+     */
+    private boolean claimLease(Long translationId) {
+        LocalDateTime now = LocalDateTime.now();
+        return lambdaUpdate()
+                .eq(Translation::getId, translationId)
+                .ne(Translation::getStatus, 1)
+                .and(w -> w.isNull(Translation::getLeaseOwner)
+                        .or().lt(Translation::getLeaseUntil, now)
+                        .or().eq(Translation::getLeaseOwner, nodeId))
+                .set(Translation::getStatus, 0) // 0-翻译中
+                .set(Translation::getLeaseOwner, nodeId)
+                .set(Translation::getLeaseUntil, now.plusSeconds(translationConfig.getLeaseSeconds()))
+                .update();
+    }
 
-            log.info("[翻译][完成]-翻译完成，翻译ID={}", translation.getId());
-            return translation.getId();
+    /**
+     * 续约本节点持有的任务
+     *
+     * @return 是否仍由本节点持有
+     */
+    private boolean renewLease(Long translationId) {
+        return lambdaUpdate()
+                .eq(Translation::getId, translationId)
+                .eq(Translation::getLeaseOwner, nodeId)
+                .set(Translation::getLeaseUntil, LocalDateTime.now().plusSeconds(translationConfig.getLeaseSeconds()))
+                .update();
+    }
+
+    /**
+     * 释放本节点持有的租约（任务结束后调用）
+     */
+    private void releaseLease(Long translationId) {
+        try {
+            lambdaUpdate()
+                    .eq(Translation::getId, translationId)
+                    .eq(Translation::getLeaseOwner, nodeId)
+                    .set(Translation::getLeaseOwner, null)
+                    .set(Translation::getLeaseUntil, null)
+                    .update();
+        } catch (RuntimeException e) {
+            log.warn("[翻译][租约]-释放租约失败，等待到期，翻译ID={}，原因={}", translationId, e.getMessage());
+        }
+    }
+
+    /**
+     * 执行翻译任务（在翻译线程池中运行）
+     */
+    private void executeTranslation(Long translationId, String jobKey) {
+        try {
+            Translation translation = getById(translationId);
+            String textContent = documentService.getTextContent(translation.getDocumentId());
+
+            // 按token预算合并相邻段落分段翻译（只在句末切分）
+            List<TranslationChunker.Chunk> paragraphs = TranslationChunker.split(textContent,
+                    translationConfig.getChunkTargetTokens(), translationConfig.getChunkMaxTokens());
+
+            // 跳过已保存的段落（任务中断后续翻）；分段结果与上次不一致时（如分段配置变化）重新翻译
+            Set<Integer> translatedIndexes = translationParagraphService.listTranslatedIndexes(translationId);
+            if (!translatedIndexes.isEmpty() && !Objects.equals(translation.getTotalParagraphs(), paragraphs.size())) {
+                log.warn("[翻译][执行]-分段数量与上次不一致，重新翻译，翻译ID={}，上次={}，本次={}",
+                        translationId, translation.getTotalParagraphs(), paragraphs.size());
+                translationParagraphService.removeByTranslationId(translationId);
+                translatedIndexes = Set.of();
+            }
+            log.info("[翻译][执行]-翻译ID={}，文本分段数量={}，已完成段落数={}",
+                    translationId, paragraphs.size(), translatedIndexes.size());
+            updateProgress(translationId, paragraphs.size(), translatedIndexes.size());
+
+            // 有限并发翻译剩余段落，每段完成即落库（按文档所属会话与其他会话公平排队）
+            String sessionId = getDocumentSessionId(translation.getDocumentId());
+            translateParagraphs(translationId, sessionId, paragraphs, translatedIndexes,
+                    translation.getTargetLang(), translation.getTranslateStyle());
+
+            lambdaUpdate()
+                    .eq(Translation::getId, translationId)
+                    .set(Translation::getStatus, 1) // 1-已完成
+                    .update();
+
+            log.info("[翻译][完成]-翻译完成，翻译ID={}", translationId);
+
+        } catch (Exception e) {
+            log.error("[翻译][失败]-翻译失败，翻译ID={}", translationId, e);
+            markFailed(translationId);
+        } finally {
+            releaseLease(translationId);
+            runningJobs.remove(jobKey);
+        }
+    }
+
+    /**
+     * 有限并发翻译段落（单任务同时排队或执行的批次数有限，节点全局并发由AI准入控制器按批量并发上限放行）：分段拆回源段落后逐段查询翻译记忆，
+     * 以分段为单位把未命中的源段落按批合并为一次请求，分段的全部源段落都有译文后按分段下标保存
+     */
+    private void translateParagraphs(Long translationId, String sessionId, List<TranslationChunker.Chunk> paragraphs,
+                                     Set<Integer> translatedIndexes, String targetLang, String style)
+            throws InterruptedException {
+        Semaphore jobPermits = new Semaphore(translationConfig.getParagraphConcurrency());
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        TranslationBatcher batcher = new TranslationBatcher(translationConfig.getBatchMaxChunks(),
+                translationConfig.getBatchMaxTokens());
+        for (int i = 0; i < paragraphs.size(); i++) {
+            if (translatedIndexes.contains(i)) {
+                continue;
+            }
+            ChunkTranslation chunkTranslation = new ChunkTranslation(i, paragraphs.get(i));
+
+            // 命中翻译记忆的源段落直接使用已有译文，不调用AI
+            for (int part = 0; part < chunkTranslation.paragraphs().size(); part++) {
+                String memorized = translationMemoryService.lookup(
+                        chunkTranslation.paragraphs().get(part).content(), targetLang, style);
+                if (Objects.nonNull(memorized)) {
+                    chunkTranslation.complete(part, memorized);
+                }
+            }
+            List<ChunkTranslation.Part> misses = chunkTranslation.pendingParts();
+            if (misses.isEmpty()) {
+                log.info("[翻译][执行]-第{}段命中翻译记忆", i + 1);
+                saveChunk(translationId, chunkTranslation);
+                continue;
+            }
+
+            // 分段的未命中源段落整体组批，超出分段数或token上限时先提交当前批次
+            List<ChunkTranslation.Part> full = batcher.add(misses);
+            if (Objects.nonNull(full)) {
+                futures.add(submitBatch(translationId, sessionId, full, targetLang, style, jobPermits));
+            }
+        }
+        List<ChunkTranslation.Part> rest = batcher.drain();
+        if (Objects.nonNull(rest)) {
+            futures.add(submitBatch(translationId, sessionId, rest, targetLang, style, jobPermits));
+        }
+
+        // 等待所有段落完成，任一段落重试耗尽则整体失败
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+    }
+
+    /**
+     * 获取任务许可后提交一批段落，批次内全部段落完成后释放许可
+     * 任务许可只限制本任务排队和执行中的批次数，不占用其他任务共享的资源；
+     * 节点全局的翻译并发在AI准入控制器放行时计算，排队中的批次不占用，其他会话的任务可以随时进入公平队列
+     */
+    private CompletableFuture<Void> submitBatch(Long translationId, String sessionId, List<ChunkTranslation.Part> tasks,
+                                                String targetLang, String style, Semaphore jobPermits)
+            throws InterruptedException {
+        jobPermits.acquire();
+        return translateBatch(translationId, sessionId, tasks, targetLang, style)
+                .whenComplete((ignored, error) -> jobPermits.release());
+    }
+
+    /**
+     * 批量翻译段落：一次请求翻译多个源段落，模型漏译或返回格式错误的段落逐段重译
+     */
+    private CompletableFuture<Void> translateBatch(Long translationId, String sessionId, List<ChunkTranslation.Part> tasks,
+                                                   String targetLang, String style) {
+        if (tasks.size() == 1) {
+            return translateSingle(translationId, sessionId, tasks.get(0), targetLang, style);
+        }
+
+        List<String> texts = tasks.stream().map(ChunkTranslation.Part::content).toList();
+        log.info("[翻译][执行]-批量翻译第{}~{}段，段落数={}", tasks.get(0).chunk().index() + 1,
+                tasks.get(tasks.size() - 1).chunk().index() + 1, tasks.size());
+        return aiService.translateBatchAsync(texts, null, targetLang, style, sessionId)
+                .exceptionally(error -> {
+                    log.warn("[翻译][批量]-批量翻译失败，逐段重译，原因={}", error.getMessage());
+                    return Collections.nCopies(tasks.size(), null);
+                })
+                .thenCompose(results -> {
+                    List<CompletableFuture<Void>> fallbacks = new ArrayList<>();
+                    for (int k = 0; k < tasks.size(); k++) {
+                        String translatedText = results.get(k);
+                        if (Objects.nonNull(translatedText)) {
+                            saveTranslatedParagraph(translationId, tasks.get(k), translatedText, targetLang, style);
+                        } else {
+                            fallbacks.add(translateSingle(translationId, sessionId, tasks.get(k), targetLang, style));
+                        }
+                    }
+                    if (!fallbacks.isEmpty()) {
+                        log.info("[翻译][批量]-{}个段落未返回译文，逐段重译", fallbacks.size());
+                    }
+                    return CompletableFuture.allOf(fallbacks.toArray(new CompletableFuture[0]));
+                });
+    }
+
+    /**
+     * 单独翻译一个源段落（失败时按指数退避重试）
+     */
+    private CompletableFuture<Void> translateSingle(Long translationId, String sessionId, ChunkTranslation.Part task,
+                                                    String targetLang, String style) {
+        log.info("[翻译][执行]-翻译第{}段，长度={}", task.chunk().index() + 1, task.content().length());
+        return translateParagraphWithRetry(task.content(), sessionId, targetLang, style, 1)
+                .thenAccept(translatedText ->
+                        saveTranslatedParagraph(translationId, task, translatedText, targetLang, style));
+    }
 
-        } catch (JsonProcessingException e) {
-            log.error("[翻译][失败]-翻译失败", e);
-            translation.setStatus(2); // 2-失败
-            updateById(translation);
-            throw new RuntimeException("翻译失败: " + e.getMessage(), e);
+    /**
+     * 源段落译文写入翻译记忆；所属分段的全部源段落都有译文后保存分段
+     */
+    private void saveTranslatedParagraph(Long translationId, ChunkTranslation.Part task, String translatedText,
+                                         String targetLang, String style) {
+        translationMemoryService.store(task.content(), targetLang, style, translatedText);
+        if (task.complete(translatedText)) {
+            saveChunk(translationId, task.chunk());
         }
     }
 
+    /**
+     * 保存分段译文；分段为新保存时才累加进度（重复执行的分段不重复计数）
+     */
+    private void saveChunk(Long translationId, ChunkTranslation chunkTranslation) {
+        TranslationChunker.Chunk chunk = chunkTranslation.chunk();
+        if (translationParagraphService.saveParagraph(translationId, chunkTranslation.index(), chunk.content(),
+                chunkTranslation.join(), chunk.start(), chunk.end())) {
+            increaseProgress(translationId);
+        }
+    }
+
+    /**
+     * 翻译单个段落，失败时按指数退避单独重试该段落
+     */
+    private CompletableFuture<String> translateParagraphWithRetry(String paragraph, String sessionId, String targetLang,
+                                                                  String style, int attempt) {
+        return aiService.translateAsync(paragraph, null, targetLang, style, sessionId)
+                .handle((translatedText, error) -> {
+                    if (Objects.isNull(error)) {
+                        return CompletableFuture.completedFuture(translatedText);
+                    }
+                    if (attempt >= translationConfig.getMaxRetries()) {
+                        log.error("[翻译][重试]-段落翻译重试次数耗尽，尝试次数={}", attempt);
+                        return CompletableFuture.<String>failedFuture(error);
+                    }
+
+                    long delay = translationConfig.getRetryBackoffMs() * (1L << (attempt - 1));
+                    log.warn("[翻译][重试]-段落翻译失败，{}ms后第{}次重试，原因={}", delay, attempt + 1, error.getMessage());
+                    Executor delayedExecutor = CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS);
+                    return CompletableFuture.runAsync(() -> { }, delayedExecutor)
+                            .thenCompose(ignored -> translateParagraphWithRetry(paragraph, sessionId, targetLang, style, attempt + 1));
+                })
+                .thenCompose(Function.identity());
+    }
+
     /**
      * 获取翻译结果
      *
@@ -123,7 +454,7 @@ public class TranslationServiceImpl extends ServiceImpl<TranslationMapper, Trans
     public Translation getTranslationResult(Long translationId, String sessionId) {
         log.info("[翻译][结果]-获取翻译结果，翻译ID={}，会话ID={}", translationId, sessionId);
 
-        Translation translation = getById(translationId);
+        Translation translation = resultCache.get(translationId, this::getById);
         if (Objects.isNull(translation)) {
             throw new RuntimeException("翻译记录不存在");
         }
@@ -137,6 +468,25 @@ public class TranslationServiceImpl extends ServiceImpl<TranslationMapper, Trans
         return translation;
     }
 
+    /**
+     * 按段落顺序分页获取翻译段落
+     *
+     * @param translationId 翻译记录ID
+     * @param offset 起始段落下标
+     * @param limit 查询数量
+     * @param sessionId 会话ID
+     * @return 翻译段落列表
+     */
+    @Override
+    public List<TranslationParagraph> getTranslationParagraphs(Long translationId, Integer offset, Integer limit, String sessionId) {
+        log.info("[翻译][段落]-获取翻译段落，翻译ID={}，起始={}，数量={}", translationId, offset, limit);
+
+        // 验证权限
+        getTranslationResult(translationId, sessionId);
+
+        return translationParagraphService.listByTranslationId(translationId, offset, limit);
+    }
+
     /**
      * 根据文档ID获取最新翻译
      *
@@ -159,30 +509,82 @@ public class TranslationServiceImpl extends ServiceImpl<TranslationMapper, Trans
     }
 
     /**
-     * 将文本分段（简化版：按段落分割）
+     * 根据文档、目标语言和风格查询最新翻译
      */
-    private List<String> splitTextIntoParagraphs(String text) {
-        if (Objects.isNull(text) || text.isEmpty()) {
-            return Collections.emptyList();
-        }
+    private Translation findLatestTranslation(Long documentId, String targetLang, String style) {
+        LambdaQueryWrapper<Translation> wrapper = Wrappers.lambdaQuery(Translation.class)
+                .eq(Translation::getDocumentId, documentId)
+                .eq(Translation::getTargetLang, targetLang)
+                .eq(Translation::getTranslateStyle, style)
+                .orderByDesc(Translation::getCreateTime)
+                .last("LIMIT 1");
 
-        // 按双换行符分段
-        String[] paragraphs = text.split("\n\n+");
-        List<String> result = new ArrayList<>();
+        return getOne(wrapper);
+    }
 
-        for (String paragraph : paragraphs) {
-            String trimmed = paragraph.trim();
-            if (!trimmed.isEmpty()) {
-                result.add(trimmed);
-            }
-        }
+    /**
+     * 创建翻译记录
+     */
+    private Translation createTranslation(Long documentId, String targetLang, String style) {
+        Translation translation = new Translation();
+        translation.setDocumentId(documentId);
+        translation.setSourceLang("auto"); // 自动检测
+        translation.setTargetLang(targetLang);
+        translation.setTranslateStyle(style);
+        translation.setStatus(0); // 0-翻译中
+        translation.setTotalParagraphs(0);
+        translation.setTranslatedParagraphs(0);
+        translation.setCreateTime(LocalDateTime.now());
+        save(translation);
+        return translation;
+    }
 
-        // 如果没有双换行符，按单换行符分段
-        if (result.isEmpty()) {
-            String[] lines = text.split("\n");
-            result = Arrays.asList(lines);
-        }
+    /**
+     * 更新翻译进度
+     */
+    private void updateProgress(Long translationId, int total, int translated) {
+        lambdaUpdate()
+                .eq(Translation::getId, translationId)
+                .set(Translation::getTotalParagraphs, total)
+                .set(Translation::getTranslatedParagraphs, translated)
+                .update();
+    }
+
+    /**
+     * 已翻译段落数加一（并发完成时由数据库原子累加）
+     */
+    private void increaseProgress(Long translationId) {
+        lambdaUpdate()
+                .eq(Translation::getId, translationId)
+                .setSql("translated_paragraphs = translated_paragraphs + 1")
+                .update();
+    }
 
-        return result;
+    /**
+     * 标记翻译失败
+     */
+    private void markFailed(Long translationId) {
+        lambdaUpdate()
+                .eq(Translation::getId, translationId)
+                .set(Translation::getStatus, 2) // 2-失败
+                .update();
+    }
+
+    /**
+     * 查询文档所属会话ID（翻译请求按该会话公平排队）
+     */
+    private String getDocumentSessionId(Long documentId) {
+        Document document = documentService.lambdaQuery()
+                .select(Document::getSessionId)
+                .eq(Document::getId, documentId)
+                .one();
+        return Objects.nonNull(document) ? document.getSessionId() : null;
+    }
+
+    /**
+     * 构建翻译任务唯一键
+     */
+    private String buildJobKey(Long documentId, String targetLang, String style) {
+        return documentId + ":" + targetLang + ":" + style;
     }
 }
@@ -0,0 +1,194 @@
+package com.docagent.domain.service.impl;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * 文档分块向量索引
+ * 向量以连续float数组存放在索引文件中，加载时内存映射，不占用堆内存；
+ * 单个文档的分块数在数千以内，按内积精确扫描即可满足毫秒级延迟
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+final class VectorIndex {
+
+    /**
+     * 索引文件魔数与版本
+     */
+    private static final int MAGIC = 0x56454331;
+    private static final int VERSION = 1;
+
+    /**
+     * 文件头长度: 魔数、版本、维度、向量数、模型标识长度（各4字节）+ 模型标识
+     */
+    private static final int FIXED_HEADER_BYTES = 20;
+
+    private final String modelId;
+    private final int dimension;
+    private final int count;
+
+    /**
+     * 向量数据（只读，可被多个线程并发读取）
+     */
+    private final FloatBuffer vectors;
+
+    private VectorIndex(String modelId, int dimension, int count, FloatBuffer vectors) {
+        this.modelId = modelId;
+        this.dimension = dimension;
+        this.count = count;
+        this.vectors = vectors;
+    }
+
+    /**
+     * 写入索引文件（先写临时文件再原子替换）
+     *
+     * @param path 索引文件路径
+     * @param modelId 模型标识
+     * @param dimension 向量维度
+     * @param vectors 向量列表（下标与分块下标一致）
+     */
+    static void write(Path path, String modelId, int dimension, List<float[]> vectors) throws IOException {
+        byte[] modelBytes = modelId.getBytes(StandardCharsets.UTF_8);
+        Path tempFile = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(dimension);
+            output.writeInt(vectors.size());
+            output.writeInt(modelBytes.length);
+            output.write(modelBytes);
+            for (float[] vector : vectors) {
+                if (vector == null || vector.length != dimension) {
+                    throw new IOException("向量维度不一致，期望=" + dimension);
+                }
+                for (float value : vector) {
+                    output.writeFloat(value);
+                }
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+        Files.move(tempFile, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * 内存映射方式加载索引文件
+     *
+     * @param path 索引文件路径
+     * @return 索引
+     */
+    static VectorIndex map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.BIG_ENDIAN);
+            if (buffer.remaining() < FIXED_HEADER_BYTES || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("向量索引文件格式不兼容: " + path);
+            }
+            int dimension = buffer.getInt();
+            int count = buffer.getInt();
+            byte[] modelBytes = new byte[buffer.getInt()];
+            buffer.get(modelBytes);
+            if (buffer.remaining() != (long) dimension * count * Float.BYTES) {
+                throw new IOException("向量索引文件长度不正确: " + path);
+            }
+            // 映射在通道关闭后仍然有效
+            ByteBuffer data = buffer.slice().order(ByteOrder.BIG_ENDIAN);
+            return new VectorIndex(new String(modelBytes, StandardCharsets.UTF_8), dimension, count, data.asFloatBuffer());
+        }
+    }
+
+    /**
+     * 查询与向量最相近的分块（内积，向量均已归一化即为余弦相似度）
+     *
+     * @param query 查询向量
+     * @param topK 返回数量上限
+     * @return 命中的分块下标（按相似度降序）
+     */
+    int[] search(float[] query, int topK) {
+        if (query.length != dimension || count == 0 || topK <= 0) {
+            return new int[0];
+        }
+
+        float[] scores = new float[count];
+        for (int i = 0; i < count; i++) {
+            int offset = i * dimension;
+            float dot = 0F;
+            for (int d = 0; d < dimension; d++) {
+                dot += vectors.get(offset + d) * query[d];
+            }
+            scores[i] = dot;
+        }
+
+        // 小顶堆保留相似度最高的topK个分块，同分时靠前的分块优先
+        PriorityQueue<Integer> heap = new PriorityQueue<>(topK + 1, (a, b) -> {
+            int compare = Float.compare(scores[a], scores[b]);
+            return compare != 0 ? compare : Integer.compare(b, a);
+        });
+        for (int i = 0; i < count; i++) {
+            if (scores[i] <= 0F) {
+                continue;
+            }
+            if (heap.size() < topK) {
+                heap.offer(i);
+            } else if (scores[i] > scores[heap.peek()]) {
+                heap.poll();
+                heap.offer(i);
+            }
+        }
+
+        int[] result = new int[heap.size()];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = heap.poll();
+        }
+        return result;
+    }
+
+    String getModelId() {
+        return modelId;
+    }
+
+    int getDimension() {
+        return dimension;
+    }
+
+    int size() {
+        return count;
+    }
+
+    /**
+     * 归一化为单位向量（零向量原样返回）
+     *
+     * @param vector 向量
+     * @return 归一化后的向量（原数组）
+     */
+    static float[] normalize(float[] vector) {
+        double norm = 0D;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        if (norm == 0D) {
+            return vector;
+        }
+        float scale = (float) (1D / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] *= scale;
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,363 @@
+package com.docagent.domain.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * AI接口准入控制器测试：AIMD并发上限调整、Retry-After暂停、token额度预留与归还、
+ * 会话公平排队（SFQ）与交互/批量优先级、异步等待的取消
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+class AiRateLimiterTest {
+
+    private static final AiRateLimiter.Priority INTERACTIVE = AiRateLimiter.Priority.INTERACTIVE;
+    private static final AiRateLimiter.Priority BULK = AiRateLimiter.Priority.BULK;
+
+    @Test
+    void rateLimitedResponseHalvesLimit() {
+        AiRateLimiter limiter = newLimiter(8, 0);
+
+        AiRateLimiter.Permit permit = limiter.acquire(INTERACTIVE, "s1", 10, 1000);
+        permit.onResponse(429, null);
+        limiter.release(permit);
+
+        assertThat(limiter.getLimit()).isEqualTo(4);
+        assertThat(limiter.getRateLimitedCount()).isEqualTo(1);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    void overloadWaveDecreasesOnlyOnce() {
+        AiRateLimiter limiter = newLimiter(8, 0);
+
+        AiRateLimiter.Permit first = limiter.acquire(INTERACTIVE, "s1", 10, 1000);
+        AiRateLimiter.Permit second = limiter.acquire(INTERACTIVE, "s1", 10, 1000);
+        first.onResponse(503, null);
+        second.onFailure(new SocketTimeoutException("timeout"));
+        limiter.release(first);
+        limiter.release(second);
+
+        // 同一波过载（1秒内）只缩减一次
+        assertThat(limiter.getLimit()).isEqualTo(4);
+    }
+
+    @Test
+    void limitNeverDropsBelowMinimum() {
+        AiRateLimiter limiter = new AiRateLimiter(2, 2, 8, 0, 0, 0, 0, 0L);
+
+        AiRateLimiter.Permit permit = limiter.acquire(INTERACTIVE, "s1", 10, 1000);
+        permit.onResponse(429, "0");
+        limiter.release(permit);
+
+        assertThat(limiter.getLimit()).isEqualTo(2);
+    }
+
+    @Test
+    void saturatedSuccessIncreasesLimitAdditively() {
+        AiRateLimiter limiter = newLimiter(2, 0);
+
+        // 并发达到上限一半以上时的成功才增长上限，每次增长1/limit（每个上限周期约增长1）
+        for (int i = 0; i < 5; i++) {
+            AiRateLimiter.Permit a = limiter.acquire(INTERACTIVE, "s1", 10, 1000);
+            AiRateLimiter.Permit b = limiter.acquire(INTERACTIVE, "s1", 10, 1000);
+            a.onResponse(200, null);
+            b.onResponse(200, null);
+            limiter.release(a);
+            limiter.release(b);
+        }
+        assertThat(limiter.getLimit()).isBetween(3, 5);
+    }
+
+    @Test
+    void unsaturatedSuccessKeepsLimit() {
+        AiRateLimiter limiter = newLimiter(8, 0);
+
+        for (int i = 0; i < 10; i++) {
+            AiRateLimiter.Permit permit = limiter.acquire(INTERACTIVE, "s1", 10, 1000);
+            permit.onResponse(200, null);
+            limiter.release(permit);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(8);
+    }
+
+    @Test
+    void retryAfterPausesAdmission() {
+        AiRateLimiter limiter = newLimiter(4, 0);
+
+        AiRateLimiter.Permit permit = limiter.acquire(INTERACTIVE, "s1", 10, 1000);
+        permit.onResponse(429, "0.5");
+        limiter.release(permit);
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> limiter.acquire(INTERACTIVE, "s2", 10, 100))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("AI服务繁忙");
+        assertThat(limiter.getQueueTimeoutCount()).isEqualTo(1);
+
+        AiRateLimiter.Permit next = limiter.acquire(INTERACTIVE, "s2", 10, 5000);
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(400_000_000L);
+        limiter.release(next);
+    }
+
+    @Test
+    void rateLimitedWithoutRetryAfterUsesDefaultPause() {
+        AiRateLimiter limiter = new AiRateLimiter(4, 1, 8, 0, 0, 0, 0, 300L);
+
+        AiRateLimiter.Permit permit = limiter.acquire(INTERACTIVE, "s1", 10, 1000);
+        permit.onResponse(429, null);
+        limiter.release(permit);
+
+        assertThatThrownBy(() -> limiter.acquire(INTERACTIVE, "s2", 10, 100))
+                .isInstanceOf(RuntimeException.class);
+    }
+
+    @Test
+    void parsesRetryAfterSecondsAndHttpDate() {
+        assertThat(AiRateLimiter.parseRetryAfter("2")).isEqualTo(2000L);
+        assertThat(AiRateLimiter.parseRetryAfter(" 0.25 ")).isEqualTo(250L);
+        assertThat(AiRateLimiter.parseRetryAfter("-3")).isZero();
+        assertThat(AiRateLimiter.parseRetryAfter("86400")).isEqualTo(60_000L);
+        assertThat(AiRateLimiter.parseRetryAfter(null)).isEqualTo(-1L);
+        assertThat(AiRateLimiter.parseRetryAfter("soon")).isEqualTo(-1L);
+
+        String date = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now().plusSeconds(30));
+        assertThat(AiRateLimiter.parseRetryAfter(date)).isBetween(28_000L, 30_000L);
+    }
+
+    @Test
+    void failedRequestRefundsReservedTokens() {
+        AiRateLimiter limiter = newLimiter(4, 1000);
+
+        AiRateLimiter.Permit timedOut = limiter.acquire(INTERACTIVE, "s1", 1000, 1000);
+        timedOut.onFailure(new SocketTimeoutException("timeout"));
+        limiter.release(timedOut);
+        AiRateLimiter.Permit serverError = limiter.acquire(INTERACTIVE, "s1", 1000, 100);
+        serverError.onResponse(500, null);
+        limiter.release(serverError);
+        AiRateLimiter.Permit unparseable = limiter.acquire(INTERACTIVE, "s1", 1000, 100);
+        unparseable.onResponse(200, null);
+        unparseable.onFailure(new IOException("bad json"));
+        limiter.release(unparseable);
+        AiRateLimiter.Permit notSent = limiter.acquire(INTERACTIVE, "s1", 1000, 100);
+        limiter.release(notSent);
+
+        // 额度已全部归还，整分钟额度的请求可以立即放行
+        limiter.release(limiter.acquire(INTERACTIVE, "s1", 1000, 100));
+    }
+
+    @Test
+    void successRefundsUnusedReservation() {
+        AiRateLimiter limiter = newLimiter(4, 1000);
+
+        AiRateLimiter.Permit permit = limiter.acquire(INTERACTIVE, "s1", 1000, 1000);
+        permit.onResponse(200, null);
+        permit.setUsedTokens(400);
+        limiter.release(permit);
+
+        // 归还600后可用约600，再消耗500后不足500
+        AiRateLimiter.Permit next = limiter.acquire(INTERACTIVE, "s1", 500, 100);
+        next.onResponse(200, null);
+        next.setUsedTokens(500);
+        limiter.release(next);
+        assertThatThrownBy(() -> limiter.acquire(INTERACTIVE, "s1", 500, 100))
+                .isInstanceOf(RuntimeException.class);
+    }
+
+    @Test
+    void successWithoutUsageKeepsReservation() {
+        AiRateLimiter limiter = newLimiter(4, 1000);
+
+        AiRateLimiter.Permit permit = limiter.acquire(INTERACTIVE, "s1", 1000, 1000);
+        permit.onResponse(200, null);
+        limiter.release(permit);
+
+        assertThatThrownBy(() -> limiter.acquire(INTERACTIVE, "s1", 500, 100))
+                .isInstanceOf(RuntimeException.class);
+    }
+
+    @Test
+    void sessionsAreInterleavedByVirtualFinishTime() throws Exception {
+        AiRateLimiter limiter = serialLimiter();
+        AiRateLimiter.Permit holder = limiter.acquire(BULK, "busy", 10, 1000);
+        List<String> admitted = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> threads = new ArrayList<>();
+
+        // 会话busy先排入3个请求，会话quiet随后排入1个：quiet不必等busy全部完成
+        threads.add(enqueue(limiter, BULK, "busy", 100, "busy-1", admitted));
+        threads.add(enqueue(limiter, BULK, "busy", 100, "busy-2", admitted));
+        threads.add(enqueue(limiter, BULK, "busy", 100, "busy-3", admitted));
+        threads.add(enqueue(limiter, BULK, "quiet", 100, "quiet-1", admitted));
+        limiter.release(holder);
+        joinAll(threads);
+
+        assertThat(admitted).containsExactly("busy-1", "quiet-1", "busy-2", "busy-3");
+    }
+
+    @Test
+    void smallerRequestsFinishEarlierWithinTheSameRound() throws Exception {
+        AiRateLimiter limiter = serialLimiter();
+        AiRateLimiter.Permit holder = limiter.acquire(BULK, "s0", 10, 1000);
+        List<String> admitted = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> threads = new ArrayList<>();
+
+        // 按预计token数加权：大请求的虚拟完成时间更晚
+        threads.add(enqueue(limiter, BULK, "large", 1000, "large-1", admitted));
+        threads.add(enqueue(limiter, BULK, "small", 100, "small-1", admitted));
+        threads.add(enqueue(limiter, BULK, "small", 100, "small-2", admitted));
+        limiter.release(holder);
+        joinAll(threads);
+
+        assertThat(admitted).containsExactly("small-1", "small-2", "large-1");
+    }
+
+    @Test
+    void interactiveRequestsOvertakeQueuedBulkRequests() throws Exception {
+        AiRateLimiter limiter = serialLimiter();
+        AiRateLimiter.Permit holder = limiter.acquire(BULK, "s0", 10, 1000);
+        List<String> admitted = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> threads = new ArrayList<>();
+
+        threads.add(enqueue(limiter, BULK, "translate", 10, "bulk-1", admitted));
+        threads.add(enqueue(limiter, BULK, "translate", 10, "bulk-2", admitted));
+        threads.add(enqueue(limiter, INTERACTIVE, "chat", 10, "chat-1", admitted));
+        limiter.release(holder);
+        joinAll(threads);
+
+        assertThat(admitted).containsExactly("chat-1", "bulk-1", "bulk-2");
+        assertThat(limiter.getQueueStats(INTERACTIVE).admitted()).isEqualTo(1);
+        assertThat(limiter.getQueueStats(BULK).admitted()).isEqualTo(3);
+    }
+
+    @Test
+    void bulkRequestsLeaveReservedConcurrencyForInteractive() {
+        AiRateLimiter limiter = new AiRateLimiter(4, 4, 4, 2, 0, 0, 0, 0L);
+
+        AiRateLimiter.Permit first = limiter.acquire(BULK, "s1", 10, 1000);
+        AiRateLimiter.Permit second = limiter.acquire(BULK, "s2", 10, 1000);
+        assertThatThrownBy(() -> limiter.acquire(BULK, "s3", 10, 100))
+                .isInstanceOf(RuntimeException.class);
+
+        AiRateLimiter.Permit chat = limiter.acquire(INTERACTIVE, "s4", 10, 100);
+        assertThat(limiter.getInFlight()).isEqualTo(3);
+        limiter.release(chat);
+        limiter.release(first);
+        limiter.release(second);
+    }
+
+    @Test
+    void bulkConcurrencyCapCountsOnlyAdmittedRequests() throws Exception {
+        AiRateLimiter limiter = new AiRateLimiter(8, 8, 8, 0, 2, 0, 0, 0L);
+
+        AiRateLimiter.Permit first = limiter.acquire(BULK, "s1", 10, 1000);
+        AiRateLimiter.Permit second = limiter.acquire(BULK, "s1", 10, 1000);
+        List<String> admitted = Collections.synchronizedList(new ArrayList<>());
+        Thread waiting = enqueue(limiter, BULK, "s2", 10, "s2-1", admitted);
+
+        // 批量并发已满，排队中的请求不占用并发，交互请求照常放行
+        assertThat(limiter.getQueueLength()).isEqualTo(1);
+        limiter.release(limiter.acquire(INTERACTIVE, "chat", 10, 100));
+        assertThat(admitted).isEmpty();
+
+        limiter.release(first);
+        joinAll(List.of(waiting));
+        assertThat(admitted).containsExactly("s2-1");
+        limiter.release(second);
+    }
+
+    @Test
+    void cancelledAsyncWaiterLeavesQueue() throws Exception {
+        AiRateLimiter limiter = serialLimiter();
+        AiRateLimiter.Permit holder = limiter.acquire(INTERACTIVE, "s1", 10, 1000);
+
+        CompletableFuture<AiRateLimiter.Permit> cancelled = limiter.acquireAsync(INTERACTIVE, "s2", 10, 5000);
+        awaitQueueLength(limiter, 1);
+        cancelled.cancel(true);
+        awaitQueueLength(limiter, 0);
+
+        // 取消的请求不再占用并发，释放后后续请求立即放行
+        limiter.release(holder);
+        AiRateLimiter.Permit next = limiter.acquire(INTERACTIVE, "s3", 10, 100);
+        assertThat(limiter.getInFlight()).isEqualTo(1);
+        limiter.release(next);
+    }
+
+    @Test
+    void timedOutAsyncWaiterLeavesQueue() throws Exception {
+        AiRateLimiter limiter = serialLimiter();
+        AiRateLimiter.Permit holder = limiter.acquire(INTERACTIVE, "s1", 10, 1000);
+
+        CompletableFuture<AiRateLimiter.Permit> timedOut = limiter.acquireAsync(INTERACTIVE, "s2", 10, 5000)
+                .orTimeout(50, TimeUnit.MILLISECONDS);
+
+        assertThatThrownBy(timedOut::join).hasCauseInstanceOf(TimeoutException.class);
+        awaitQueueLength(limiter, 0);
+        limiter.release(holder);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    /**
+     * 等待队列长度达到预期值
+     */
+    private static void awaitQueueLength(AiRateLimiter limiter, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (limiter.getQueueLength() != expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(limiter.getQueueLength()).isEqualTo(expected);
+    }
+
+    /**
+     * 并发上限固定为1的控制器（放行顺序即排队顺序）
+     */
+    private static AiRateLimiter serialLimiter() {
+        return new AiRateLimiter(1, 1, 1, 0, 0, 0, 0, 0L);
+    }
+
+    /**
+     * 在新线程上排队，确认已进入队列后返回；放行后记录名称并立即释放
+     */
+    private static Thread enqueue(AiRateLimiter limiter, AiRateLimiter.Priority priority, String sessionKey,
+                                  int tokens, String name, List<String> admitted) throws InterruptedException {
+        int queued = limiter.getQueueLength();
+        Thread thread = new Thread(() -> {
+            AiRateLimiter.Permit permit = limiter.acquire(priority, sessionKey, tokens, 5000);
+            admitted.add(name);
+            permit.onResponse(200, null);
+            limiter.release(permit);
+        });
+        thread.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (limiter.getQueueLength() <= queued && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(limiter.getQueueLength()).isEqualTo(queued + 1);
+        return thread;
+    }
+
+    private static void joinAll(List<Thread> threads) throws InterruptedException {
+        for (Thread thread : threads) {
+            thread.join(5000);
+            assertThat(thread.isAlive()).isFalse();
+        }
+    }
+
+    private static AiRateLimiter newLimiter(int initialLimit, int tokensPerMinute) {
+        return new AiRateLimiter(initialLimit, 1, 8, 0, 0, 0, tokensPerMinute, 0L);
+    }
+}
@@ -0,0 +1,90 @@
+package com.docagent.domain.service.impl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对话检索延迟基准测试：在合成文档（每页3个约500字符的分块）上执行BM25检索
+ * 构建耗时只在Setup中发生一次，测量的是对话请求线程上的单次检索延迟
+ * <p>
+ * 运行: mvn -pl doc-agent-domain -P benchmark test -Dbenchmark=Bm25IndexBenchmark
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Bm25IndexBenchmark {
+
+    private static final int CHUNKS_PER_PAGE = 3;
+    private static final int WORDS_PER_CHUNK = 80;
+    private static final int VOCABULARY_SIZE = 5000;
+
+    private static final String[] QUERIES = {
+            "how to configure the network proxy",
+            "安装 驱动 失败 怎么办",
+            "term42 term1337 term4000",
+            "error code reset device settings",
+    };
+
+    @Param({"100", "1000"})
+    private int pageCount;
+
+    private Bm25Index index;
+    private int queryIndex;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        String[] vocabulary = new String[VOCABULARY_SIZE];
+        String[] common = {"the", "to", "how", "device", "settings", "network", "error", "configure", "proxy", "reset", "code"};
+        for (int i = 0; i < VOCABULARY_SIZE; i++) {
+            vocabulary[i] = i < common.length ? common[i] : "term" + i;
+        }
+        String[] cjkPhrases = {"安装驱动", "网络设置", "恢复出厂", "失败原因", "怎么办理", "常见问题"};
+
+        List<String> chunks = new ArrayList<>();
+        List<Integer> pageNumbers = new ArrayList<>();
+        for (int page = 1; page <= pageCount; page++) {
+            for (int c = 0; c < CHUNKS_PER_PAGE; c++) {
+                StringBuilder chunk = new StringBuilder();
+                for (int w = 0; w < WORDS_PER_CHUNK; w++) {
+                    // 近似Zipf分布：低编号词出现频率高
+                    int rank = (int) Math.min(VOCABULARY_SIZE - 1, Math.pow(VOCABULARY_SIZE, random.nextDouble()));
+                    chunk.append(vocabulary[rank]).append(' ');
+                    if (w % 20 == 0) {
+                        chunk.append(cjkPhrases[random.nextInt(cjkPhrases.length)]).append('。');
+                    }
+                }
+                chunks.add(chunk.toString());
+                pageNumbers.add(page);
+            }
+        }
+        index = Bm25Index.build(chunks, pageNumbers);
+    }
+
+    @Benchmark
+    public List<Bm25Index.Hit> search() {
+        String query = QUERIES[queryIndex++ & 3];
+        return index.search(query, 15);
+    }
+}
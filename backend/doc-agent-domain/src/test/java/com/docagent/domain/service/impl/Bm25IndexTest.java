@@ -0,0 +1,121 @@
+package com.docagent.domain.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * BM25倒排索引测试
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+class Bm25IndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void tokenizeSplitsLatinWordsAndCjkBigrams() {
+        assertThat(Bm25Index.tokenize("Hello, World-2025!")).containsExactly("hello", "world", "2025");
+        assertThat(Bm25Index.tokenize("机器学习")).containsExactly("机器", "器学", "学习");
+        // 单字成段时保留单字，中英文混排时分别切分
+        assertThat(Bm25Index.tokenize("用 GPU训练")).containsExactly("用", "gpu", "训练");
+        assertThat(Bm25Index.tokenize("")).isEmpty();
+        assertThat(Bm25Index.tokenize(null)).isEmpty();
+    }
+
+    @Test
+    void searchScoresWithBm25() {
+        Bm25Index index = Bm25Index.build(
+                List.of("apple banana", "apple apple cherry", "cherry date"), List.of(1, 1, 2));
+
+        List<Bm25Index.Hit> hits = index.search("apple", 10);
+
+        // N=3，df=2，平均长度7/3
+        double idf = Math.log(1D + (3 - 2 + 0.5D) / (2 + 0.5D));
+        assertThat(hits).extracting(Bm25Index.Hit::chunkIndex).containsExactly(1, 0);
+        assertThat(hits.get(0).score()).isCloseTo((float) expectedScore(idf, 2, 3, 7D / 3), within(1e-4F));
+        assertThat(hits.get(1).score()).isCloseTo((float) expectedScore(idf, 1, 2, 7D / 3), within(1e-4F));
+        assertThat(hits.get(0).pageNumber()).isEqualTo(1);
+        assertThat(hits.get(0).content()).isEqualTo("apple apple cherry");
+    }
+
+    @Test
+    void rareTermsOutweighCommonTerms() {
+        Bm25Index index = Bm25Index.build(
+                List.of("common rare", "common common", "common word", "common text"), List.of(0, 0, 0, 0));
+
+        List<Bm25Index.Hit> hits = index.search("common rare", 4);
+
+        assertThat(hits.get(0).chunkIndex()).isEqualTo(0);
+        assertThat(hits.get(0).score()).isGreaterThan(hits.get(1).score());
+    }
+
+    @Test
+    void queryTermsAreCountedOnce() {
+        Bm25Index index = Bm25Index.build(List.of("apple pie", "banana split"), List.of(0, 0));
+
+        assertThat(index.search("apple apple APPLE", 1).get(0).score())
+                .isEqualTo(index.search("apple", 1).get(0).score());
+    }
+
+    @Test
+    void tiesAreBrokenByDocumentOrder() {
+        Bm25Index index = Bm25Index.build(
+                List.of("other words", "alpha beta", "alpha beta", "alpha beta", "alpha beta"),
+                List.of(1, 2, 3, 4, 5));
+
+        assertThat(index.search("alpha", 2)).extracting(Bm25Index.Hit::chunkIndex).containsExactly(1, 2);
+        assertThat(index.search("alpha", 10)).extracting(Bm25Index.Hit::chunkIndex).containsExactly(1, 2, 3, 4);
+    }
+
+    @Test
+    void searchKeepsTopKAndSkipsNonMatchingChunks() {
+        Bm25Index index = Bm25Index.build(
+                List.of("x", "x x", "x x x", "y", "x x x x"), List.of(0, 0, 0, 0, 0));
+
+        assertThat(index.search("x", 2)).extracting(Bm25Index.Hit::chunkIndex).containsExactly(4, 2);
+        assertThat(index.search("x", 10)).extracting(Bm25Index.Hit::chunkIndex).doesNotContain(3);
+        assertThat(index.search("z", 10)).isEmpty();
+        assertThat(index.search("x", 0)).isEmpty();
+        assertThat(Bm25Index.build(List.of(), List.of()).search("x", 5)).isEmpty();
+    }
+
+    @Test
+    void indexFileRoundTrip() throws IOException {
+        Bm25Index index = Bm25Index.build(
+                List.of("第一章 安装说明", "Chapter two: configuration", "第三章 常见问题 FAQ"), List.of(1, 5, 9));
+        Path path = tempDir.resolve("doc.pdf.bm25");
+
+        index.writeTo(path);
+        Bm25Index loaded = Bm25Index.readFrom(path);
+
+        assertThat(loaded.chunks()).containsExactlyElementsOf(index.chunks());
+        assertThat(loaded.pageNumberAt(2)).isEqualTo(9);
+        assertThat(loaded.search("常见问题 faq", 3)).usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(index.search("常见问题 faq", 3));
+        assertThat(Files.exists(tempDir.resolve("doc.pdf.bm25.tmp"))).isFalse();
+    }
+
+    @Test
+    void readRejectsIncompatibleFile() throws IOException {
+        Path path = Files.write(tempDir.resolve("bad.bm25"), new byte[]{0, 0, 0, 1, 0, 0, 0, 1});
+
+        assertThatThrownBy(() -> Bm25Index.readFrom(path)).isInstanceOf(IOException.class);
+    }
+
+    private static double expectedScore(double idf, int frequency, int length, double averageLength) {
+        double norm = 1.2D * (1D - 0.75D + 0.75D * length / averageLength);
+        return idf * frequency * 2.2D / (frequency + norm);
+    }
+}
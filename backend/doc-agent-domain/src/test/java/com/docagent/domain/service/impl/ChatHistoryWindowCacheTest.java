@@ -0,0 +1,187 @@
+package com.docagent.domain.service.impl;
+
+import com.docagent.domain.entity.ChatHistory;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 对话窗口缓存测试
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+class ChatHistoryWindowCacheTest {
+
+    private static final Long DOCUMENT_ID = 1L;
+    private static final String SESSION_ID = "s1";
+
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void missLoadsOnceThenServesAppendsFromWindow() {
+        ChatHistoryWindowCache cache = newCache(3, 0);
+        List<ChatHistory> database = new ArrayList<>(List.of(message("a"), message("b")));
+
+        assertThat(contents(cache.getRecent(DOCUMENT_ID, SESSION_ID, 10, () -> load(database)))).containsExactly("a", "b");
+        cache.append(message("c"));
+        cache.append(message("d"));
+
+        assertThat(contents(cache.getRecent(DOCUMENT_ID, SESSION_ID, 10, () -> load(database)))).containsExactly("b", "c", "d");
+        assertThat(contents(cache.getRecent(DOCUMENT_ID, SESSION_ID, 2, () -> load(database)))).containsExactly("c", "d");
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void completeOnlyWhileWindowHoldsWholeHistory() {
+        ChatHistoryWindowCache cache = newCache(3, 0);
+        cache.getRecent(DOCUMENT_ID, SESSION_ID, 10, () -> load(List.of(message("a"))));
+        cache.append(message("b"));
+
+        assertThat(contents(cache.getAllIfComplete(DOCUMENT_ID, SESSION_ID))).containsExactly("a", "b");
+
+        cache.append(message("c"));
+        cache.append(message("d"));
+
+        assertThat(cache.getAllIfComplete(DOCUMENT_ID, SESSION_ID)).isNull();
+        assertThat(cache.getAllIfComplete(DOCUMENT_ID, "other")).isNull();
+    }
+
+    @Test
+    void appendToUncachedSessionIsNotCached() {
+        ChatHistoryWindowCache cache = newCache(3, 0);
+        cache.append(message("a"));
+
+        assertThat(cache.getAllIfComplete(DOCUMENT_ID, SESSION_ID)).isNull();
+    }
+
+    @Test
+    void invalidateForcesReloadFromDatabase() {
+        ChatHistoryWindowCache cache = newCache(5, 0);
+        List<ChatHistory> database = new ArrayList<>(List.of(message("a")));
+        cache.getRecent(DOCUMENT_ID, SESSION_ID, 10, () -> load(database));
+
+        // 其他节点写入后广播失效
+        database.add(message("remote"));
+        cache.invalidate(DOCUMENT_ID, SESSION_ID);
+
+        assertThat(contents(cache.getRecent(DOCUMENT_ID, SESSION_ID, 10, () -> load(database))))
+                .containsExactly("a", "remote");
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void loadRacingWithInvalidationIsNotCached() {
+        ChatHistoryWindowCache cache = newCache(5, 0);
+
+        List<ChatHistory> stale = cache.getRecent(DOCUMENT_ID, SESSION_ID, 10, () -> {
+            // 加载期间收到失效广播，加载结果可能已过时
+            cache.invalidate(DOCUMENT_ID, SESSION_ID);
+            return load(List.of(message("old")));
+        });
+
+        assertThat(contents(stale)).containsExactly("old");
+        assertThat(cache.getAllIfComplete(DOCUMENT_ID, SESSION_ID)).isNull();
+    }
+
+    @Test
+    void loadIsCachedWhenOtherSessionChangesDuringLoad() {
+        ChatHistoryWindowCache cache = newCache(5, 0);
+
+        cache.getRecent(DOCUMENT_ID, SESSION_ID, 10, () -> {
+            // 加载期间其他会话收到失效广播、有未缓存的写入，不影响本会话的加载结果
+            cache.invalidate(DOCUMENT_ID, "other");
+            cache.invalidate(2L, SESSION_ID);
+            ChatHistory otherMessage = message("other");
+            otherMessage.setSessionId("other");
+            cache.append(otherMessage);
+            return load(List.of(message("a")));
+        });
+
+        assertThat(contents(cache.getAllIfComplete(DOCUMENT_ID, SESSION_ID))).containsExactly("a");
+    }
+
+    @Test
+    void appendRacingWithLoadOfSameSessionIsNotCached() {
+        ChatHistoryWindowCache cache = newCache(5, 0);
+
+        cache.getRecent(DOCUMENT_ID, SESSION_ID, 10, () -> {
+            cache.append(message("new"));
+            return load(List.of(message("a")));
+        });
+
+        assertThat(cache.getAllIfComplete(DOCUMENT_ID, SESSION_ID)).isNull();
+        // 下一次加载不受上一次并发写入的影响
+        cache.getRecent(DOCUMENT_ID, SESSION_ID, 10, () -> load(List.of(message("a"), message("new"))));
+        assertThat(contents(cache.getAllIfComplete(DOCUMENT_ID, SESSION_ID))).containsExactly("a", "new");
+    }
+
+    @Test
+    void windowExpiresAfterMaxAge() {
+        ChatHistoryWindowCache cache = newCache(5, 60_000L);
+        List<ChatHistory> database = new ArrayList<>(List.of(message("a")));
+        cache.getRecent(DOCUMENT_ID, SESSION_ID, 10, () -> load(database));
+
+        // 失效广播丢失：其他节点的写入在过期前不可见
+        database.add(message("remote"));
+        now.addAndGet(59_999L);
+        assertThat(contents(cache.getAllIfComplete(DOCUMENT_ID, SESSION_ID))).containsExactly("a");
+
+        now.addAndGet(1L);
+        assertThat(cache.getAllIfComplete(DOCUMENT_ID, SESSION_ID)).isNull();
+        assertThat(contents(cache.getRecent(DOCUMENT_ID, SESSION_ID, 10, () -> load(database))))
+                .containsExactly("a", "remote");
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedSessionOverLimits() {
+        ChatHistoryWindowCache cache = new ChatHistoryWindowCache(5, 2, Long.MAX_VALUE, 0, now::get);
+        cache.getRecent(DOCUMENT_ID, "s1", 10, () -> load(List.of(message("a"))));
+        cache.getRecent(DOCUMENT_ID, "s2", 10, () -> load(List.of(message("b"))));
+        cache.getAllIfComplete(DOCUMENT_ID, "s1");
+        cache.getRecent(DOCUMENT_ID, "s3", 10, () -> load(List.of(message("c"))));
+
+        assertThat(cache.getAllIfComplete(DOCUMENT_ID, "s1")).isNotNull();
+        assertThat(cache.getAllIfComplete(DOCUMENT_ID, "s2")).isNull();
+        assertThat(cache.getAllIfComplete(DOCUMENT_ID, "s3")).isNotNull();
+    }
+
+    @Test
+    void evictsOverByteBudgetButKeepsLatestWindow() {
+        ChatHistoryWindowCache cache = new ChatHistoryWindowCache(5, 100, 300, 0, now::get);
+        cache.getRecent(DOCUMENT_ID, "s1", 10, () -> load(List.of(message("x".repeat(50)))));
+        cache.getRecent(DOCUMENT_ID, "s2", 10, () -> load(List.of(message("y".repeat(500)))));
+
+        assertThat(cache.getAllIfComplete(DOCUMENT_ID, "s1")).isNull();
+        assertThat(cache.getAllIfComplete(DOCUMENT_ID, "s2")).isNotNull();
+    }
+
+    private ChatHistoryWindowCache newCache(int windowSize, long maxAgeMillis) {
+        return new ChatHistoryWindowCache(windowSize, 100, Long.MAX_VALUE, maxAgeMillis, now::get);
+    }
+
+    private List<ChatHistory> load(List<ChatHistory> database) {
+        loads.incrementAndGet();
+        return new ArrayList<>(database);
+    }
+
+    private static ChatHistory message(String content) {
+        ChatHistory message = new ChatHistory();
+        message.setDocumentId(DOCUMENT_ID);
+        message.setSessionId(SESSION_ID);
+        message.setRole("user");
+        message.setContent(content);
+        return message;
+    }
+
+    private static List<String> contents(List<ChatHistory> messages) {
+        return messages.stream().map(ChatHistory::getContent).toList();
+    }
+}
@@ -0,0 +1,108 @@
+package com.docagent.domain.service.impl;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okio.Buffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 流式响应解析基准测试：原实现（Scanner + readTree）与当前实现（okio按行读取 + Jackson流式API）对比
+ * 结果按单个数据块计算（吞吐ops/s即每秒解析的数据块数），配合 -prof gc 查看每个数据块的内存分配（gc.alloc.rate.norm）
+ * <p>
+ * 运行: mvn -pl doc-agent-domain -P benchmark test -Dbenchmark=ChatStreamParserBenchmark
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChatStreamParserBenchmark {
+
+    /**
+     * 每次调用解析的数据块数
+     */
+    private static final int CHUNKS = 500;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final JsonFactory jsonFactory = objectMapper.getFactory();
+
+    private byte[] body;
+
+    @Setup
+    public void setup() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < CHUNKS; i++) {
+            // 与OpenAI兼容接口的数据块结构一致，每块为一个词或几个汉字
+            String content = i % 3 == 0 ? "文档" + i : " token" + i;
+            builder.append("data: {\"id\":\"chatcmpl-8x\",\"object\":\"chat.completion.chunk\",\"created\":1731400000,")
+                    .append("\"model\":\"gpt-4o-mini\",\"system_fingerprint\":\"fp_0ba0d124f1\",")
+                    .append("\"choices\":[{\"index\":0,\"delta\":{\"content\":\"").append(content)
+                    .append("\"},\"logprobs\":null,\"finish_reason\":null}]}\n\n");
+        }
+        builder.append("data: [DONE]\n\n");
+        body = builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 原实现：Scanner按行读取，每个数据块构建完整的JsonNode树
+     */
+    @Benchmark
+    @OperationsPerInvocation(CHUNKS)
+    public void scannerReadTree(Blackhole blackhole) throws IOException {
+        Scanner scanner = new Scanner(new ByteArrayInputStream(body));
+        while (scanner.hasNextLine()) {
+            String line = scanner.nextLine();
+            if (line.startsWith("data: ")) {
+                String data = line.substring(6);
+                if ("[DONE]".equals(data)) {
+                    break;
+                }
+                JsonNode dataNode = objectMapper.readTree(data);
+                blackhole.consume(dataNode.path("choices").get(0).path("delta").path("content").asText());
+            }
+        }
+    }
+
+    /**
+     * 当前实现：okio缓冲源按行读取，流式API只读取 choices[0].delta.content
+     */
+    @Benchmark
+    @OperationsPerInvocation(CHUNKS)
+    public void okioStreaming(Blackhole blackhole) throws IOException {
+        Buffer source = new Buffer().write(body);
+        String line;
+        while ((line = source.readUtf8Line()) != null) {
+            String data = ChatStreamParser.extractData(line);
+            if (data == null) {
+                continue;
+            }
+            if (ChatStreamParser.DONE_MARKER.equals(data)) {
+                break;
+            }
+            blackhole.consume(ChatStreamParser.readDeltaContent(jsonFactory, data));
+        }
+    }
+}
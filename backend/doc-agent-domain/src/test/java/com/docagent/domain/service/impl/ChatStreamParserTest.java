@@ -0,0 +1,87 @@
+package com.docagent.domain.service.impl;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * OpenAI流式响应解析器测试
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+class ChatStreamParserTest {
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    @Test
+    void extractDataStripsPrefixAndOneSpace() {
+        assertThat(ChatStreamParser.extractData("data: {\"a\":1}")).isEqualTo("{\"a\":1}");
+        assertThat(ChatStreamParser.extractData("data:{\"a\":1}")).isEqualTo("{\"a\":1}");
+        // 只去掉一个空格，其余空白属于负载
+        assertThat(ChatStreamParser.extractData("data:  x")).isEqualTo(" x");
+        assertThat(ChatStreamParser.extractData("data:")).isEmpty();
+        assertThat(ChatStreamParser.extractData("data: [DONE]")).isEqualTo(ChatStreamParser.DONE_MARKER);
+    }
+
+    @Test
+    void extractDataIgnoresNonDataLines() {
+        assertThat(ChatStreamParser.extractData("")).isNull();
+        assertThat(ChatStreamParser.extractData(": keep-alive")).isNull();
+        assertThat(ChatStreamParser.extractData("event: message")).isNull();
+        assertThat(ChatStreamParser.extractData(" data: x")).isNull();
+    }
+
+    @Test
+    void readDeltaContentReturnsFirstChoiceContent() throws IOException {
+        String data = "{\"id\":\"c1\",\"object\":\"chat.completion.chunk\",\"created\":1,"
+                + "\"choices\":[{\"index\":0,\"delta\":{\"role\":\"assistant\",\"content\":\"你好\"},\"finish_reason\":null},"
+                + "{\"index\":1,\"delta\":{\"content\":\"second\"}}]}";
+
+        assertThat(ChatStreamParser.readDeltaContent(jsonFactory, data)).isEqualTo("你好");
+    }
+
+    @Test
+    void readDeltaContentSkipsNestedFieldsBeforeTarget() throws IOException {
+        String data = "{\"usage\":{\"prompt_tokens\":1,\"details\":{\"content\":\"wrong\"}},"
+                + "\"choices\":[{\"logprobs\":{\"content\":[{\"token\":\"x\"}]},\"delta\":{\"content\":\"right\"}}]}";
+
+        assertThat(ChatStreamParser.readDeltaContent(jsonFactory, data)).isEqualTo("right");
+    }
+
+    @Test
+    void readDeltaContentKeepsWhitespaceAndEscapes() throws IOException {
+        assertThat(ChatStreamParser.readDeltaContent(jsonFactory,
+                "{\"choices\":[{\"delta\":{\"content\":\"\\n  \"}}]}")).isEqualTo("\n  ");
+        assertThat(ChatStreamParser.readDeltaContent(jsonFactory,
+                "{\"choices\":[{\"delta\":{\"content\":\"say \\\"hi\\\" \\u4e2d\"}}]}")).isEqualTo("say \"hi\" 中");
+    }
+
+    @Test
+    void readDeltaContentReturnsNullWhenContentMissing() throws IOException {
+        // 首个数据块只有role
+        assertThat(ChatStreamParser.readDeltaContent(jsonFactory,
+                "{\"choices\":[{\"delta\":{\"role\":\"assistant\"}}]}")).isNull();
+        // 结束块content为null
+        assertThat(ChatStreamParser.readDeltaContent(jsonFactory,
+                "{\"choices\":[{\"delta\":{\"content\":null},\"finish_reason\":\"stop\"}]}")).isNull();
+        assertThat(ChatStreamParser.readDeltaContent(jsonFactory, "{\"choices\":[]}")).isNull();
+        assertThat(ChatStreamParser.readDeltaContent(jsonFactory, "{\"choices\":{}}")).isNull();
+        assertThat(ChatStreamParser.readDeltaContent(jsonFactory, "[1,2]")).isNull();
+        assertThat(ChatStreamParser.readDeltaContent(jsonFactory, "")).isNull();
+    }
+
+    @Test
+    void readDeltaContentFailsOnTruncatedJson() {
+        assertThatThrownBy(() -> ChatStreamParser.readDeltaContent(jsonFactory,
+                "{\"choices\":[{\"delta\":{\"content\":\"half"))
+                .isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> ChatStreamParser.readDeltaContent(jsonFactory, "{\"choices\":[{\"delta\""))
+                .isInstanceOf(IOException.class);
+    }
+}
@@ -0,0 +1,202 @@
+package com.docagent.domain.service.impl;
+
+import com.docagent.domain.config.DocumentCacheConfig;
+import com.docagent.domain.entity.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 文档元数据缓存测试：并发失效不回填旧值、延迟双删、Redis熔断与恢复后补删
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+class DocumentCacheServiceImplTest {
+
+    private static final String REDIS_KEY = "docagent:document:1:s1";
+
+    private DocumentCacheConfig config;
+    private StringRedisTemplate redisTemplate;
+    private ValueOperations<String, String> valueOperations;
+    private ScheduledExecutorService scheduler;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        config = new DocumentCacheConfig();
+        redisTemplate = mock(StringRedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        scheduler = mock(ScheduledExecutorService.class);
+    }
+
+    @Test
+    void loadRacingWithEvictIsNotCached() {
+        DocumentCacheServiceImpl service = newService();
+
+        Document loaded = service.get(1L, "s1", () -> {
+            // 查询数据库期间文档被修改并失效
+            service.evict(1L, "s1");
+            return load();
+        });
+
+        assertThat(loaded).isNotNull();
+        verify(valueOperations, never()).set(anyString(), anyString(), any(Duration.class));
+        service.get(1L, "s1", this::load);
+        assertThat(loads).hasValue(2);
+        assertThat(service.getStats().getStaleLoadCount()).isEqualTo(1);
+    }
+
+    @Test
+    void loadWithoutConcurrentEvictIsCached() {
+        DocumentCacheServiceImpl service = newService();
+
+        service.get(1L, "s1", this::load);
+        service.get(1L, "s1", this::load);
+
+        assertThat(loads).hasValue(1);
+        verify(valueOperations).set(eq(REDIS_KEY), anyString(), eq(Duration.ofSeconds(600)));
+    }
+
+    @Test
+    void evictOfOtherDocumentDoesNotDiscardLoad() {
+        DocumentCacheServiceImpl service = newService();
+
+        service.get(1L, "s1", () -> {
+            // 查询期间其他文档失效，不影响本文档回填缓存
+            service.evict(2L, "s1");
+            return load();
+        });
+        service.get(1L, "s1", this::load);
+
+        assertThat(loads).hasValue(1);
+        assertThat(service.getStats().getStaleLoadCount()).isZero();
+        verify(valueOperations).set(eq(REDIS_KEY), anyString(), eq(Duration.ofSeconds(600)));
+    }
+
+    @Test
+    void evictDeletesAgainAfterDelay() {
+        DocumentCacheServiceImpl service = newService();
+
+        service.evict(1L, "s1");
+
+        verify(redisTemplate).delete(REDIS_KEY);
+        verify(redisTemplate).convertAndSend("docagent:document:invalidate", "1:s1");
+        ArgumentCaptor<Runnable> delayed = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).schedule(delayed.capture(), eq(1000L), eq(TimeUnit.MILLISECONDS));
+
+        delayed.getValue().run();
+
+        verify(redisTemplate, times(2)).delete(REDIS_KEY);
+        verify(redisTemplate, times(2)).convertAndSend("docagent:document:invalidate", "1:s1");
+    }
+
+    @Test
+    void redisFailureSkipsRedisWhileOpen() {
+        when(valueOperations.get(anyString())).thenThrow(new RedisConnectionFailureException("down"));
+        DocumentCacheServiceImpl service = newService();
+
+        service.get(1L, "s1", this::load);
+        service.get(2L, "s1", this::load);
+        service.evict(3L, "s1");
+
+        verify(valueOperations, times(1)).get(anyString());
+        verify(valueOperations, never()).set(anyString(), anyString(), any(Duration.class));
+        verify(redisTemplate, never()).delete(anyString());
+        assertThat(service.getStats().getRedisCircuitOpen()).isTrue();
+        assertThat(service.getStats().getRedisSkipCount()).isGreaterThanOrEqualTo(3);
+        assertThat(service.getStats().getPendingDeleteCount()).isEqualTo(1);
+    }
+
+    @Test
+    void evictionsDuringOutageAreReplayedOnRecovery() {
+        // 熔断时间为0，下一次访问即为试探请求
+        config.setRedisOpenSeconds(0L);
+        doThrow(new RedisConnectionFailureException("down")).when(redisTemplate).delete(anyString());
+        DocumentCacheServiceImpl service = newService();
+
+        service.evict(1L, "s1");
+        assertThat(service.getStats().getPendingDeleteCount()).isEqualTo(1);
+
+        // Redis恢复后先补删积压的key，再读取（Redis中可能是失效前的旧值）
+        reset(redisTemplate);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        service.get(1L, "s1", this::load);
+        InOrder inOrder = inOrder(redisTemplate, valueOperations);
+        inOrder.verify(redisTemplate).delete(REDIS_KEY);
+        inOrder.verify(valueOperations).get(REDIS_KEY);
+
+        assertThat(service.getStats().getPendingDeleteCount()).isZero();
+        assertThat(service.getStats().getRedisCircuitOpen()).isFalse();
+    }
+
+    @Test
+    void staleKeyIsNotReadWhileRedisIsDown() {
+        config.setRedisOpenSeconds(0L);
+        doThrow(new RedisConnectionFailureException("down")).when(redisTemplate).delete(anyString());
+        DocumentCacheServiceImpl service = newService();
+        service.evict(1L, "s1");
+
+        // 补删仍然失败，不读取该key
+        service.get(1L, "s1", this::load);
+
+        verify(valueOperations, never()).get(REDIS_KEY);
+        assertThat(service.getStats().getPendingDeleteCount()).isEqualTo(1);
+    }
+
+    @Test
+    void redisDisabledNeverTouchesRedis() {
+        config.setRedisEnabled(false);
+        DocumentCacheServiceImpl service = newService();
+
+        service.get(1L, "s1", this::load);
+        service.evict(1L, "s1");
+
+        verify(redisTemplate, never()).opsForValue();
+        verify(redisTemplate, never()).delete(anyString());
+        verify(scheduler, never()).schedule(any(Runnable.class), anyLong(), any());
+    }
+
+    private DocumentCacheServiceImpl newService() {
+        DocumentCacheServiceImpl service = new DocumentCacheServiceImpl(config, redisTemplate,
+                mock(RedisMessageListenerContainer.class), scheduler);
+        service.init();
+        return service;
+    }
+
+    private Document load() {
+        loads.incrementAndGet();
+        Document document = new Document();
+        document.setId(1L);
+        document.setSessionId("s1");
+        document.setStatus(1);
+        return document;
+    }
+}
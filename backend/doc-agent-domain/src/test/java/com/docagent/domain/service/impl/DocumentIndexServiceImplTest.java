@@ -0,0 +1,218 @@
+package com.docagent.domain.service.impl;
+
+import com.docagent.domain.config.ChatConfig;
+import com.docagent.domain.config.EmbeddingConfig;
+import com.docagent.domain.dto.ParsedDocument;
+import com.docagent.domain.dto.RetrievedChunk;
+import com.docagent.domain.service.DocumentTextService;
+import com.docagent.domain.service.EmbeddingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 文档检索索引服务测试：对话线程不构建索引，加载失败不缓存，向量索引失败后退避重试且有次数上限
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+class DocumentIndexServiceImplTest {
+
+    private static final Long CONTENT_ID = 1L;
+    private static final String TEXT = "第一章 安装说明。请先安装驱动程序。\n第二章 网络设置。打开设置页面配置代理。";
+
+    @TempDir
+    Path tempDir;
+
+    private String filePath;
+    private DocumentTextService documentTextService;
+    private CapturingExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        filePath = tempDir.resolve("doc.pdf").toString();
+        documentTextService = mock(DocumentTextService.class);
+        executor = new CapturingExecutor();
+    }
+
+    @Test
+    void searchUsesIndexBuiltDuringIngest() {
+        DocumentIndexServiceImpl service = newService(256);
+        service.buildIndex(CONTENT_ID, filePath, parsed());
+
+        List<RetrievedChunk> chunks = service.search(CONTENT_ID, filePath, "网络代理");
+
+        assertThat(chunks).isNotEmpty();
+        assertThat(chunks.get(0).getPageNumber()).isEqualTo(2);
+        assertThat(executor.tasks).isEmpty();
+    }
+
+    @Test
+    void searchReadsExistingIndexFilesWithoutRebuilding() {
+        newService(256).buildIndex(CONTENT_ID, filePath, parsed());
+        DocumentIndexServiceImpl restarted = newService(256);
+
+        assertThat(restarted.search(CONTENT_ID, filePath, "安装驱动")).isNotEmpty();
+        assertThat(executor.tasks).isEmpty();
+        verify(documentTextService, never()).getText(anyLong());
+    }
+
+    @Test
+    void missingIndexIsRebuiltInBackgroundNotOnChatThread() {
+        when(documentTextService.getText(CONTENT_ID)).thenReturn(TEXT);
+        DocumentIndexServiceImpl service = newService(256);
+
+        assertThat(service.search(CONTENT_ID, filePath, "安装驱动")).isEmpty();
+        assertThat(service.search(CONTENT_ID, filePath, "安装驱动")).isEmpty();
+        // 同一内容只提交一个重建任务，对话线程上没有读取全文
+        assertThat(executor.tasks).hasSize(1);
+        verify(documentTextService, never()).getText(anyLong());
+
+        executor.runAll();
+
+        assertThat(service.search(CONTENT_ID, filePath, "安装驱动")).isNotEmpty();
+        assertThat(Files.exists(Path.of(filePath + ".bm25"))).isTrue();
+        assertThat(Files.exists(Path.of(filePath + ".vec"))).isTrue();
+    }
+
+    @Test
+    void failedLoadIsNotCached() {
+        when(documentTextService.getText(CONTENT_ID)).thenReturn(null, TEXT);
+        DocumentIndexServiceImpl service = newService(256);
+
+        assertThat(service.search(CONTENT_ID, filePath, "安装驱动")).isEmpty();
+        executor.runAll();
+
+        // 上次重建没有结果，再次检索时重新提交
+        assertThat(service.search(CONTENT_ID, filePath, "安装驱动")).isEmpty();
+        assertThat(executor.tasks).hasSize(1);
+        executor.runAll();
+
+        assertThat(service.search(CONTENT_ID, filePath, "安装驱动")).isNotEmpty();
+        verify(documentTextService, times(2)).getText(CONTENT_ID);
+    }
+
+    @Test
+    void staleVectorIndexFallsBackToKeywordsAndRebuildsInBackground() throws Exception {
+        newService(256).buildIndex(CONTENT_ID, filePath, parsed());
+        long vectorSize = Files.size(Path.of(filePath + ".vec"));
+        DocumentIndexServiceImpl service = newService(128);
+
+        assertThat(service.search(CONTENT_ID, filePath, "安装驱动")).isNotEmpty();
+        assertThat(executor.tasks).hasSize(1);
+
+        executor.runAll();
+
+        assertThat(Files.size(Path.of(filePath + ".vec"))).isLessThan(vectorSize);
+    }
+
+    @Test
+    void failedVectorBuildIsRetriedUpToMaxAttempts() {
+        ChatConfig chatConfig = newChatConfig();
+        chatConfig.setVectorRetryInitialMs(0L);
+        chatConfig.setVectorRetryMaxAttempts(3);
+        EmbeddingService embeddingService = failingEmbeddingService();
+        DocumentIndexServiceImpl service = newService(chatConfig, embeddingService);
+        service.buildIndex(CONTENT_ID, filePath, parsed());
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(service.search(CONTENT_ID, filePath, "安装驱动")).isNotEmpty();
+            executor.runAll();
+        }
+
+        // 入库时1次 + 后台重试2次，达到上限后只使用关键词检索
+        verify(embeddingService, times(3)).embedDocuments(anyList());
+        assertThat(executor.tasks).isEmpty();
+    }
+
+    @Test
+    void failedVectorBuildWaitsForBackoffBeforeRetry() {
+        ChatConfig chatConfig = newChatConfig();
+        chatConfig.setVectorRetryInitialMs(60_000L);
+        EmbeddingService embeddingService = failingEmbeddingService();
+        DocumentIndexServiceImpl service = newService(chatConfig, embeddingService);
+        service.buildIndex(CONTENT_ID, filePath, parsed());
+
+        assertThat(service.search(CONTENT_ID, filePath, "安装驱动")).isNotEmpty();
+
+        assertThat(executor.tasks).isEmpty();
+        verify(embeddingService, times(1)).embedDocuments(anyList());
+    }
+
+    private DocumentIndexServiceImpl newService(int dimension) {
+        EmbeddingConfig embeddingConfig = new EmbeddingConfig();
+        embeddingConfig.setDimension(dimension);
+        return newService(newChatConfig(), new LocalEmbeddingServiceImpl(embeddingConfig));
+    }
+
+    private DocumentIndexServiceImpl newService(ChatConfig chatConfig, EmbeddingService embeddingService) {
+        DocumentIndexServiceImpl service = new DocumentIndexServiceImpl(chatConfig, documentTextService,
+                embeddingService, executor);
+        service.init();
+        return service;
+    }
+
+    private static ChatConfig newChatConfig() {
+        ChatConfig chatConfig = new ChatConfig();
+        chatConfig.setChunkSize(40);
+        chatConfig.setChunkOverlap(5);
+        return chatConfig;
+    }
+
+    /**
+     * 向量化接口始终失败（如维度不一致、接口不可用）
+     */
+    private static EmbeddingService failingEmbeddingService() {
+        EmbeddingService embeddingService = mock(EmbeddingService.class);
+        when(embeddingService.getModelId()).thenReturn("remote:256");
+        when(embeddingService.getDimension()).thenReturn(256);
+        when(embeddingService.embedDocuments(anyList())).thenThrow(new RuntimeException("向量化结果维度不一致，期望=256"));
+        return embeddingService;
+    }
+
+    private static ParsedDocument parsed() {
+        int split = TEXT.indexOf('\n') + 1;
+        return ParsedDocument.builder()
+                .pageCount(2)
+                .text(TEXT)
+                .pages(List.of(
+                        ParsedDocument.PageText.builder().pageNumber(1).startOffset(0).endOffset(split).build(),
+                        ParsedDocument.PageText.builder().pageNumber(2).startOffset(split).endOffset(TEXT.length()).build()))
+                .build();
+    }
+
+    /**
+     * 只记录提交的任务，由测试手动执行
+     */
+    private static final class CapturingExecutor extends ThreadPoolTaskExecutor {
+
+        private final List<Runnable> tasks = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        void runAll() {
+            List<Runnable> pending = new ArrayList<>(tasks);
+            tasks.clear();
+            pending.forEach(Runnable::run);
+        }
+    }
+}
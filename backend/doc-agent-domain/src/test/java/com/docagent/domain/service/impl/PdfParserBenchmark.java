@@ -0,0 +1,85 @@
+package com.docagent.domain.service.impl;
+
+import com.docagent.domain.config.PdfConfig;
+import com.docagent.domain.dto.ParsedDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 大PDF解析基准测试：单线程提取与按页段并行提取对比（合成PDF，每页40行文本）
+ * <p>
+ * 运行: mvn -pl doc-agent-domain -P benchmark test -Dbenchmark=PdfParserBenchmark -Djmh.args=
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PdfParserBenchmark {
+
+    @Param({"200", "1000"})
+    private int pageCount;
+
+    /**
+     * sequential-单线程提取，parallel-按页段并行提取
+     */
+    @Param({"sequential", "parallel"})
+    private String mode;
+
+    private Path tempDir;
+    private File pdf;
+    private ExecutorService executor;
+    private PdfParserServiceImpl parser;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        tempDir = Files.createTempDirectory("pdf-benchmark");
+        pdf = SyntheticPdf.write(tempDir.resolve("synthetic.pdf"), pageCount, 40).toFile();
+
+        PdfConfig config = new PdfConfig();
+        config.setParallelPageThreshold("parallel".equals(mode) ? 1 : Integer.MAX_VALUE);
+        config.setScratchDir(tempDir.toString());
+        executor = Executors.newFixedThreadPool(config.getParallelism());
+        parser = new PdfParserServiceImpl(config, executor);
+        parser.init();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        executor.shutdownNow();
+        try (Stream<Path> files = Files.walk(tempDir)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public ParsedDocument parse() {
+        return parser.parse(pdf);
+    }
+}
@@ -0,0 +1,110 @@
+package com.docagent.domain.service.impl;
+
+import com.docagent.domain.config.PdfConfig;
+import com.docagent.domain.dto.ParsedDocument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * PDF解析服务测试：并行按页段提取与单线程提取结果一致
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+class PdfParserServiceImplTest {
+
+    private static final int PAGE_COUNT = 23;
+
+    @TempDir
+    Path tempDir;
+
+    private ExecutorService executor;
+    private File pdf;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        executor = Executors.newFixedThreadPool(4);
+        pdf = SyntheticPdf.write(tempDir.resolve("manual.pdf"), PAGE_COUNT, 5).toFile();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void parallelExtractionMatchesSequential() {
+        ParsedDocument sequential = newParser(Integer.MAX_VALUE).parse(pdf);
+        ParsedDocument parallel = newParser(5).parse(pdf);
+
+        assertThat(parallel.getPageCount()).isEqualTo(PAGE_COUNT);
+        assertThat(parallel.getText()).isEqualTo(sequential.getText());
+        assertThat(parallel.getPages()).usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(sequential.getPages());
+        assertThat(parallel.getTitle()).isEqualTo("Synthetic manual");
+        assertThat(parallel.getAuthor()).isEqualTo("DocAgent");
+    }
+
+    @Test
+    void pageOffsetsPointAtPageText() {
+        ParsedDocument parsed = newParser(5).parse(pdf);
+
+        assertThat(parsed.getPages()).hasSize(PAGE_COUNT);
+        int previousEnd = 0;
+        for (ParsedDocument.PageText page : parsed.getPages()) {
+            assertThat(page.getStartOffset()).isGreaterThanOrEqualTo(previousEnd);
+            String pageText = parsed.getText().substring(page.getStartOffset(), page.getEndOffset());
+            assertThat(pageText).contains(SyntheticPdf.lineText(page.getPageNumber(), 1))
+                    .doesNotContain("Page " + (page.getPageNumber() + 1) + " line");
+            previousEnd = page.getEndOffset();
+        }
+    }
+
+    @Test
+    void parsesWithoutHeapBudget() {
+        PdfConfig config = newConfig(5);
+        config.setGlobalMainMemoryMb(0);
+        PdfParserServiceImpl parser = new PdfParserServiceImpl(config, executor);
+        parser.init();
+
+        assertThat(parser.parse(pdf).getPageCount()).isEqualTo(PAGE_COUNT);
+    }
+
+    @Test
+    void rejectsDocumentsAboveMaxPages() {
+        PdfConfig config = newConfig(5);
+        config.setMaxPages(PAGE_COUNT - 1);
+        PdfParserServiceImpl parser = new PdfParserServiceImpl(config, executor);
+        parser.init();
+
+        assertThatThrownBy(() -> parser.parse(pdf))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("PDF页数超过上限");
+    }
+
+    private PdfParserServiceImpl newParser(int parallelPageThreshold) {
+        PdfParserServiceImpl parser = new PdfParserServiceImpl(newConfig(parallelPageThreshold), executor);
+        parser.init();
+        return parser;
+    }
+
+    private PdfConfig newConfig(int parallelPageThreshold) {
+        PdfConfig config = new PdfConfig();
+        config.setParallelPageThreshold(parallelPageThreshold);
+        config.setPagesPerTask(4);
+        config.setParallelism(4);
+        config.setScratchDir(tempDir.toString());
+        return config;
+    }
+}
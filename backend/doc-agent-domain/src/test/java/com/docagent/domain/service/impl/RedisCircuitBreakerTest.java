@@ -0,0 +1,77 @@
+package com.docagent.domain.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Redis访问熔断器测试
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+class RedisCircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong(1_000L);
+    private final RedisCircuitBreaker breaker = new RedisCircuitBreaker(30_000L, now::get);
+
+    @Test
+    void closedBreakerAllowsRequests() {
+        assertThat(breaker.allowRequest()).isTrue();
+        assertThat(breaker.allowRequest()).isTrue();
+        assertThat(breaker.isOpen()).isFalse();
+    }
+
+    @Test
+    void failureSkipsRedisUntilOpenTimeElapses() {
+        breaker.onFailure();
+
+        assertThat(breaker.isOpen()).isTrue();
+        assertThat(breaker.allowRequest()).isFalse();
+        now.addAndGet(29_999L);
+        assertThat(breaker.allowRequest()).isFalse();
+    }
+
+    @Test
+    void onlyOneProbeAfterOpenTime() {
+        breaker.onFailure();
+        now.addAndGet(30_000L);
+
+        assertThat(breaker.allowRequest()).isTrue();
+        assertThat(breaker.allowRequest()).isFalse();
+
+        breaker.onSuccess();
+
+        assertThat(breaker.isOpen()).isFalse();
+        assertThat(breaker.allowRequest()).isTrue();
+        assertThat(breaker.allowRequest()).isTrue();
+    }
+
+    @Test
+    void unreportedProbeIsRetriedAfterAnotherOpenTime() {
+        breaker.onFailure();
+        now.addAndGet(30_000L);
+        assertThat(breaker.allowRequest()).isTrue();
+
+        now.addAndGet(29_999L);
+        assertThat(breaker.allowRequest()).isFalse();
+        now.addAndGet(1L);
+        assertThat(breaker.allowRequest()).isTrue();
+    }
+
+    @Test
+    void failedProbeReopens() {
+        breaker.onFailure();
+        now.addAndGet(30_000L);
+        assertThat(breaker.allowRequest()).isTrue();
+
+        breaker.onFailure();
+
+        assertThat(breaker.allowRequest()).isFalse();
+        now.addAndGet(30_000L);
+        assertThat(breaker.allowRequest()).isTrue();
+    }
+}
@@ -0,0 +1,67 @@
+package com.docagent.domain.service.impl;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDDocumentInformation;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * 生成测试用的合成PDF（每页若干行英文文本，页内容可按页码区分）
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+final class SyntheticPdf {
+
+    private SyntheticPdf() {
+    }
+
+    /**
+     * 生成PDF文件
+     *
+     * @param path 输出路径
+     * @param pageCount 页数
+     * @param linesPerPage 每页行数
+     * @return 输出路径
+     */
+    static Path write(Path path, int pageCount, int linesPerPage) throws IOException {
+        PDType1Font font = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+        try (PDDocument document = new PDDocument()) {
+            PDDocumentInformation info = new PDDocumentInformation();
+            info.setTitle("Synthetic manual");
+            info.setAuthor("DocAgent");
+            document.setDocumentInformation(info);
+
+            for (int pageNumber = 1; pageNumber <= pageCount; pageNumber++) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(font, 10);
+                    content.setLeading(12);
+                    content.newLineAtOffset(50, 740);
+                    for (int line = 1; line <= linesPerPage; line++) {
+                        content.showText(lineText(pageNumber, line));
+                        content.newLine();
+                    }
+                    content.endText();
+                }
+            }
+            document.save(path.toFile());
+        }
+        return path;
+    }
+
+    /**
+     * 指定页、行的文本
+     */
+    static String lineText(int pageNumber, int line) {
+        return "Page " + pageNumber + " line " + line + " the quick brown fox jumps over the lazy dog.";
+    }
+}
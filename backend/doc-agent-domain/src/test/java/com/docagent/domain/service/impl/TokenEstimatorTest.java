@@ -0,0 +1,55 @@
+package com.docagent.domain.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * token数量估算器测试
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+class TokenEstimatorTest {
+
+    @Test
+    void emptyTextHasNoTokens() {
+        assertThat(TokenEstimator.estimate(null)).isZero();
+        assertThat(TokenEstimator.estimate("")).isZero();
+    }
+
+    @Test
+    void latinTextRoundsUpPerFourChars() {
+        assertThat(TokenEstimator.estimate("a")).isEqualTo(1);
+        assertThat(TokenEstimator.estimate("abcd")).isEqualTo(1);
+        assertThat(TokenEstimator.estimate("abcde")).isEqualTo(2);
+        assertThat(TokenEstimator.estimate("hello world!")).isEqualTo(3);
+    }
+
+    @Test
+    void cjkCharsCountOneTokenEach() {
+        assertThat(TokenEstimator.estimate("中文文档")).isEqualTo(4);
+        assertThat(TokenEstimator.estimate("ひらがなカタカナ")).isEqualTo(8);
+        assertThat(TokenEstimator.estimate("한국어")).isEqualTo(3);
+        // 中文标点不属于中日韩文字，按其他字符计
+        assertThat(TokenEstimator.estimate("你好，PDF")).isEqualTo(2 + 1);
+    }
+
+    @Test
+    void countBasedEstimateMatchesTextEstimate() {
+        assertThat(TokenEstimator.estimate(3, 9)).isEqualTo(TokenEstimator.estimate("中文字abcdefghi"));
+        assertThat(TokenEstimator.estimate(0, 0)).isZero();
+    }
+
+    @Test
+    void isCjkRecognisesScripts() {
+        assertThat(TokenEstimator.isCjk('中')).isTrue();
+        assertThat(TokenEstimator.isCjk('あ')).isTrue();
+        assertThat(TokenEstimator.isCjk('ア')).isTrue();
+        assertThat(TokenEstimator.isCjk('한')).isTrue();
+        assertThat(TokenEstimator.isCjk('a')).isFalse();
+        assertThat(TokenEstimator.isCjk('。')).isFalse();
+        assertThat(TokenEstimator.isCjk('1')).isFalse();
+    }
+}
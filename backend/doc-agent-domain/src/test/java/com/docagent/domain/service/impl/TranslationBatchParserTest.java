@@ -0,0 +1,105 @@
+package com.docagent.domain.service.impl;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 批量翻译响应解析器测试：正常响应、代码块包裹、输出截断、编号异常等情况下只返回可信的片段
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+class TranslationBatchParserTest {
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    @Test
+    void parsesSegmentsInIdOrder() {
+        String content = "{\"segments\":[{\"id\":2,\"translation\":\"二\"},{\"id\":1,\"translation\":\"一\"},"
+                + "{\"id\":3,\"translation\":\"三\"}]}";
+
+        assertThat(parse(content, 3)).containsExactly("一", "二", "三");
+    }
+
+    @Test
+    void skipsCodeFenceAndUnknownFields() {
+        String content = "```json\n{\"note\":{\"ids\":[1,2]},\"segments\":[{\"id\":1,\"extra\":[{\"a\":1}],"
+                + "\"translation\":\"一\"},{\"id\":2,\"translation\":\"二\"}]}\n```";
+
+        assertThat(parse(content, 2)).containsExactly("一", "二");
+    }
+
+    @Test
+    void acceptsBareSegmentArray() {
+        String content = "[{\"id\":1,\"translation\":\"一\"},\"noise\",{\"id\":2,\"translation\":\"二\"}]";
+
+        assertThat(parse(content, 2)).containsExactly("一", "二");
+    }
+
+    @Test
+    void acceptsStringIds() {
+        String content = "{\"segments\":[{\"id\":\" 2 \",\"translation\":\"二\"},{\"id\":\"x\",\"translation\":\"?\"}]}";
+
+        assertThat(parse(content, 2)).containsExactly(null, "二");
+    }
+
+    @Test
+    void truncatedInsideTranslationKeepsEarlierSegments() {
+        String content = "{\"segments\":[{\"id\":1,\"translation\":\"一\"},{\"id\":2,\"translation\":\"二的前半";
+
+        assertThat(parse(content, 3)).containsExactly("一", null, null);
+    }
+
+    @Test
+    void truncatedBeforeSegmentClosesDropsThatSegment() {
+        String content = "{\"segments\":[{\"id\":1,\"translation\":\"一\"},{\"id\":2,\"translation\":\"二\"";
+
+        assertThat(parse(content, 2)).containsExactly("一", null);
+    }
+
+    @Test
+    void truncatedBetweenSegmentsKeepsCompletedSegments() {
+        String content = "{\"segments\":[{\"id\":1,\"translation\":\"一\"},{\"id\":2,\"translation\":\"二\"},";
+
+        assertThat(parse(content, 3)).containsExactly("一", "二", null);
+    }
+
+    @Test
+    void malformedJsonMidwayKeepsEarlierSegments() {
+        String content = "{\"segments\":[{\"id\":1,\"translation\":\"一\"},{\"id\":2,translation:\"二\"}]}";
+
+        assertThat(parse(content, 2)).containsExactly("一", null);
+    }
+
+    @Test
+    void ignoresOutOfRangeIdsAndBlankTranslations() {
+        String content = "{\"segments\":[{\"id\":0,\"translation\":\"零\"},{\"id\":3,\"translation\":\"三\"},"
+                + "{\"id\":1,\"translation\":\"  \"},{\"id\":2,\"translation\":null},{\"translation\":\"无编号\"}]}";
+
+        assertThat(parse(content, 2)).containsExactly(null, null);
+    }
+
+    @Test
+    void missingSegmentsFieldReturnsAllMissing() {
+        assertThat(parse("{\"result\":[{\"id\":1,\"translation\":\"一\"}]}", 1)).containsExactly((String) null);
+        assertThat(parse("{\"segments\":\"一\"}", 1)).containsExactly((String) null);
+    }
+
+    @Test
+    void contentWithoutJsonReturnsAllMissing() {
+        assertThat(parse("抱歉，我无法完成该翻译。", 2)).containsExactly(null, null);
+        assertThat(parse("", 1)).containsExactly((String) null);
+        assertThat(parse(null, 1)).containsExactly((String) null);
+    }
+
+    private List<String> parse(String content, int segmentCount) {
+        List<String> results = TranslationBatchParser.parse(jsonFactory, content, segmentCount);
+        assertThat(results).hasSize(segmentCount);
+        return results;
+    }
+}
@@ -0,0 +1,124 @@
+package com.docagent.domain.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 批量翻译组批器测试：以分段为单位组批，请求次数按未命中原文token数计算，而不是按源段落数
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+class TranslationBatcherTest {
+
+    private static final int CHUNK_TARGET_TOKENS = 1000;
+    private static final int CHUNK_MAX_TOKENS = 2000;
+    private static final int BATCH_MAX_CHUNKS = 8;
+    private static final int BATCH_MAX_TOKENS = 3000;
+
+    @Test
+    void shortParagraphsNeedCallsProportionalToTokens() {
+        int paragraphCount = 2000;
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < paragraphCount; i++) {
+            text.append("Line ").append(i).append(" of the installation guide.\n\n");
+        }
+        List<ChunkTranslation> chunks = chunk(text.toString());
+
+        List<List<ChunkTranslation.Part>> batches = pack(chunks);
+
+        int totalTokens = batches.stream().flatMap(List::stream)
+                .mapToInt(part -> TokenEstimator.estimate(part.content())).sum();
+        int expected = (totalTokens + BATCH_MAX_TOKENS - 1) / BATCH_MAX_TOKENS;
+        assertThat(batches.stream().mapToInt(List::size).sum()).isEqualTo(paragraphCount);
+        // 除最后一批外每批至少填到 token上限 - 单个分段大小
+        assertThat(batches.size()).isBetween(expected, totalTokens / (BATCH_MAX_TOKENS - CHUNK_MAX_TOKENS / 2) + 1);
+        // 按源段落数组批需要 2000 / 8 = 250 次请求
+        assertThat(batches.size()).isLessThan(paragraphCount / BATCH_MAX_CHUNKS / 10);
+    }
+
+    @Test
+    void memoryHitsAreLeftOutOfBatches() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            text.append("Paragraph ").append(i).append(" text.\n\n");
+        }
+        List<ChunkTranslation> chunks = chunk(text.toString());
+        int pending = 0;
+        for (ChunkTranslation chunk : chunks) {
+            for (int i = 0; i < chunk.paragraphs().size(); i += 2) {
+                chunk.complete(i, "memorized");
+            }
+            pending += chunk.pendingParts().size();
+        }
+
+        List<List<ChunkTranslation.Part>> batches = pack(chunks);
+
+        assertThat(batches.stream().mapToInt(List::size).sum()).isEqualTo(pending);
+        assertThat(batches).allSatisfy(batch -> assertThat(batch)
+                .allSatisfy(part -> assertThat(part.index() % 2).isEqualTo(1)));
+    }
+
+    @Test
+    void chunkPartsStayInOneBatch() {
+        List<ChunkTranslation> chunks = chunk("Alpha one.\n\nAlpha two.\n\nAlpha three.");
+        TranslationBatcher batcher = new TranslationBatcher(1, 1);
+
+        assertThat(batcher.add(chunks.get(0).pendingParts())).isNull();
+        List<ChunkTranslation.Part> batch = batcher.drain();
+
+        assertThat(batch).extracting(ChunkTranslation.Part::content)
+                .containsExactly("Alpha one.", "Alpha two.", "Alpha three.");
+        assertThat(batcher.drain()).isNull();
+    }
+
+    @Test
+    void chunkCountCapsBatch() {
+        TranslationBatcher batcher = new TranslationBatcher(2, 10_000);
+        List<ChunkTranslation> chunks = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            chunks.add(new ChunkTranslation(i, new TranslationChunker.Chunk("Chunk " + i + ".", 0, 8)));
+        }
+
+        List<List<ChunkTranslation.Part>> batches = new ArrayList<>();
+        for (ChunkTranslation chunk : chunks) {
+            List<ChunkTranslation.Part> full = batcher.add(chunk.pendingParts());
+            if (full != null) {
+                batches.add(full);
+            }
+        }
+        batches.add(batcher.drain());
+
+        assertThat(batches).extracting(List::size).containsExactly(2, 2, 1);
+    }
+
+    private static List<ChunkTranslation> chunk(String text) {
+        List<TranslationChunker.Chunk> chunks = TranslationChunker.split(text, CHUNK_TARGET_TOKENS, CHUNK_MAX_TOKENS);
+        List<ChunkTranslation> translations = new ArrayList<>();
+        for (int i = 0; i < chunks.size(); i++) {
+            translations.add(new ChunkTranslation(i, chunks.get(i)));
+        }
+        return translations;
+    }
+
+    private static List<List<ChunkTranslation.Part>> pack(List<ChunkTranslation> chunks) {
+        TranslationBatcher batcher = new TranslationBatcher(BATCH_MAX_CHUNKS, BATCH_MAX_TOKENS);
+        List<List<ChunkTranslation.Part>> batches = new ArrayList<>();
+        for (ChunkTranslation chunk : chunks) {
+            List<ChunkTranslation.Part> full = batcher.add(chunk.pendingParts());
+            if (full != null) {
+                batches.add(full);
+            }
+        }
+        List<ChunkTranslation.Part> rest = batcher.drain();
+        if (rest != null) {
+            batches.add(rest);
+        }
+        return batches;
+    }
+}
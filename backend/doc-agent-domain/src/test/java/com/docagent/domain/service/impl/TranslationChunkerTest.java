@@ -0,0 +1,179 @@
+package com.docagent.domain.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 翻译分段器测试：句末切分、段落边界、超长句切分、偏移正确性，以及分段拆回源段落与译文拼接
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+class TranslationChunkerTest {
+
+    @Test
+    void blankTextHasNoChunks() {
+        assertThat(TranslationChunker.split(null, 100, 200)).isEmpty();
+        assertThat(TranslationChunker.split(" \n\n\t ", 100, 200)).isEmpty();
+    }
+
+    @Test
+    void shortTextIsSingleChunk() {
+        String text = "  第一句。第二句！\n\n第三句？  ";
+
+        List<TranslationChunker.Chunk> chunks = TranslationChunker.split(text, 100, 200);
+
+        assertThat(chunks).hasSize(1);
+        assertThat(chunks.get(0).content()).isEqualTo("第一句。第二句！\n\n第三句？");
+        assertOffsets(text, chunks);
+    }
+
+    @Test
+    void cutsOnlyAtSentenceEnds() {
+        String text = "一二三四五六七八。一二三四五六七八。一二三四五六七八。";
+
+        // 每句9个token，目标10个token：每句一个分段，不在句中切开
+        List<TranslationChunker.Chunk> chunks = TranslationChunker.split(text, 10, 20);
+
+        assertThat(chunks).extracting(TranslationChunker.Chunk::content)
+                .containsExactly("一二三四五六七八。", "一二三四五六七八。", "一二三四五六七八。");
+        assertOffsets(text, chunks);
+    }
+
+    @Test
+    void periodInsideNumberIsNotSentenceEnd() {
+        String text = "Version 3.14 is out. Upgrade now.";
+
+        List<TranslationChunker.Chunk> chunks = TranslationChunker.split(text, 5, 20);
+
+        assertThat(chunks).extracting(TranslationChunker.Chunk::content)
+                .containsExactly("Version 3.14 is out.", "Upgrade now.");
+    }
+
+    @Test
+    void closingQuoteStaysWithSentence() {
+        String text = "他说：“好的。”然后离开了。";
+
+        List<TranslationChunker.Chunk> chunks = TranslationChunker.split(text, 8, 20);
+
+        assertThat(chunks).extracting(TranslationChunker.Chunk::content)
+                .containsExactly("他说：“好的。”", "然后离开了。");
+    }
+
+    @Test
+    void paragraphBoundaryEndsChunkOnceFilled() {
+        // 第一段8个token，已达到目标10的60%，遇到空行即结束分段
+        String text = "一二三四五六七。\n\n甲乙。";
+
+        List<TranslationChunker.Chunk> chunks = TranslationChunker.split(text, 10, 20);
+
+        assertThat(chunks).extracting(TranslationChunker.Chunk::content)
+                .containsExactly("一二三四五六七。", "甲乙。");
+        assertOffsets(text, chunks);
+    }
+
+    @Test
+    void smallParagraphsAreMergedBelowFillRatio() {
+        // 每段3个token，三段共9个，未达到目标20的60%，段落边界处不结束分段
+        String text = "甲乙。\n\n丙丁。\n\n戊己。";
+
+        List<TranslationChunker.Chunk> chunks = TranslationChunker.split(text, 20, 40);
+
+        assertThat(chunks).extracting(TranslationChunker.Chunk::content).containsExactly(text);
+    }
+
+    @Test
+    void singleLineBreakIsNotParagraphBoundary() {
+        String text = "一二三四五六七\n八九十。甲乙。";
+
+        List<TranslationChunker.Chunk> chunks = TranslationChunker.split(text, 12, 20);
+
+        assertThat(chunks).extracting(TranslationChunker.Chunk::content)
+                .containsExactly("一二三四五六七\n八九十。", "甲乙。");
+    }
+
+    @Test
+    void oversizedSentenceIsCutAtClauses() {
+        String text = "一二三四五，六七八九十，甲乙丙丁戊，己庚辛壬癸。";
+
+        List<TranslationChunker.Chunk> chunks = TranslationChunker.split(text, 8, 12);
+
+        assertThat(chunks).extracting(TranslationChunker.Chunk::content)
+                .containsExactly("一二三四五，六七八九十，", "甲乙丙丁戊，己庚辛壬癸。");
+        assertThat(chunks).allSatisfy(chunk -> assertThat(TokenEstimator.estimate(chunk.content())).isLessThanOrEqualTo(12));
+        assertOffsets(text, chunks);
+    }
+
+    @Test
+    void oversizedSentenceWithoutBreaksIsCutHard() {
+        String text = "一二三四五六七八九十甲乙丙丁戊己庚辛壬癸";
+
+        List<TranslationChunker.Chunk> chunks = TranslationChunker.split(text, 5, 8);
+
+        assertThat(chunks).allSatisfy(chunk -> assertThat(TokenEstimator.estimate(chunk.content())).isLessThanOrEqualTo(8));
+        assertThat(String.join("", chunks.stream().map(TranslationChunker.Chunk::content).toList())).isEqualTo(text);
+        assertOffsets(text, chunks);
+    }
+
+    @Test
+    void paragraphsSplitChunkOnBlankLines() {
+        String text = "前文。\n\n第一段。\n第一段续。\n \n第二段。\n\n\n第三段。";
+        TranslationChunker.Chunk chunk = new TranslationChunker.Chunk(text.substring(5), 5, text.length());
+
+        List<TranslationChunker.Chunk> paragraphs = TranslationChunker.paragraphs(chunk);
+
+        assertThat(paragraphs).extracting(TranslationChunker.Chunk::content)
+                .containsExactly("第一段。\n第一段续。", "第二段。", "第三段。");
+        assertOffsets(text, paragraphs);
+    }
+
+    @Test
+    void paragraphsAreStableWhenChunkPackingChanges() {
+        String text = "甲乙。\n\n丙丁。\n\n戊己。";
+
+        // 分段方式不同（合并或不合并），拆出的源段落相同，翻译记忆可以复用
+        List<String> merged = TranslationChunker.split(text, 100, 200).stream()
+                .flatMap(chunk -> TranslationChunker.paragraphs(chunk).stream())
+                .map(TranslationChunker.Chunk::content)
+                .toList();
+        List<String> separate = TranslationChunker.split(text, 2, 3).stream()
+                .flatMap(chunk -> TranslationChunker.paragraphs(chunk).stream())
+                .map(TranslationChunker.Chunk::content)
+                .toList();
+
+        assertThat(merged).containsExactly("甲乙。", "丙丁。", "戊己。").isEqualTo(separate);
+    }
+
+    @Test
+    void joinKeepsOriginalSeparators() {
+        String text = "甲乙。\n\n丙丁。\n \n\n戊己。";
+        TranslationChunker.Chunk chunk = TranslationChunker.split(text, 100, 200).get(0);
+        List<TranslationChunker.Chunk> paragraphs = TranslationChunker.paragraphs(chunk);
+
+        String joined = TranslationChunker.join(chunk, paragraphs, List.of("A.", "B.", "C."));
+
+        assertThat(joined).isEqualTo("A.\n\nB.\n \n\nC.");
+    }
+
+    @Test
+    void chunkTranslationJoinsOnceAllParagraphsComplete() {
+        String text = "甲乙。\n\n丙丁。";
+        ChunkTranslation translation = new ChunkTranslation(0, TranslationChunker.split(text, 100, 200).get(0));
+
+        assertThat(translation.complete(1, "B.")).isFalse();
+        // 重复完成同一段落不计数
+        assertThat(translation.complete(1, "B.")).isFalse();
+        assertThat(translation.complete(0, "A.")).isTrue();
+        assertThat(translation.join()).isEqualTo("A.\n\nB.");
+    }
+
+    private static void assertOffsets(String text, List<TranslationChunker.Chunk> chunks) {
+        for (TranslationChunker.Chunk chunk : chunks) {
+            assertThat(text.substring(chunk.start(), chunk.end())).isEqualTo(chunk.content());
+        }
+    }
+}
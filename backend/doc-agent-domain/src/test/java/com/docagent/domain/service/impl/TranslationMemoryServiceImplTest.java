@@ -0,0 +1,44 @@
+package com.docagent.domain.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 翻译记忆哈希测试：行内空白和换行符差异不影响命中，换行本身参与区分
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+class TranslationMemoryServiceImplTest {
+
+    @Test
+    void horizontalWhitespaceIsNormalized() {
+        assertThat(hash("  Hello \t world.  ")).isEqualTo(hash("Hello world."));
+        assertThat(hash("Hello world.")).isEqualTo(hash("Hello world."));
+    }
+
+    @Test
+    void lineEndingsAndTrailingSpacesAreNormalized() {
+        assertThat(hash("line one  \r\nline two")).isEqualTo(hash("line one\nline two"));
+        assertThat(hash("line one\rline two")).isEqualTo(hash("line one\nline two"));
+    }
+
+    @Test
+    void newlinesAreSignificant() {
+        assertThat(hash("item one\nitem two")).isNotEqualTo(hash("item one item two"));
+        assertThat(hash("stanza one\n\nstanza two")).isNotEqualTo(hash("stanza one\nstanza two"));
+    }
+
+    @Test
+    void targetLangAndStyleAreSignificant() {
+        assertThat(TranslationMemoryServiceImpl.buildHash("Hello.", "zh", "fluent"))
+                .isNotEqualTo(TranslationMemoryServiceImpl.buildHash("Hello.", "ja", "fluent"))
+                .isNotEqualTo(TranslationMemoryServiceImpl.buildHash("Hello.", "zh", "literal"));
+    }
+
+    private static String hash(String text) {
+        return TranslationMemoryServiceImpl.buildHash(text, "zh", "fluent");
+    }
+}
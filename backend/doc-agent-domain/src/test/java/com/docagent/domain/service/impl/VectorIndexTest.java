@@ -0,0 +1,92 @@
+package com.docagent.domain.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 文档分块向量索引测试
+ *
+ * @author li.hongjian
+ * @email lihongjian01@51talk.com
+ * @date 2025-11-12
+ */
+class VectorIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void writeAndMapRoundTrip() throws IOException {
+        Path path = tempDir.resolve("doc.pdf.vec");
+        VectorIndex.write(path, "model:3", 3, List.of(unit(1, 0, 0), unit(0, 1, 0), unit(1, 1, 0)));
+
+        VectorIndex index = VectorIndex.map(path);
+
+        assertThat(index.getModelId()).isEqualTo("model:3");
+        assertThat(index.getDimension()).isEqualTo(3);
+        assertThat(index.size()).isEqualTo(3);
+        assertThat(Files.exists(tempDir.resolve("doc.pdf.vec.tmp"))).isFalse();
+    }
+
+    @Test
+    void searchRanksByInnerProductAndSkipsNonPositiveScores() throws IOException {
+        Path path = tempDir.resolve("doc.pdf.vec");
+        VectorIndex.write(path, "m", 3, List.of(
+                unit(1, 0, 0), unit(0, 1, 0), unit(1, 1, 0), unit(-1, 0, 0), unit(0.9F, 0.1F, 0)));
+        VectorIndex index = VectorIndex.map(path);
+
+        assertThat(index.search(unit(1, 0, 0), 10)).containsExactly(0, 4, 2);
+        assertThat(index.search(unit(1, 0, 0), 2)).containsExactly(0, 4);
+        assertThat(index.search(unit(0, 0, 1), 10)).isEmpty();
+    }
+
+    @Test
+    void searchIgnoresQueriesWithWrongDimension() throws IOException {
+        Path path = tempDir.resolve("doc.pdf.vec");
+        VectorIndex.write(path, "m", 3, List.of(unit(1, 0, 0)));
+
+        assertThat(VectorIndex.map(path).search(new float[]{1, 0}, 5)).isEmpty();
+        assertThat(VectorIndex.map(path).search(unit(1, 0, 0), 0)).isEmpty();
+    }
+
+    @Test
+    void writeRejectsInconsistentDimension() {
+        Path path = tempDir.resolve("doc.pdf.vec");
+
+        assertThatThrownBy(() -> VectorIndex.write(path, "m", 3, List.of(unit(1, 0, 0), new float[]{1, 0})))
+                .isInstanceOf(IOException.class);
+        assertThat(Files.exists(path)).isFalse();
+        assertThat(Files.exists(tempDir.resolve("doc.pdf.vec.tmp"))).isFalse();
+    }
+
+    @Test
+    void mapRejectsTruncatedFile() throws IOException {
+        Path path = tempDir.resolve("doc.pdf.vec");
+        VectorIndex.write(path, "m", 3, List.of(unit(1, 0, 0), unit(0, 1, 0)));
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 4));
+
+        assertThatThrownBy(() -> VectorIndex.map(path)).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void normalizeProducesUnitVectors() {
+        float[] vector = VectorIndex.normalize(new float[]{3, 4});
+
+        assertThat(vector).containsExactly(0.6F, 0.8F);
+        assertThat(VectorIndex.normalize(new float[]{0, 0})).containsExactly(0F, 0F);
+    }
+
+    private static float[] unit(float... values) {
+        return VectorIndex.normalize(values);
+    }
+}
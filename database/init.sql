@@ -16,17 +16,45 @@ CREATE TABLE `t_document` (
     `file_size` BIGINT NOT NULL COMMENT '文件大小（字节）',
     `file_path` VARCHAR(500) NOT NULL COMMENT '文件存储路径',
     `file_md5` VARCHAR(32) NULL COMMENT '文件MD5值',
+    `content_id` BIGINT NULL COMMENT '共享内容ID（关联t_document_content）',
     `page_count` INT NULL COMMENT 'PDF页数',
-    `text_content` MEDIUMTEXT NULL COMMENT '提取的文本内容',
-    `status` TINYINT DEFAULT 0 COMMENT '状态: 0-上传中, 1-已完成, 2-失败',
+    `status` TINYINT DEFAULT 0 COMMENT '状态: 0-解析中, 1-已完成, 2-失败',
     `create_time` DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     `update_time` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
     PRIMARY KEY (`id`),
     INDEX `idx_session_id` (`session_id`),
     INDEX `idx_file_md5` (`file_md5`),
+    INDEX `idx_content_id` (`content_id`),
     INDEX `idx_create_time` (`create_time`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='文档表';
 
+-- 文档内容表（按内容哈希去重，多个文档记录共享同一份文件和解析结果）
+DROP TABLE IF EXISTS `t_document_content`;
+CREATE TABLE `t_document_content` (
+    `id` BIGINT NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+    `content_hash` CHAR(64) NOT NULL COMMENT '内容哈希（文件SHA-256）',
+    `file_size` BIGINT NOT NULL COMMENT '文件大小（字节）',
+    `file_path` VARCHAR(500) NOT NULL COMMENT '文件存储路径',
+    `page_count` INT NULL COMMENT 'PDF页数',
+    `status` TINYINT DEFAULT 0 COMMENT '状态: 0-解析中, 1-已完成, 2-失败',
+    `ref_count` INT NOT NULL DEFAULT 0 COMMENT '引用计数（引用该内容的文档记录数）',
+    `create_time` DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    `update_time` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    PRIMARY KEY (`id`),
+    UNIQUE KEY `uk_content_hash` (`content_hash`),
+    INDEX `idx_status` (`status`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='文档内容表';
+
+-- 文档文本表（与内容元数据分表存储，按需加载）
+DROP TABLE IF EXISTS `t_document_text`;
+CREATE TABLE `t_document_text` (
+    `content_id` BIGINT NOT NULL COMMENT '文档内容ID（关联t_document_content）',
+    `text_content` MEDIUMTEXT NOT NULL COMMENT '提取的文本内容',
+    `text_length` INT NOT NULL DEFAULT 0 COMMENT '文本长度（字符数）',
+    `create_time` DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    PRIMARY KEY (`content_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='文档文本表';
+
 -- 翻译记录表
 DROP TABLE IF EXISTS `t_translation`;
 CREATE TABLE `t_translation` (
@@ -34,15 +62,48 @@ CREATE TABLE `t_translation` (
     `document_id` BIGINT NOT NULL COMMENT '文档ID',
     `source_lang` VARCHAR(10) NULL COMMENT '源语言',
     `target_lang` VARCHAR(10) NOT NULL COMMENT '目标语言',
-    `translated_content` LONGTEXT NULL COMMENT '翻译后的内容（JSON格式存储段落映射）',
-    `translate_style` VARCHAR(20) NULL COMMENT '翻译风格: accurate-准确, fluent-流畅, concise-简洁',
+    `translated_content` LONGTEXT NULL COMMENT '翻译后的内容（JSON格式存储段落映射，已废弃，段落见t_translation_paragraph）',
+    `translate_style` VARCHAR(20) NOT NULL DEFAULT 'fluent' COMMENT '翻译风格: accurate-准确, fluent-流畅, concise-简洁',
     `status` TINYINT DEFAULT 0 COMMENT '状态: 0-翻译中, 1-已完成, 2-失败',
+    `total_paragraphs` INT DEFAULT 0 COMMENT '待翻译段落总数',
+    `translated_paragraphs` INT DEFAULT 0 COMMENT '已翻译段落数',
+    `lease_owner` VARCHAR(64) NULL COMMENT '执行节点标识（认领任务的节点）',
+    `lease_until` DATETIME NULL COMMENT '执行租约到期时间，到期未续约时其他节点可接管',
     `create_time` DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     PRIMARY KEY (`id`),
-    INDEX `idx_document_id` (`document_id`),
+    UNIQUE KEY `uk_document_lang_style` (`document_id`, `target_lang`, `translate_style`),
+    INDEX `idx_status_lease` (`status`, `lease_until`),
     INDEX `idx_create_time` (`create_time`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='翻译记录表';
 
+-- 翻译段落表
+DROP TABLE IF EXISTS `t_translation_paragraph`;
+CREATE TABLE `t_translation_paragraph` (
+    `id` BIGINT NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+    `translation_id` BIGINT NOT NULL COMMENT '翻译记录ID',
+    `paragraph_index` INT NOT NULL COMMENT '段落下标（从0开始）',
+    `original_content` MEDIUMTEXT NOT NULL COMMENT '原文内容',
+    `translated_content` MEDIUMTEXT NOT NULL COMMENT '译文内容',
+    `source_start` INT NULL COMMENT '段落在文档文本中的起始偏移（含）',
+    `source_end` INT NULL COMMENT '段落在文档文本中的结束偏移（不含）',
+    `create_time` DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    PRIMARY KEY (`id`),
+    UNIQUE KEY `uk_translation_paragraph` (`translation_id`, `paragraph_index`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='翻译段落表';
+
+-- 翻译记忆表
+DROP TABLE IF EXISTS `t_translation_memory`;
+CREATE TABLE `t_translation_memory` (
+    `id` BIGINT NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+    `source_hash` CHAR(64) NOT NULL COMMENT '段落哈希: SHA-256(规范化原文+目标语言+翻译风格)',
+    `target_lang` VARCHAR(10) NOT NULL COMMENT '目标语言',
+    `translate_style` VARCHAR(20) NULL COMMENT '翻译风格',
+    `translated_content` MEDIUMTEXT NOT NULL COMMENT '译文内容',
+    `create_time` DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    PRIMARY KEY (`id`),
+    UNIQUE KEY `uk_source_hash` (`source_hash`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='翻译记忆表';
+
 -- 对话历史表
 DROP TABLE IF EXISTS `t_chat_history`;
 CREATE TABLE `t_chat_history` (
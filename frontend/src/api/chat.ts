@@ -14,6 +14,72 @@ export const sendMessage = (params: ChatRequest): Promise<string> => {
   return request.post<any, string>('/chat/send', params);
 };
 
+/**
+ * 流式发送对话消息（SSE，逐块返回AI回复）
+ * @param params 对话请求参数
+ * @param onChunk 接收内容块的回调
+ * @param signal 用于中止请求
+ * @returns 完整的AI回复内容
+ */
+export const sendMessageStream = async (
+  params: ChatRequest,
+  onChunk: (chunk: string) => void,
+  signal?: AbortSignal
+): Promise<string> => {
+  const response = await fetch('/api/chat/stream', {
+    method: 'POST',
+    headers: { 'Content-Type': 'application/json', Accept: 'text/event-stream' },
+    credentials: 'include',
+    body: JSON.stringify(params),
+    signal,
+  });
+  if (!response.ok || !response.body) {
+    throw new Error(`流式对话请求失败: ${response.status}`);
+  }
+
+  const reader = response.body.getReader();
+  const decoder = new TextDecoder();
+  let buffer = '';
+  let reply = '';
+
+  while (true) {
+    const { done, value } = await reader.read();
+    if (done) {
+      break;
+    }
+    buffer += decoder.decode(value, { stream: true });
+
+    // SSE事件以空行分隔
+    let boundary = buffer.indexOf('\n\n');
+    while (boundary >= 0) {
+      const rawEvent = buffer.slice(0, boundary);
+      buffer = buffer.slice(boundary + 2);
+      boundary = buffer.indexOf('\n\n');
+
+      let event = 'message';
+      const dataLines: string[] = [];
+      rawEvent.split('\n').forEach((line) => {
+        if (line.startsWith('event:')) {
+          event = line.slice(6).trim();
+        } else if (line.startsWith('data:')) {
+          dataLines.push(line.slice(5));
+        }
+      });
+      const data = dataLines.join('\n');
+
+      if (event === 'message') {
+        reply += data;
+        onChunk(data);
+      } else if (event === 'error') {
+        throw new Error(data || 'AI回复失败');
+      } else if (event === 'done') {
+        return reply;
+      }
+    }
+  }
+  return reply;
+};
+
 /**
  * 获取对话历史
  * @param documentId 文档ID
@@ -1,5 +1,5 @@
 import request from '../utils/request';
-import { Document } from './types';
+import { Document, DocumentStatus } from './types';
 
 /**
  * 文档API服务
@@ -38,3 +38,20 @@ export const getDocumentList = (): Promise<Document[]> => {
 export const getDocumentDetail = (documentId: number): Promise<Document> => {
   return request.get<any, Document>(`/document/${documentId}`);
 };
+
+/**
+ * 删除文档
+ * @param documentId 文档ID
+ */
+export const deleteDocument = (documentId: number): Promise<void> => {
+  return request.delete<any, void>(`/document/${documentId}`);
+};
+
+/**
+ * 获取文档解析状态
+ * @param documentId 文档ID
+ * @returns 解析状态
+ */
+export const getDocumentStatus = (documentId: number): Promise<DocumentStatus> => {
+  return request.get<any, DocumentStatus>(`/document/${documentId}/status`);
+};
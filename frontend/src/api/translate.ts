@@ -1,5 +1,5 @@
 import request from '../utils/request';
-import { Translation, TranslateRequest } from './types';
+import { Translation, TranslateRequest, TranslationParagraphRecord } from './types';
 
 /**
  * 翻译API服务
@@ -23,6 +23,23 @@ export const getTranslation = (translationId: number): Promise<Translation> => {
   return request.get<any, Translation>(`/translate/${translationId}`);
 };
 
+/**
+ * 分页获取翻译段落（按段落顺序）
+ * @param translationId 翻译记录ID
+ * @param offset 起始段落下标
+ * @param limit 查询数量
+ * @returns 翻译段落列表
+ */
+export const getTranslationParagraphs = (
+  translationId: number,
+  offset = 0,
+  limit = 50
+): Promise<TranslationParagraphRecord[]> => {
+  return request.get<any, TranslationParagraphRecord[]>(`/translate/${translationId}/paragraphs`, {
+    params: { offset, limit },
+  });
+};
+
 /**
  * 获取文档最新翻译
  * @param documentId 文档ID
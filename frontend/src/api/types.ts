@@ -12,13 +12,22 @@ export interface Document {
   fileSize: number;
   filePath: string;
   fileMd5: string;
+  contentId?: number;
   pageCount: number;
-  textContent: string;
-  status: number; // 0-上传中, 1-已完成, 2-失败
+  status: number; // 0-解析中, 1-已完成, 2-失败
   createTime: string;
   updateTime: string;
 }
 
+/**
+ * 文档解析状态
+ */
+export interface DocumentStatus {
+  documentId: number;
+  status: number; // 0-解析中, 1-已完成, 2-失败
+  pageCount?: number;
+}
+
 /**
  * 翻译记录实体
  */
@@ -30,6 +39,8 @@ export interface Translation {
   translatedContent: string; // JSON格式的段落映射
   translateStyle: string;
   status: number; // 0-翻译中, 1-已完成, 2-失败
+  totalParagraphs?: number; // 待翻译段落总数
+  translatedParagraphs?: number; // 已翻译段落数
   createTime: string;
 }
 
@@ -42,6 +53,20 @@ export interface TranslationParagraph {
   translated: string;
 }
 
+/**
+ * 翻译段落记录（t_translation_paragraph）
+ */
+export interface TranslationParagraphRecord {
+  id: number;
+  translationId: number;
+  paragraphIndex: number;
+  originalContent: string;
+  translatedContent: string;
+  sourceStart?: number; // 段落在文档文本中的起始偏移
+  sourceEnd?: number; // 段落在文档文本中的结束偏移
+  createTime: string;
+}
+
 /**
  * 翻译句子片段（用于联动高亮）
  */
@@ -17,7 +17,6 @@ export const mockDocuments: Document[] = [
     filePath: '/mock/ai-whitepaper.pdf',
     fileMd5: 'mock-md5-1',
     pageCount: 15,
-    textContent: '这是一份关于AI技术的白皮书...',
     status: 1,
     createTime: '2025-11-12T08:00:00',
     updateTime: '2025-11-12T08:00:00',
@@ -30,7 +29,6 @@ export const mockDocuments: Document[] = [
     filePath: '/mock/deep-learning.pdf',
     fileMd5: 'mock-md5-2',
     pageCount: 25,
-    textContent: '深度学习是机器学习的一个分支...',
     status: 1,
     createTime: '2025-11-11T10:30:00',
     updateTime: '2025-11-11T10:30:00',
@@ -43,7 +41,6 @@ export const mockDocuments: Document[] = [
     filePath: '/mock/neural-networks.pdf',
     fileMd5: 'mock-md5-3',
     pageCount: 10,
-    textContent: '神经网络是深度学习的基础...',
     status: 1,
     createTime: '2025-11-10T14:20:00',
     updateTime: '2025-11-10T14:20:00',
@@ -158,7 +155,6 @@ export const mockUploadDocument = async (file: File): Promise<number> => {
     filePath: `/mock/${file.name}`,
     fileMd5: `mock-md5-${Date.now()}`,
     pageCount: 10,
-    textContent: '这是上传的文档内容...',
     status: 1,
     createTime: new Date().toISOString(),
     updateTime: new Date().toISOString(),